@@ -0,0 +1,71 @@
+package com.ase.angelos_kb_backend.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.ase.angelos_kb_backend.util.CITParser;
+
+/**
+ * Cost of extracting the text of saved cit.tum.de pages from an already parsed DOM.
+ * legacy is the parser before the rewrite, which walked every element list and compared each paragraph
+ * with every table seen so far, singlePass is the visitor based CITParser.
+ *
+ * Run with: mvn -Pbenchmarks test-compile exec:exec -Dbenchmark=CITParserBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CITParserBenchmark {
+
+    @Param({"study-plan", "program-info"})
+    public String page;
+
+    private Document document;
+    private LegacyCITParser legacyParser;
+    private CITParser parser;
+
+    @Setup
+    public void setUp() throws IOException {
+        try (InputStream in = CITParserBenchmark.class.getResourceAsStream("/cit-pages/" + page + ".html")) {
+            document = Jsoup.parse(new String(in.readAllBytes(), StandardCharsets.UTF_8), "https://www.cit.tum.de/cit/studium/");
+        }
+        legacyParser = new LegacyCITParser();
+        parser = new CITParser();
+    }
+
+    @Benchmark
+    public String legacy() {
+        return legacyParser.parseDocument(document);
+    }
+
+    @Benchmark
+    public String singlePass() {
+        return parser.parseDocument(document);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(CITParserBenchmark.class.getSimpleName()).build()).run();
+    }
+}
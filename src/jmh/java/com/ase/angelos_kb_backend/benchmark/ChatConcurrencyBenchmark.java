@@ -0,0 +1,203 @@
+package com.ase.angelos_kb_backend.benchmark;
+
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+
+import com.ase.angelos_kb_backend.controller.ChatController;
+import com.ase.angelos_kb_backend.dto.angelos.AngelosChatMessage;
+import com.ase.angelos_kb_backend.dto.angelos.AngelosChatRequest;
+import com.ase.angelos_kb_backend.service.AngelosService;
+import com.ase.angelos_kb_backend.service.ChatAnswerCache;
+import com.ase.angelos_kb_backend.service.ChatSessionService;
+import com.ase.angelos_kb_backend.service.InMemoryChatSessionStore;
+import com.ase.angelos_kb_backend.service.OrganisationService;
+import com.ase.angelos_kb_backend.service.RateLimitService;
+import com.ase.angelos_kb_backend.service.StudyProgramService;
+import com.ase.angelos_kb_backend.util.Bulkhead;
+import com.ase.angelos_kb_backend.util.CircuitBreaker;
+import com.ase.angelos_kb_backend.util.JwtUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Compares platform and virtual request threads for /api/chat/send against a slow Angelos stub.
+ * Platform mode runs every request on a fixed pool sized like Tomcat's default of 200 worker threads,
+ * virtual mode gives every request its own virtual thread, which is what spring.threads.virtual.enabled does.
+ *
+ * Run with: mvn -Pbenchmarks test-compile exec:exec -Dbenchmark=ChatConcurrencyBenchmark
+ * Optional: -Dbenchmark.jvm-args="-Dbenchmark.requests=2000 -Dbenchmark.delay-ms=500"
+ */
+public class ChatConcurrencyBenchmark {
+
+    private static final String USERNAME = "chatbot";
+    private static final String PASSWORD = "password";
+    private static final int TOMCAT_MAX_THREADS = 200;
+
+    private final int requests = Integer.getInteger("benchmark.requests", 2000);
+    private final int delayMs = Integer.getInteger("benchmark.delay-ms", 500);
+
+    private HttpServer angelosStub;
+    private JwtUtil jwtUtil;
+
+    static {
+        // The stub server would otherwise close pooled connections above its default idle limit of 200
+        System.setProperty("sun.net.httpserver.maxIdleConnections", "10000");
+    }
+
+    public static void main(String[] args) throws Exception {
+        ChatConcurrencyBenchmark benchmark = new ChatConcurrencyBenchmark();
+        benchmark.startStub();
+        try {
+            benchmark.compareThreadModels();
+        } finally {
+            benchmark.stopStub();
+        }
+    }
+
+    private void startStub() throws IOException {
+        angelosStub = HttpServer.create(new InetSocketAddress("localhost", 0), 4096);
+        angelosStub.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        angelosStub.createContext("/v1/question/chat", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            try {
+                Thread.sleep(delayMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] body = "{\"answer\":\"Registration closes on 15 January.\"}".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        angelosStub.start();
+        jwtUtil = new JwtUtil("benchmark-secret-benchmark-secret-benchmark-secret", 1000);
+    }
+
+    private void stopStub() {
+        angelosStub.stop(0);
+    }
+
+    private void compareThreadModels() throws Exception {
+        // Warm up both paths once so class loading and JIT do not skew the first run
+        run("warm-up", false, Math.min(requests, 200));
+
+        Result platform = run("platform", false, requests);
+        Result virtual = run("virtual", true, requests);
+
+        System.out.println();
+        System.out.printf("Chat concurrency: %d requests, Angelos delay %d ms%n", requests, delayMs);
+        System.out.println(platform);
+        System.out.println(virtual);
+    }
+
+    private Result run(String name, boolean virtualThreads, int count) throws Exception {
+        HttpClient.Builder httpClientBuilder = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1);
+        if (virtualThreads) {
+            httpClientBuilder.executor(Executors.newVirtualThreadPerTaskExecutor());
+        }
+        ChatController controller = chatController(httpClientBuilder.build());
+        String token = "Bearer " + jwtUtil.generateChatToken(USERNAME, PASSWORD);
+
+        ExecutorService requestThreads = virtualThreads
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : Executors.newFixedThreadPool(TOMCAT_MAX_THREADS);
+
+        List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+        long start = System.nanoTime();
+        try (requestThreads) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                long submitted = System.nanoTime();
+                AngelosChatRequest request = chatRequest(i);
+                futures.add(requestThreads.submit(() -> {
+                    // A servlet thread is held until the answer has been written
+                    controller.chat(token, request, false, new MockHttpServletRequest()).join();
+                    latencies.add(System.nanoTime() - submitted);
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        return new Result(name, count, elapsed, latencies);
+    }
+
+    private ChatController chatController(HttpClient httpClient) {
+        // The chat bulkhead is sized to let every request through, the thread model is what is measured
+        AngelosService angelosService = new AngelosService(new RestTemplate(), httpClient, new ObjectMapper(),
+                new CircuitBreaker(5, Duration.ofSeconds(30)), new Bulkhead(requests), new Bulkhead(8));
+        ReflectionTestUtils.setField(angelosService, "angelosUrl", "http://localhost:" + angelosStub.getAddress().getPort());
+        ReflectionTestUtils.setField(angelosService, "angelosSecret", "secret");
+        ReflectionTestUtils.setField(angelosService, "readTimeout", 60_000L);
+        ReflectionTestUtils.setField(angelosService, "coalesceMaxWait", 60_000L);
+
+        OrganisationService organisationService = mock(OrganisationService.class);
+        when(organisationService.isResponseActive(anyLong())).thenReturn(true);
+
+        // The answer cache is switched off, every request has to reach the stub
+        ChatAnswerCache chatAnswerCache = new ChatAnswerCache(0, 1, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(chatAnswerCache, "enabled", false);
+
+        // All requests come from one client, the rate limits would reject most of them
+        RateLimitService rateLimitService = new RateLimitService(organisationService, 10, 1000, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(rateLimitService, "enabled", false);
+
+        ChatSessionService chatSessionService = new ChatSessionService(new InMemoryChatSessionStore(60, 1000));
+
+        ChatController controller = new ChatController(jwtUtil, angelosService, chatAnswerCache, chatSessionService,
+                mock(StudyProgramService.class), organisationService, rateLimitService, new SimpleAsyncTaskExecutor());
+        ReflectionTestUtils.setField(controller, "angelosUsername", USERNAME);
+        ReflectionTestUtils.setField(controller, "angelosPassword", PASSWORD);
+        ReflectionTestUtils.setField(controller, "maxMessageLength", 2000);
+        return controller;
+    }
+
+    private AngelosChatRequest chatRequest(int i) {
+        // Every question is different, identical ones would be coalesced into one upstream call
+        AngelosChatRequest request = new AngelosChatRequest();
+        request.setMessages(List.of(new AngelosChatMessage("When does the exam registration close? #" + i, "user")));
+        request.setOrgId(1L);
+        return request;
+    }
+
+    private record Result(String name, int count, long elapsedNanos, List<Long> latencies) {
+
+        private long percentileMillis(double percentile) {
+            List<Long> sorted = new ArrayList<>(latencies);
+            Collections.sort(sorted);
+            int index = (int) Math.ceil(percentile * sorted.size()) - 1;
+            return sorted.get(Math.max(index, 0)) / 1_000_000;
+        }
+
+        @Override
+        public String toString() {
+            double seconds = elapsedNanos / 1e9;
+            return String.format("%-8s total %6.2f s | %8.1f req/s | p50 %5d ms | p99 %5d ms",
+                    name, seconds, count / seconds, percentileMillis(0.5), percentileMillis(0.99));
+        }
+    }
+}
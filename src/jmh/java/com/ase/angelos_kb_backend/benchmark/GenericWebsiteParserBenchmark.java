@@ -0,0 +1,74 @@
+package com.ase.angelos_kb_backend.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.ase.angelos_kb_backend.util.GenericWebsiteParser;
+
+/**
+ * Throughput and allocations of extracting the text of saved tum.de pages, the pages of the db-init set that
+ * are not handled by CITParser, including parsing the HTML. legacy is the parser before the rewrite, which
+ * parsed pages with a search marker twice and rebuilt its lines on every text node, streaming is the current
+ * GenericWebsiteParser. Allocations per page are reported as gc.alloc.rate.norm.
+ *
+ * Run with: mvn -Pbenchmarks test-compile exec:exec -Dbenchmark=GenericWebsiteParserBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GenericWebsiteParserBenchmark {
+
+    @Param({"application-master", "dates-and-deadlines", "no-marker"})
+    public String page;
+
+    private String html;
+    private LegacyGenericWebsiteParser legacyParser;
+    private GenericWebsiteParser parser;
+
+    @Setup
+    public void setUp() throws IOException {
+        try (InputStream in = GenericWebsiteParserBenchmark.class.getResourceAsStream("/tum-pages/" + page + ".html")) {
+            html = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        legacyParser = new LegacyGenericWebsiteParser();
+        parser = new GenericWebsiteParser();
+    }
+
+    @Benchmark
+    public String legacy() {
+        return legacyParser.parseHtml(html);
+    }
+
+    @Benchmark
+    public String streaming() {
+        return parser.parseHtml(html);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(GenericWebsiteParserBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
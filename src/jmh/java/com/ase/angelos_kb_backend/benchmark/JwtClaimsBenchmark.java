@@ -0,0 +1,84 @@
+package com.ase.angelos_kb_backend.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.SecretKey;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.ase.angelos_kb_backend.util.JwtUtil;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+
+/**
+ * Cost of checking the chat token on every chat request.
+ * legacy builds a parser and verifies the token once per extracted claim, as JwtUtil did before,
+ * reusedParser verifies once with a shared parser, which is what the first use of a token costs now,
+ * and cached answers from the verified-claims cache.
+ *
+ * Run with: mvn -Pbenchmarks test-compile exec:exec -Dbenchmark=JwtClaimsBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtClaimsBenchmark {
+
+    private static final String SECRET = "benchmark-secret-benchmark-secret-benchmark-secret";
+
+    private SecretKey signingKey;
+    private JwtParser parser;
+    private JwtUtil jwtUtil;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        signingKey = Keys.hmacShaKeyFor(SECRET.getBytes());
+        parser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+        jwtUtil = new JwtUtil(SECRET, 10_000);
+        token = jwtUtil.generateChatToken("chatbot", "password");
+    }
+
+    @Benchmark
+    public void legacy(Blackhole blackhole) {
+        blackhole.consume(Jwts.parserBuilder().setSigningKey(signingKey).build().parseClaimsJws(token).getBody().getSubject());
+        blackhole.consume(Jwts.parserBuilder().setSigningKey(signingKey).build().parseClaimsJws(token).getBody().get("password", String.class));
+    }
+
+    @Benchmark
+    public void reusedParser(Blackhole blackhole) {
+        // The first use of a token: one verification with the shared parser
+        Claims claims = parser.parseClaimsJws(token).getBody();
+        blackhole.consume(claims.getSubject());
+        blackhole.consume(claims.get("password", String.class));
+    }
+
+    @Benchmark
+    public void cached(Blackhole blackhole) {
+        Claims claims = jwtUtil.extractClaims(token);
+        blackhole.consume(claims.getSubject());
+        blackhole.consume(claims.get("password", String.class));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(JwtClaimsBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,29 @@
+package com.ase.angelos_kb_backend.configuration;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.cache.CacheManagerCustomizer;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Bounds for caches that must not live as long as the defaults of the cache manager.
+ */
+@Configuration
+public class CacheConfig {
+
+    @Bean
+    public CacheManagerCustomizer<CaffeineCacheManager> userDetailsCacheCustomizer(
+            @Value("${app.security.user-details-cache.ttl-seconds:60}") long ttlSeconds,
+            @Value("${app.security.user-details-cache.max-size:10000}") long maxSize) {
+        // Short TTL as a safety net, UserService evicts the cache whenever it changes a user
+        return cacheManager -> cacheManager.registerCustomCache("userDetails", Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .maximumSize(maxSize)
+                .build());
+    }
+}
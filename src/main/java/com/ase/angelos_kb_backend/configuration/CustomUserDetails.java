@@ -7,24 +7,37 @@ import org.springframework.security.core.GrantedAuthority;
 import java.util.Collection;
 import java.util.Collections;
 
+/**
+ * Snapshot of a user. It does not hold on to the entity, so it can be cached.
+ */
 public class CustomUserDetails implements UserDetails {
 
-    private final User user;
+    private final String mail;
+    private final String password;
+    private final Long orgId;
+    private final boolean systemAdmin;
+    private final boolean admin;
+    private final boolean approved;
 
     public CustomUserDetails(User user) {
-        this.user = user;
+        this.mail = user.getMail();
+        this.password = user.getPassword();
+        this.orgId = user.getOrganisation().getOrgID();
+        this.systemAdmin = user.isSystemAdmin();
+        this.admin = user.isAdmin();
+        this.approved = user.isApproved();
     }
 
     public Long getOrgId() {
-        return user.getOrganisation().getOrgID();
+        return orgId;
     }
 
     public boolean isSystemAdmin() {
-        return user.isSystemAdmin();
+        return systemAdmin;
     }
 
     public boolean isAdmin() {
-        return user.isAdmin();
+        return admin;
     }
 
     @Override
@@ -35,12 +48,12 @@ public class CustomUserDetails implements UserDetails {
 
     @Override
     public String getPassword() {
-        return user.getPassword();
+        return password;
     }
 
     @Override
     public String getUsername() {
-        return user.getMail();
+        return mail;
     }
 
     @Override
@@ -60,6 +73,6 @@ public class CustomUserDetails implements UserDetails {
 
     @Override
     public boolean isEnabled() {
-        return user.isApproved(); // Or true if all users are enabled
+        return approved; // Or true if all users are enabled
     }
 }
@@ -2,6 +2,7 @@ package com.ase.angelos_kb_backend.configuration;
 
 import com.ase.angelos_kb_backend.model.User;
 import com.ase.angelos_kb_backend.repository.UserRepository;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.security.core.userdetails.*;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -16,8 +17,13 @@ public class CustomUserDetailsService implements UserDetailsService {
         this.userRepository = userRepository;
     }
 
+    /**
+     * Loads the user by mail. Results are cached briefly (see CacheConfig), UserService evicts the cache
+     * whenever it changes a user.
+     */
     @Override
     @Transactional
+    @Cacheable(value = "userDetails", key = "#email")
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
         User user = userRepository.findByMail(email)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + email));
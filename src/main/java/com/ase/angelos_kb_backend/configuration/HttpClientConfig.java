@@ -0,0 +1,80 @@
+package com.ase.angelos_kb_backend.configuration;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Outbound HTTP clients for Angelos and Eunomia.
+ * Every remote gets one shared JDK HttpClient, which keeps a pool of keep-alive connections, negotiates HTTP/2
+ * where the remote supports it and offers a non-blocking API. The RestTemplates are backed by the same clients.
+ * With spring.threads.virtual.enabled the clients dispatch on virtual threads, matching Tomcat and the task executor.
+ * The JDK reads the pool settings jdk.httpclient.keepalive.timeout and jdk.httpclient.connectionPoolSize once per JVM,
+ * so they are set at launch, see JAVA_TOOL_OPTIONS in the Dockerfile.
+ */
+@Configuration
+public class HttpClientConfig {
+
+    @Value("${http-client.http2-enabled:true}")
+    private boolean http2Enabled;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreadsEnabled;
+
+    @Value("${angelos.connect-timeout-ms:5000}")
+    private long angelosConnectTimeout;
+
+    @Value("${angelos.read-timeout-ms:90000}")
+    private long angelosReadTimeout;
+
+    @Value("${eunomia.connect-timeout-ms:5000}")
+    private long eunomiaConnectTimeout;
+
+    @Value("${eunomia.read-timeout-ms:15000}")
+    private long eunomiaReadTimeout;
+
+    @Bean
+    public HttpClient angelosHttpClient() {
+        return buildHttpClient(angelosConnectTimeout);
+    }
+
+    @Bean
+    public RestTemplate angelosRestTemplate(@Qualifier("angelosHttpClient") HttpClient angelosHttpClient) {
+        return buildRestTemplate(angelosHttpClient, angelosReadTimeout);
+    }
+
+    @Bean
+    public HttpClient eunomiaHttpClient() {
+        return buildHttpClient(eunomiaConnectTimeout);
+    }
+
+    @Bean
+    public RestTemplate eunomiaRestTemplate(@Qualifier("eunomiaHttpClient") HttpClient eunomiaHttpClient) {
+        return buildRestTemplate(eunomiaHttpClient, eunomiaReadTimeout);
+    }
+
+    private HttpClient buildHttpClient(long connectTimeout) {
+        HttpClient.Builder builder = HttpClient.newBuilder()
+                .version(http2Enabled ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(connectTimeout))
+                .followRedirects(HttpClient.Redirect.NORMAL);
+        if (virtualThreadsEnabled) {
+            // Response handling and async completions run on virtual threads instead of the default cached pool
+            builder.executor(Executors.newVirtualThreadPerTaskExecutor());
+        }
+        return builder.build();
+    }
+
+    private RestTemplate buildRestTemplate(HttpClient httpClient, long readTimeout) {
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(Duration.ofMillis(readTimeout));
+        return new RestTemplate(requestFactory);
+    }
+}
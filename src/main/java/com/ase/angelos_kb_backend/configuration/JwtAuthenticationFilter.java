@@ -1,6 +1,8 @@
 package com.ase.angelos_kb_backend.configuration;
 
 import com.ase.angelos_kb_backend.util.JwtUtil;
+
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -15,14 +17,23 @@ import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 
+/**
+ * Authenticates requests with a Bearer access token.
+ * The principal is the user loaded through the briefly cached UserDetailsService, keyed by the subject of the
+ * token, so removed, demoted or unapproved users lose access as soon as UserService evicts their entry.
+ * By default only access tokens authenticate, and their organisation and system admin claims must still match
+ * the user. With app.security.jwt-principal=database any verified token of an existing user does.
+ */
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtUtil jwtUtil;
     private final UserDetailsService userDetailsService;
+    private final boolean principalFromClaims;
 
-    public JwtAuthenticationFilter(JwtUtil jwtUtil, UserDetailsService userDetailsService) {
+    public JwtAuthenticationFilter(JwtUtil jwtUtil, UserDetailsService userDetailsService, boolean principalFromClaims) {
         this.jwtUtil = jwtUtil;
         this.userDetailsService = userDetailsService;
+        this.principalFromClaims = principalFromClaims;
     }
 
     @Override
@@ -31,18 +42,14 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                                     @NonNull FilterChain filterChain) throws ServletException, IOException {
         final String authHeader = request.getHeader("Authorization");
 
-        String email = null;
-        String jwt = null;
-
-        if (authHeader != null && authHeader.startsWith("Bearer ")) {
-            jwt = authHeader.substring(7);
-            email = jwtUtil.extractEmail(jwt);
-        }
+        if (authHeader != null && authHeader.startsWith("Bearer ") && SecurityContextHolder.getContext().getAuthentication() == null) {
+            String jwt = authHeader.substring(7);
+            // Verifies signature and expiry, once per token thanks to the claims cache
+            Claims claims = jwtUtil.extractClaims(jwt);
 
-        if (email != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(email);
+            UserDetails userDetails = principalFromClaims ? principalFromClaims(claims) : loadUser(claims.getSubject());
 
-            if (jwtUtil.validateToken(jwt, userDetails)) {
+            if (userDetails != null && userDetails.isEnabled() && claims.getSubject().equals(userDetails.getUsername())) {
                 UsernamePasswordAuthenticationToken authToken =
                         new UsernamePasswordAuthenticationToken(
                                 userDetails, null, userDetails.getAuthorities()
@@ -56,4 +63,28 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         filterChain.doFilter(request, response);
     }
-}
\ No newline at end of file
+
+    private UserDetails principalFromClaims(Claims claims) {
+        Long orgId = claims.get("orgId", Long.class);
+        Boolean systemAdmin = claims.get("isSystemAdmin", Boolean.class);
+        // Only access tokens carry the organisation, refresh and chat tokens do not authenticate here
+        if (orgId == null || systemAdmin == null) {
+            return null;
+        }
+        // A user moved to another organisation or demoted since the token was issued has to log in again
+        if (!(loadUser(claims.getSubject()) instanceof CustomUserDetails user)
+                || !orgId.equals(user.getOrgId()) || systemAdmin != user.isSystemAdmin()) {
+            return null;
+        }
+        return user;
+    }
+
+    private UserDetails loadUser(String mail) {
+        try {
+            return userDetailsService.loadUserByUsername(mail);
+        } catch (UsernameNotFoundException e) {
+            // The user was removed, the request stays unauthenticated
+            return null;
+        }
+    }
+}
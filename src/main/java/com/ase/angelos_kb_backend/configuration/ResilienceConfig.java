@@ -0,0 +1,56 @@
+package com.ase.angelos_kb_backend.configuration;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.ase.angelos_kb_backend.util.Bulkhead;
+import com.ase.angelos_kb_backend.util.CircuitBreaker;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Circuit breaker and bulkheads around Angelos.
+ * Chat traffic (chat, stream and mail ask) and knowledge sync traffic (add, edit, refresh, delete) get separate
+ * bulkheads, so a large ingestion batch cannot take the capacity needed to answer students.
+ */
+@Configuration
+public class ResilienceConfig {
+
+    @Bean
+    public CircuitBreaker angelosCircuitBreaker(@Value("${angelos.circuit-breaker.failure-threshold:5}") int failureThreshold,
+                                                @Value("${angelos.circuit-breaker.open-ms:30000}") long openMillis,
+                                                MeterRegistry meterRegistry) {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(failureThreshold, Duration.ofMillis(openMillis));
+        Gauge.builder("angelos.circuit.state", circuitBreaker, cb -> cb.getState().ordinal())
+                .description("0 = closed, 1 = open, 2 = half-open")
+                .register(meterRegistry);
+        return circuitBreaker;
+    }
+
+    @Bean
+    public Bulkhead angelosChatBulkhead(@Value("${angelos.bulkhead.chat.max-concurrent:64}") int maxConcurrent,
+                                        MeterRegistry meterRegistry) {
+        return registerMetrics(new Bulkhead(maxConcurrent), "chat", meterRegistry);
+    }
+
+    @Bean
+    public Bulkhead angelosSyncBulkhead(@Value("${angelos.bulkhead.sync.max-concurrent:8}") int maxConcurrent,
+                                        MeterRegistry meterRegistry) {
+        return registerMetrics(new Bulkhead(maxConcurrent), "sync", meterRegistry);
+    }
+
+    private Bulkhead registerMetrics(Bulkhead bulkhead, String pool, MeterRegistry meterRegistry) {
+        Gauge.builder("angelos.bulkhead.available", bulkhead, Bulkhead::getAvailable)
+                .tag("pool", pool)
+                .register(meterRegistry);
+        FunctionCounter.builder("angelos.bulkhead.rejections", bulkhead, Bulkhead::getRejected)
+                .tag("pool", pool)
+                .register(meterRegistry);
+        return bulkhead;
+    }
+}
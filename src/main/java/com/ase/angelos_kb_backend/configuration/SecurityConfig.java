@@ -30,6 +30,9 @@ public class SecurityConfig {
     @Value("${cors.kb-ui}")
     private String kbOrigin;
 
+    @Value("${app.security.jwt-principal:claims}")
+    private String jwtPrincipal;
+
     public SecurityConfig(CustomUserDetailsService userDetailsService, JwtUtil jwtUtil) {
         this.userDetailsService = userDetailsService;
         this.jwtUtil = jwtUtil;
@@ -53,6 +56,8 @@ public class SecurityConfig {
                     "/api/chat/login",
                     "/api/chat/study-programs/**",
                     "/api/chat/send",
+                    "/api/chat/stream",
+                    "/api/chat/session/**",
                     "/api/mail/ask",
                     "/v3/api-docs/**",
                     "/swagger-ui/**",
@@ -69,7 +74,7 @@ public class SecurityConfig {
                 .sessionCreationPolicy(SessionCreationPolicy.STATELESS)
             )
             .userDetailsService(userDetailsService)
-            .addFilterBefore(new JwtAuthenticationFilter(jwtUtil, userDetailsService), UsernamePasswordAuthenticationFilter.class);
+            .addFilterBefore(new JwtAuthenticationFilter(jwtUtil, userDetailsService, "claims".equals(jwtPrincipal)), UsernamePasswordAuthenticationFilter.class);
 
         return http.build();
     }
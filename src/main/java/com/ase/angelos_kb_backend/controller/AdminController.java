@@ -1,6 +1,7 @@
 package com.ase.angelos_kb_backend.controller;
 
 import java.io.IOException;
+import java.net.URI;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -14,21 +15,26 @@ import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
 import org.springframework.core.io.support.ResourcePatternResolver;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.ase.angelos_kb_backend.dto.DuplicateReportDTO;
+import com.ase.angelos_kb_backend.dto.InitDbJobPayload;
+import com.ase.angelos_kb_backend.dto.JobDTO;
 import com.ase.angelos_kb_backend.dto.SampleQuestionDTO;
 import com.ase.angelos_kb_backend.dto.StudyProgramDTO;
 import com.ase.angelos_kb_backend.dto.WebsiteRequestDTO;
 import com.ase.angelos_kb_backend.model.Organisation;
 import com.ase.angelos_kb_backend.model.StudyProgram;
+import com.ase.angelos_kb_backend.service.JobService;
+import com.ase.angelos_kb_backend.service.NearDuplicateService;
 import com.ase.angelos_kb_backend.service.OrganisationService;
-import com.ase.angelos_kb_backend.service.SampleQuestionService;
 import com.ase.angelos_kb_backend.service.StudyProgramService;
-import com.ase.angelos_kb_backend.service.WebsiteService;
+import com.ase.angelos_kb_backend.util.JobType;
 import com.ase.angelos_kb_backend.util.JwtUtil;
 import com.ase.angelos_kb_backend.util.SampleQuestionJson;
 import com.ase.angelos_kb_backend.util.WebsiteJson;
@@ -39,22 +45,26 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 public class AdminController {
 
     private final OrganisationService organisationService;
-    private final SampleQuestionService sampleQuestionService;
-    private final WebsiteService websiteService;
+    private final JobService jobService;
     private final StudyProgramService studyProgramService;
+    private final NearDuplicateService nearDuplicateService;
     private final JwtUtil jwtUtil;
 
-    public AdminController(OrganisationService organisationService, SampleQuestionService sampleQuestionService, JwtUtil jwtUtil, 
-            WebsiteService websiteService, StudyProgramService studyProgramService) {
+    public AdminController(OrganisationService organisationService, JobService jobService, JwtUtil jwtUtil,
+            StudyProgramService studyProgramService, NearDuplicateService nearDuplicateService) {
         this.organisationService = organisationService;
         this.jwtUtil = jwtUtil;
         this.studyProgramService = studyProgramService;
-        this.sampleQuestionService = sampleQuestionService;
-        this.websiteService = websiteService;
+        this.nearDuplicateService = nearDuplicateService;
+        this.jobService = jobService;
     }
 
+    /**
+     * Queue the import of the initial websites and sample questions of an organisation.
+     * The import runs as a job, its progress is available at the returned location.
+     */
     @PostMapping("/init-db")
-    public ResponseEntity<Void> initDatabaseForOrg(
+    public ResponseEntity<JobDTO> initDatabaseForOrg(
             @RequestHeader("Authorization") String token,
             @RequestParam Long orgId,
             @RequestParam boolean isCITAdvising) {
@@ -82,16 +92,10 @@ public class AdminController {
             List<WebsiteRequestDTO> websiteRequestDTOs = loadWebsitesFromResources(orgId, isCITAdvising);
             System.out.println(websiteRequestDTOs.size() + " websites objects parsed.");
 
-            // Save to DB and push to RAG
-            if (!websiteRequestDTOs.isEmpty()) {
-                websiteService.addWebsitesInBatch(orgId, websiteRequestDTOs);
-            }
+            // Save to DB and push to RAG in the background
+            JobDTO job = jobService.enqueue(JobType.INIT_DB, orgId, new InitDbJobPayload(websiteRequestDTOs, sampleQuestionDTOs));
 
-            if (!sampleQuestionDTOs.isEmpty()) {
-                sampleQuestionService.addSampleQuestions(orgId, sampleQuestionDTOs);
-            }
-
-            return ResponseEntity.ok().build();
+            return ResponseEntity.accepted().location(URI.create("/api/jobs/" + job.getId())).body(job);
 
         } catch (Exception e) {
             e.printStackTrace();
@@ -99,6 +103,45 @@ public class AdminController {
         }
     }
 
+    /**
+     * Queue the reconciliation of the database with the RAG, for one organisation or for all if none is given.
+     * The reconciliation runs as a job, its progress is available at the returned location.
+     */
+    @PostMapping("/reconcile")
+    public ResponseEntity<JobDTO> reconcile(
+            @RequestHeader("Authorization") String token,
+            @RequestParam(required = false) Long orgId) {
+
+        // Ensure system admin privilege
+        if (!jwtUtil.extractIsSystemAdmin(token.replace("Bearer ", ""))) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        if (orgId != null) {
+            organisationService.getOrganisationById(orgId);
+        }
+
+        JobDTO job = jobService.enqueue(JobType.RECONCILE, orgId, null);
+        return ResponseEntity.accepted().location(URI.create("/api/jobs/" + job.getId())).body(job);
+    }
+
+    /**
+     * Websites and documents sharing near-duplicate sections with other sources, for one organisation or for all
+     * if none is given.
+     */
+    @GetMapping("/duplicates")
+    public ResponseEntity<List<DuplicateReportDTO>> getDuplicates(
+            @RequestHeader("Authorization") String token,
+            @RequestParam(required = false) Long orgId,
+            @RequestParam(defaultValue = "100") int limit) {
+
+        // Ensure system admin privilege
+        if (!jwtUtil.extractIsSystemAdmin(token.replace("Bearer ", ""))) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        return ResponseEntity.ok(nearDuplicateService.report(orgId, limit));
+    }
+
     private List<SampleQuestionDTO> loadSampleQuestionsFromResources(Long orgId) throws IOException {
         List<SampleQuestionDTO> result = new ArrayList<>();
         ResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
@@ -10,23 +10,39 @@ import com.ase.angelos_kb_backend.dto.angelos.AngelosChatMessage;
 import com.ase.angelos_kb_backend.dto.angelos.AngelosChatRequest;
 import com.ase.angelos_kb_backend.dto.angelos.AngelosChatResponse;
 import com.ase.angelos_kb_backend.service.AngelosService;
+import com.ase.angelos_kb_backend.service.ChatAnswerCache;
+import com.ase.angelos_kb_backend.service.ChatSessionService;
 import com.ase.angelos_kb_backend.service.OrganisationService;
+import com.ase.angelos_kb_backend.service.RateLimitService;
 import com.ase.angelos_kb_backend.service.StudyProgramService;
+import com.ase.angelos_kb_backend.util.CircuitBreaker;
 import com.ase.angelos_kb_backend.util.JwtUtil;
 
-import java.util.ArrayList;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+import io.jsonwebtoken.Claims;
+
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import jakarta.servlet.http.HttpServletRequest;
 
 
 
@@ -36,8 +52,12 @@ public class ChatController {
 
     private final JwtUtil jwtUtil;
     private final AngelosService angelosService;
+    private final ChatAnswerCache chatAnswerCache;
+    private final ChatSessionService chatSessionService;
     private final StudyProgramService studyProgramService;
     private final OrganisationService organisationService;
+    private final RateLimitService rateLimitService;
+    private final AsyncTaskExecutor taskExecutor;
 
     @Value("${angelos.username}")
     private String angelosUsername;
@@ -48,42 +68,173 @@ public class ChatController {
     @Value("${app.max-message-length}")
     private int maxMessageLength;
 
-    public ChatController(JwtUtil jwtUtil, AngelosService angelosService, StudyProgramService studyProgramService, OrganisationService organisationService) {
+    @Value("${app.chat.stream-timeout-ms:120000}")
+    private long streamTimeout;
+
+    public ChatController(JwtUtil jwtUtil, AngelosService angelosService, ChatAnswerCache chatAnswerCache, ChatSessionService chatSessionService,
+            StudyProgramService studyProgramService, OrganisationService organisationService, RateLimitService rateLimitService,
+            @Qualifier("applicationTaskExecutor") AsyncTaskExecutor taskExecutor) {
         this.jwtUtil = jwtUtil;
         this.angelosService = angelosService;
+        this.chatAnswerCache = chatAnswerCache;
+        this.chatSessionService = chatSessionService;
         this.studyProgramService = studyProgramService;
         this.organisationService = organisationService;
+        this.rateLimitService = rateLimitService;
+        this.taskExecutor = taskExecutor;
     }
 
     /**
-     * Route chat requests
-     * TODO: Add rate limiting, storing session history...
+     * Route chat requests.
+     * The request thread is released while Angelos generates the answer.
+     * Repeated questions are answered from the answer cache.
+     * With a sessionId the client only sends its new message, the history is kept on the server.
+     * Sessions are started with newSession, the id is returned with the first answer.
      */
     @PostMapping("/send")
-    public ResponseEntity<AngelosChatResponse> chat(@RequestHeader("ChatAuth") String token, 
+    public CompletableFuture<ResponseEntity<AngelosChatResponse>> chat(@RequestHeader("ChatAuth") String token, 
             @RequestBody AngelosChatRequest request,
-            @RequestParam(defaultValue = "false") boolean filterByOrg) {
-        token = token.replace("Bearer ", "");
-        if (jwtUtil.extractEmail(token).equals(angelosUsername) && jwtUtil.extractChatPassword(token).equals(angelosPassword)) {
-            Long orgId = request.getOrgId();
-            if (orgId != null && ! this.organisationService.isResponseActive(orgId)) {
-                return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
-            }
-            
-            // Validate messages and last message length
-            if (request.getMessages() == null || request.getMessages().isEmpty()) {
-                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "No messages have been provided.");
+            @RequestParam(defaultValue = "false") boolean filterByOrg,
+            HttpServletRequest servletRequest) {
+        validateChatRequest(token, request, servletRequest);
+        startSessionIfRequested(request);
+        AngelosChatRequest forwarded = chatSessionService.prepare(request);
+        return this.chatAnswerCache.get(forwarded, filterByOrg, () -> this.angelosService.sendChatMessage(forwarded, filterByOrg))
+                .thenApply(response -> {
+                    if (request.getSessionId() == null) {
+                        return ResponseEntity.ok(response);
+                    }
+                    // Cached responses are shared, so the session id goes into a copy
+                    chatSessionService.record(request, response.getAnswer());
+                    return ResponseEntity.ok(AngelosChatResponse.builder()
+                            .answer(response.getAnswer())
+                            .sessionId(request.getSessionId())
+                            .build());
+                });
+    }
+
+    /**
+     * Route chat requests and stream the answer back token by token via Server-Sent Events.
+     * Each token is sent as a "token" event, the end of the answer is signalled by a "done" event.
+     * A session started with newSession is announced with a "session" event before the first token.
+     * If the client disconnects, the upstream request to Angelos is cancelled.
+     * The chat permit is taken before the stream starts, so a full bulkhead or an open circuit is answered with
+     * 503 instead of an event, and returned once the stream ends.
+     */
+    @PostMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChat(@RequestHeader("ChatAuth") String token,
+            @RequestBody AngelosChatRequest request,
+            @RequestParam(defaultValue = "false") boolean filterByOrg,
+            HttpServletRequest servletRequest) {
+        validateChatRequest(token, request, servletRequest);
+        boolean started = startSessionIfRequested(request);
+        AngelosChatRequest forwarded = chatSessionService.prepare(request);
+        CircuitBreaker.Permission permission = angelosService.acquireChatPermission();
+
+        SseEmitter emitter = new SseEmitter(streamTimeout);
+        AtomicBoolean cancelled = new AtomicBoolean(false);
+        emitter.onCompletion(() -> cancelled.set(true));
+        emitter.onTimeout(() -> cancelled.set(true));
+        emitter.onError(e -> cancelled.set(true));
+
+        try {
+            if (started) {
+                // Held back by the emitter until the response starts
+                emitter.send(SseEmitter.event().name("session").data(request.getSessionId()));
             }
+            taskExecutor.execute(() -> stream(request, forwarded, filterByOrg, emitter, cancelled, permission));
+        } catch (IOException e) {
+            angelosService.releaseChatPermission(permission);
+            throw new UncheckedIOException(e);
+        } catch (RuntimeException e) {
+            angelosService.releaseChatPermission(permission);
+            throw e;
+        }
+        return emitter;
+    }
 
-            AngelosChatMessage lastMessage = request.getMessages().get(request.getMessages().size() - 1);
-            if (lastMessage != null && lastMessage.getMessage().length() > maxMessageLength) {
-                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, 
-                        "Message length exceeds the allowed limit of " + maxMessageLength + " characters.");
+    // Runs on the task executor, the stream returns the chat permit when it ends
+    private void stream(AngelosChatRequest request, AngelosChatRequest forwarded, boolean filterByOrg,
+                        SseEmitter emitter, AtomicBoolean cancelled, CircuitBreaker.Permission permission) {
+        try {
+            // send blocks while the client is slow, which in turn pauses reading from Angelos
+            StringBuilder answer = new StringBuilder();
+            angelosService.streamChatMessage(forwarded, filterByOrg, chunk -> {
+                answer.append(chunk);
+                try {
+                    emitter.send(SseEmitter.event().name("token").data(chunk));
+                } catch (IOException e) {
+                    cancelled.set(true);
+                    throw new UncheckedIOException(e);
+                }
+            }, cancelled::get, permission);
+
+            if (!cancelled.get()) {
+                chatSessionService.record(request, answer.toString());
+                emitter.send(SseEmitter.event().name("done").data(""));
+                emitter.complete();
+            }
+        } catch (Exception e) {
+            if (!cancelled.get()) {
+                try {
+                    emitter.send(SseEmitter.event().name("error").data("Failed to stream answer from Angelos."));
+                    emitter.complete();
+                } catch (Exception ignored) {
+                    emitter.completeWithError(e);
+                }
             }
-            
-            return ResponseEntity.ok(this.angelosService.sendChatMessage(request, filterByOrg));
-        } else {
-            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+    }
+
+    /**
+     * Deletes the server-side history of a chat session.
+     */
+    @DeleteMapping("/session/{sessionId}")
+    public ResponseEntity<Void> deleteSession(@RequestHeader("ChatAuth") String token, @PathVariable String sessionId) {
+        validateChatToken(token);
+        chatSessionService.delete(sessionId);
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Validates chat token, organisation status, message length and rate limit of a chat request.
+     */
+    private void validateChatRequest(String token, AngelosChatRequest request, HttpServletRequest servletRequest) {
+        validateChatToken(token);
+
+        Long orgId = request.getOrgId();
+        if (orgId != null && ! this.organisationService.isResponseActive(orgId)) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN);
+        }
+
+        // Validate messages and last message length
+        if (request.getMessages() == null || request.getMessages().isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "No messages have been provided.");
+        }
+
+        AngelosChatMessage lastMessage = request.getMessages().get(request.getMessages().size() - 1);
+        if (lastMessage != null && lastMessage.getMessage().length() > maxMessageLength) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, 
+                    "Message length exceeds the allowed limit of " + maxMessageLength + " characters.");
+        }
+
+        rateLimitService.checkLimit(orgId, servletRequest.getRemoteAddr());
+    }
+
+    // Session ids are only issued by the server, a request without one may ask for a new session
+    private boolean startSessionIfRequested(AngelosChatRequest request) {
+        if (!request.isNewSession() || request.getSessionId() != null) {
+            return false;
+        }
+        request.setSessionId(chatSessionService.start());
+        return true;
+    }
+
+    private void validateChatToken(String token) {
+        // One lookup for both claims, the signature is only verified on the first use of the token
+        Claims claims = jwtUtil.extractClaims(token.replace("Bearer ", ""));
+        if (!(angelosUsername.equals(claims.getSubject()) && angelosPassword.equals(claims.get("password", String.class)))) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN);
         }
     }
 
@@ -107,18 +258,14 @@ public class ChatController {
     public ResponseEntity<List<StudyProgramDTO>> getMethodName(@RequestHeader("ChatAuth") String token, 
             @PathVariable Long orgId, 
             @RequestParam(defaultValue = "false") boolean filterByOrg) {
-        token = token.replace("Bearer ", "");
-        List<StudyProgramDTO> studyPrograms = new ArrayList<>();
-        if (jwtUtil.extractEmail(token).equals(angelosUsername) && jwtUtil.extractChatPassword(token).equals(angelosPassword)) {
-            if (filterByOrg) {
-                studyPrograms = studyProgramService.getAllStudyProgramsByOrgId(orgId);
-            } else {
-                studyPrograms = studyProgramService.getAllStudyPrograms();
-            }
-            return ResponseEntity.ok(studyPrograms);
+        validateChatToken(token);
+        List<StudyProgramDTO> studyPrograms;
+        if (filterByOrg) {
+            studyPrograms = studyProgramService.getAllStudyProgramsByOrgId(orgId);
         } else {
-            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+            studyPrograms = studyProgramService.getAllStudyPrograms();
         }
+        return ResponseEntity.ok(studyPrograms);
     }
     
 }
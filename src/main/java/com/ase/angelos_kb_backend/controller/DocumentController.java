@@ -18,6 +18,7 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RequestPart;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
@@ -25,10 +26,12 @@ import org.springframework.web.multipart.MultipartFile;
 import com.ase.angelos_kb_backend.dto.DocumentDataDTO;
 import com.ase.angelos_kb_backend.dto.DocumentRequestDTO;
 import com.ase.angelos_kb_backend.dto.DocumentUploadRequestDTO;
+import com.ase.angelos_kb_backend.dto.PageDTO;
 import com.ase.angelos_kb_backend.model.DocumentContent;
 import com.ase.angelos_kb_backend.service.DocumentService;
 import com.ase.angelos_kb_backend.service.FileStorageService;
 import com.ase.angelos_kb_backend.util.JwtUtil;
+import com.ase.angelos_kb_backend.util.ListingQuery;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -61,6 +64,24 @@ public class DocumentController {
         return ResponseEntity.ok(documents);
     }
 
+    /**
+     * Get a page of the documents of the organisation, optionally filtered by title or file name and study
+     * program and sorted by name (title) or updated (most recent first).
+     * Pass the nextCursor of a page as cursor to get the following one.
+     */
+    @GetMapping("/page")
+    public ResponseEntity<PageDTO<DocumentDataDTO>> getDocumentsPage(
+            @RequestHeader("Authorization") String token,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit,
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) Long studyProgramId,
+            @RequestParam(required = false) String sort) {
+        Long orgId = jwtUtil.extractOrgId(token.replace("Bearer ", ""));
+        ListingQuery query = ListingQuery.of(cursor, limit, search, studyProgramId, sort);
+        return ResponseEntity.ok(documentService.getDocumentsPage(orgId, query));
+    }
+
     /**
      * Edit a document's title and study programs.
      */
@@ -0,0 +1,47 @@
+package com.ase.angelos_kb_backend.controller;
+
+import java.util.UUID;
+
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.ase.angelos_kb_backend.dto.JobDTO;
+import com.ase.angelos_kb_backend.service.JobService;
+import com.ase.angelos_kb_backend.util.JwtUtil;
+
+@RestController
+@RequestMapping("/api/jobs")
+public class JobController {
+
+    private final JobService jobService;
+    private final JwtUtil jwtUtil;
+
+    public JobController(JobService jobService, JwtUtil jwtUtil) {
+        this.jobService = jobService;
+        this.jwtUtil = jwtUtil;
+    }
+
+    /**
+     * Get the status and progress of a job.
+     */
+    @GetMapping("/{jobId}")
+    public ResponseEntity<JobDTO> getJob(@RequestHeader("Authorization") String token, @PathVariable UUID jobId) {
+        String jwt = token.replace("Bearer ", "");
+        return ResponseEntity.ok(jobService.getJob(jobId, jwtUtil.extractOrgId(jwt), jwtUtil.extractIsSystemAdmin(jwt)));
+    }
+
+    /**
+     * Stream the progress of a job as server-sent events until it is finished.
+     */
+    @GetMapping(value = "/{jobId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamJob(@RequestHeader("Authorization") String token, @PathVariable UUID jobId) {
+        String jwt = token.replace("Bearer ", "");
+        return jobService.subscribe(jobId, jwtUtil.extractOrgId(jwt), jwtUtil.extractIsSystemAdmin(jwt));
+    }
+}
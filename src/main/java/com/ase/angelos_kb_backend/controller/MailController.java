@@ -1,6 +1,7 @@
 package com.ase.angelos_kb_backend.controller;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
@@ -23,11 +24,13 @@ import com.ase.angelos_kb_backend.dto.eunomia.MailThreadRequestDTO;
 import com.ase.angelos_kb_backend.service.AngelosService;
 import com.ase.angelos_kb_backend.service.EunomiaService;
 import com.ase.angelos_kb_backend.service.OrganisationService;
+import com.ase.angelos_kb_backend.service.RateLimitService;
 import com.ase.angelos_kb_backend.service.StudyProgramService;
 import com.ase.angelos_kb_backend.util.JwtUtil;
 import com.ase.angelos_kb_backend.util.MailStatus;
 
 
+
 @RestController
 @RequestMapping("/api/mail")
 public class MailController {
@@ -37,16 +40,19 @@ public class MailController {
     private final JwtUtil jwtUtil;
     private final EunomiaService eunomiaService;
     private final AngelosService angelosService;
+    private final RateLimitService rateLimitService;
 
     @Value("${app.max-message-length}")
     private int maxMessageLength;
 
-    public MailController(OrganisationService organisationService, StudyProgramService studyProgramService, JwtUtil jwtUtil, EunomiaService eunomiaService, AngelosService angelosService) {
+    public MailController(OrganisationService organisationService, StudyProgramService studyProgramService, JwtUtil jwtUtil, EunomiaService eunomiaService, AngelosService angelosService,
+            RateLimitService rateLimitService) {
         this.jwtUtil = jwtUtil;
         this.organisationService = organisationService;
         this.studyProgramService = studyProgramService;
         this.eunomiaService = eunomiaService;
         this.angelosService = angelosService;
+        this.rateLimitService = rateLimitService;
     }
 
 
@@ -133,7 +139,7 @@ public class MailController {
      * Forwards "ask" requests from the mail pipeline to the Angelos RAG, 
      */
     @PostMapping("/ask")
-    public ResponseEntity<AngelosChatResponse> ask(
+    public CompletableFuture<ResponseEntity<AngelosChatResponse>> ask(
             @RequestHeader("x-api-key") String apiKey,
             @RequestBody MailResponseRequestDTO request) {
 
@@ -144,12 +150,13 @@ public class MailController {
                     "Message length exceeds the allowed limit of " + maxMessageLength + " characters."
                 );
             }
+            // All mail requests come from the Eunomia server, so they are limited by API key and organisation
+            rateLimitService.checkMailLimit(request.getOrg_id(), apiKey);
             // Forward to Angelos
-            AngelosChatResponse ragResponse = angelosService.sendAskRequest(request);
-            return ResponseEntity.ok(ragResponse);
+            return angelosService.sendAskRequest(request).thenApply(ResponseEntity::ok);
         } else {
-            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.FORBIDDEN).build());
         }
     }
 
-}
+}
\ No newline at end of file
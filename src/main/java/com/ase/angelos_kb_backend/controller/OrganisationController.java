@@ -2,6 +2,7 @@ package com.ase.angelos_kb_backend.controller;
 
 import com.ase.angelos_kb_backend.dto.OrganisationDTO;
 import com.ase.angelos_kb_backend.service.OrganisationService;
+import com.ase.angelos_kb_backend.service.RateLimitService;
 import com.ase.angelos_kb_backend.util.JwtUtil;
 
 import java.util.List;
@@ -16,10 +17,12 @@ import org.springframework.web.bind.annotation.*;
 public class OrganisationController {
 
     private final OrganisationService organisationService;
+    private final RateLimitService rateLimitService;
     private final JwtUtil jwtUtil;
 
-    public OrganisationController(OrganisationService organisationService, JwtUtil jwtUtil) {
+    public OrganisationController(OrganisationService organisationService, RateLimitService rateLimitService, JwtUtil jwtUtil) {
         this.organisationService = organisationService;
+        this.rateLimitService = rateLimitService;
         this.jwtUtil = jwtUtil;
     }
 
@@ -104,6 +107,26 @@ public class OrganisationController {
         return ResponseEntity.ok(updatedOrg);
     }
 
+    /**
+     * Set the chat and mail rate limit of an organisation. Only accessible by system admin.
+     * Without requestsPerMinute the default limit applies again.
+     */
+    @PutMapping("/{orgId}/rateLimit")
+    public ResponseEntity<OrganisationDTO> setRateLimit(
+            @RequestHeader("Authorization") String token,
+            @PathVariable Long orgId,
+            @RequestParam(required = false) Integer requestsPerMinute) {
+        if (!jwtUtil.extractIsSystemAdmin(token.replace("Bearer ", ""))) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        OrganisationDTO updatedOrg = organisationService.setChatRequestsPerMinute(orgId, requestsPerMinute);
+        if (updatedOrg == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+        rateLimitService.resetOrg(orgId);
+        return ResponseEntity.ok(updatedOrg);
+    }
+
     @PutMapping("/mailActive")
     public ResponseEntity<OrganisationDTO> setMailStatus(
             @RequestHeader("Authorization") String token,
@@ -13,11 +13,14 @@ import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.ase.angelos_kb_backend.dto.PageDTO;
 import com.ase.angelos_kb_backend.dto.SampleQuestionDTO;
 import com.ase.angelos_kb_backend.service.SampleQuestionService;
 import com.ase.angelos_kb_backend.util.JwtUtil;
+import com.ase.angelos_kb_backend.util.ListingQuery;
 
 import jakarta.validation.Valid;
 
@@ -43,6 +46,24 @@ public class SampleQuestionController {
         return ResponseEntity.ok(sampleQuestions);
     }
 
+    /**
+     * Get a page of the sample questions of the organisation, optionally filtered by topic or question and
+     * study program and sorted by name (topic) or updated (most recent first).
+     * Pass the nextCursor of a page as cursor to get the following one.
+     */
+    @GetMapping("/page")
+    public ResponseEntity<PageDTO<SampleQuestionDTO>> getSampleQuestionsPage(
+            @RequestHeader("Authorization") String token,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit,
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) Long studyProgramId,
+            @RequestParam(required = false) String sort) {
+        Long orgId = jwtUtil.extractOrgId(token.replace("Bearer ", ""));
+        ListingQuery query = ListingQuery.of(cursor, limit, search, studyProgramId, sort);
+        return ResponseEntity.ok(sampleQuestionService.getSampleQuestionsPage(orgId, query));
+    }
+
     /**
      * Add a new sample question.
      */
@@ -24,6 +24,7 @@ import org.springframework.web.bind.annotation.RestController;
 
 import com.ase.angelos_kb_backend.configuration.CustomUserDetails;
 import com.ase.angelos_kb_backend.dto.LoginRequestDTO;
+import com.ase.angelos_kb_backend.dto.PageDTO;
 import com.ase.angelos_kb_backend.dto.RegisterRequestDTO;
 import com.ase.angelos_kb_backend.dto.UserDTO;
 import com.ase.angelos_kb_backend.dto.UserDetailsDTO;
@@ -31,6 +32,7 @@ import com.ase.angelos_kb_backend.exception.UnauthorizedException;
 import com.ase.angelos_kb_backend.service.AuthenticationService;
 import com.ase.angelos_kb_backend.service.UserService;
 import com.ase.angelos_kb_backend.util.JwtUtil;
+import com.ase.angelos_kb_backend.util.ListingQuery;
 
 @RestController
 @RequestMapping("/api/users")
@@ -59,6 +61,23 @@ public class UserController {
         return ResponseEntity.ok(users);
     }
 
+    /**
+     * Get a page of the users of the organisation, of all users for the System Organisation, optionally
+     * filtered by mail and sorted by name (mail).
+     * Pass the nextCursor of a page as cursor to get the following one.
+     */
+    @GetMapping("/page")
+    public ResponseEntity<PageDTO<UserDTO>> getUsersPage(
+            @RequestHeader("Authorization") String token,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit,
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) String sort) {
+        Long orgId = jwtUtil.extractOrgId(token.replace("Bearer ", ""));
+        ListingQuery query = ListingQuery.of(cursor, limit, search, null, sort);
+        return ResponseEntity.ok(userService.getUsersPage(orgId, query));
+    }
+
     @GetMapping("/me")
     public ResponseEntity<UserDetailsDTO> getCurrentUser(@RequestHeader("Authorization") String token) {
         String email = jwtUtil.extractEmail(token.replace("Bearer ", ""));
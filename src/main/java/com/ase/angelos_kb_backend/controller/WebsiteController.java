@@ -1,9 +1,11 @@
 package com.ase.angelos_kb_backend.controller;
 
+import com.ase.angelos_kb_backend.dto.PageDTO;
 import com.ase.angelos_kb_backend.dto.WebsiteRequestDTO;
 import com.ase.angelos_kb_backend.dto.WebsiteResponseDTO;
 import com.ase.angelos_kb_backend.service.WebsiteService;
 import com.ase.angelos_kb_backend.util.JwtUtil;
+import com.ase.angelos_kb_backend.util.ListingQuery;
 
 import jakarta.validation.Valid;
 
@@ -34,6 +36,24 @@ public class WebsiteController {
         return ResponseEntity.ok(websites);
     }
 
+    /**
+     * Get a page of the websites of the organisation, optionally filtered by title or link and study program
+     * and sorted by name (title) or updated (most recent first).
+     * Pass the nextCursor of a page as cursor to get the following one.
+     */
+    @GetMapping("/page")
+    public ResponseEntity<PageDTO<WebsiteResponseDTO>> getWebsitesPage(
+            @RequestHeader("Authorization") String token,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit,
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) Long studyProgramId,
+            @RequestParam(required = false) String sort) {
+        Long orgId = jwtUtil.extractOrgId(token.replace("Bearer ", ""));
+        ListingQuery query = ListingQuery.of(cursor, limit, search, studyProgramId, sort);
+        return ResponseEntity.ok(websiteService.getWebsitesPage(orgId, query));
+    }
+
     /**
      * Add a new website.
      * - Add request to Angelos.
@@ -0,0 +1,27 @@
+package com.ase.angelos_kb_backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@ToString
+public class DuplicateReportDTO {
+    private String sourceId;
+    private String sourceTitle;
+    private String sourceLink;
+    private String duplicateOfId;
+    private String duplicateOfTitle;
+    private String duplicateOfLink;
+    private Long orgId;
+    private int sections;
+    private int sharedSections;
+    private boolean nearDuplicatePage;
+}
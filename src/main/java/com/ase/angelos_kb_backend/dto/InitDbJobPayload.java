@@ -0,0 +1,21 @@
+package com.ase.angelos_kb_backend.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@ToString
+public class InitDbJobPayload {
+    private List<WebsiteRequestDTO> websites;
+    private List<SampleQuestionDTO> sampleQuestions;
+}
@@ -0,0 +1,33 @@
+package com.ase.angelos_kb_backend.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import com.ase.angelos_kb_backend.util.JobStatus;
+import com.ase.angelos_kb_backend.util.JobType;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@ToString
+public class JobDTO {
+    private String id;
+    private JobType type;
+    private JobStatus status;
+    private int totalItems;
+    private int processedItems;
+    private int failedItems;
+    private List<String> errors;
+    private LocalDateTime createdAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+}
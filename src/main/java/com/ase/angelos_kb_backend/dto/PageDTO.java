@@ -0,0 +1,35 @@
+package com.ase.angelos_kb_backend.dto;
+
+import java.util.List;
+import java.util.function.Function;
+
+import com.ase.angelos_kb_backend.util.PageCursor;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * A page of a listing with the cursor of the next page, which is null on the last page.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+public class PageDTO<T> {
+    private List<T> items;
+    private String nextCursor;
+
+    /**
+     * Builds a page from rows queried with one row more than the limit, the extra row only tells that there is a next page.
+     */
+    public static <R, T> PageDTO<T> of(List<R> rows, int limit, Function<R, PageCursor> cursorOf, Function<List<R>, List<T>> convert) {
+        boolean more = rows.size() > limit;
+        List<R> page = more ? rows.subList(0, limit) : rows;
+        String nextCursor = more ? cursorOf.apply(page.get(page.size() - 1)).encode() : null;
+        return new PageDTO<>(convert.apply(page), nextCursor);
+    }
+}
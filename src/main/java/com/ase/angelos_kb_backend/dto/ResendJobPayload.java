@@ -0,0 +1,22 @@
+package com.ase.angelos_kb_backend.dto;
+
+import java.util.List;
+import java.util.UUID;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@ToString
+public class ResendJobPayload {
+    // Websites and documents, in any mix
+    private List<UUID> sourceIds;
+}
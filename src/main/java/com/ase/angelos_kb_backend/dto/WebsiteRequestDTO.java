@@ -19,4 +19,5 @@ public class WebsiteRequestDTO {
     private String title;
     private String link;
     private List<Long> studyProgramIds;
+    private Integer refreshIntervalMinutes;
 }
@@ -21,4 +21,5 @@ public class WebsiteResponseDTO {
     private String link;
     private LocalDateTime lastUpdated;
     private List<StudyProgramDTO> studyPrograms;
+    private Integer refreshIntervalMinutes;
 }
@@ -2,6 +2,8 @@ package com.ase.angelos_kb_backend.dto.angelos;
 
 import java.util.List;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
+
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -15,5 +17,13 @@ public class AngelosChatRequest {
     List<AngelosChatMessage> messages;
     String study_program;
     Long orgId;
+
+    // Only read from clients, the history of the session is resolved before the request is forwarded to Angelos.
+    // Session ids are issued by the server, clients ask for one with newSession.
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
+    String sessionId;
+
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
+    boolean newSession;
 }
 
@@ -1,5 +1,7 @@
 package com.ase.angelos_kb_backend.dto.angelos;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -11,4 +13,7 @@ import lombok.NoArgsConstructor;
 @Builder
 public class AngelosChatResponse {
     String answer;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    String sessionId;
 }
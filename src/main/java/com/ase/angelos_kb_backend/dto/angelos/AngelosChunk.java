@@ -0,0 +1,20 @@
+package com.ase.angelos_kb_backend.dto.angelos;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class AngelosChunk {
+    private String hash;
+    private int position;
+    // Only sent for added chunks
+    private String content;
+}
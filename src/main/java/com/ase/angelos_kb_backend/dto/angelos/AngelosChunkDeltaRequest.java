@@ -0,0 +1,18 @@
+package com.ase.angelos_kb_backend.dto.angelos;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AngelosChunkDeltaRequest {
+    private List<AngelosChunk> added;
+    private List<String> removed;
+    private List<AngelosChunk> unchanged;
+}
@@ -0,0 +1,32 @@
+package com.ase.angelos_kb_backend.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+@Entity
+@Data
+@Table(name = "chat_sessions")
+public class ChatSession {
+
+    @Id
+    private String sessionId;
+
+    // Message history as JSON array
+    @Column(columnDefinition = "TEXT", nullable = false)
+    private String messages;
+
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+}
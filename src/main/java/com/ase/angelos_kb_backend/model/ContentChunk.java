@@ -0,0 +1,43 @@
+package com.ase.angelos_kb_backend.model;
+
+import java.util.UUID;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+/**
+ * Hash of a chunk of a website or document as last sent to Angelos, with the SimHash of its text for finding
+ * near duplicates in other sources. Chunks are stored when the content is queued in the outbox and dropped
+ * again if its delivery fails for good. Chunks left out as duplicates of another source are kept as well, so they
+ * can be sent once that source no longer has them.
+ */
+@Entity
+@Data
+@Table(name = "content_chunks", indexes = @Index(name = "idx_content_chunks_source", columnList = "sourceId"))
+public class ContentChunk {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private UUID sourceId;
+
+    private int position;
+
+    @Column(nullable = false)
+    private String hash;
+
+    // Null for chunks too short to fingerprint
+    private Long simhash;
+
+    // Not sent to Angelos, another source of the organisation has a near duplicate; the position is the one in the parsed content
+    @Column(nullable = false, columnDefinition = "boolean default false")
+    private boolean suppressed;
+}
@@ -4,22 +4,27 @@ import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
 
+import org.hibernate.annotations.BatchSize;
+
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.JoinTable;
 import jakarta.persistence.ManyToMany;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.PreUpdate;
+import jakarta.persistence.Table;
 import jakarta.validation.constraints.NotNull;
 import lombok.Data;
 import lombok.ToString;
 
 @Entity
 @Data
+@Table(indexes = @Index(name = "idx_document_org_updated", columnList = "org_id, updatedAt, docID"))
 public class DocumentContent {
 
     @Id
@@ -41,6 +46,8 @@ public class DocumentContent {
     @ToString.Exclude
     private Organisation organisation;
 
+    // Listings of whole organisations read the study programs of many items at once
+    @BatchSize(size = 100)
     @ManyToMany
     @JoinTable(
         name = "DocumentStudyPrograms",
@@ -51,6 +58,9 @@ public class DocumentContent {
 
     private String contentHash;
 
+    // Hash of the raw file, an upload of the same file needs no parsing
+    private String fileHash;
+
     @PrePersist
     protected void onCreate() {
         LocalDateTime now = LocalDateTime.now();
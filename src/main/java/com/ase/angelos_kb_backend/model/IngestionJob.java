@@ -0,0 +1,64 @@
+package com.ase.angelos_kb_backend.model;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import com.ase.angelos_kb_backend.util.JobStatus;
+import com.ase.angelos_kb_backend.util.JobType;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+@Entity
+@Data
+@Table(name = "ingestion_jobs")
+public class IngestionJob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private JobType type;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private JobStatus status;
+
+    private Long orgId;
+
+    // Input of the job as JSON, read by the handler of the job type
+    @Column(columnDefinition = "TEXT")
+    private String payload;
+
+    private int totalItems;
+    private int processedItems;
+    private int failedItems;
+
+    // Errors of failed items as JSON array
+    @Column(columnDefinition = "TEXT")
+    private String errors;
+
+    private LocalDateTime createdAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+
+    // Last sign of life of the instance running the job, a RUNNING job without one for a while is reclaimed
+    private LocalDateTime heartbeatAt;
+
+    @PrePersist
+    protected void onCreate() {
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
+    }
+}
@@ -32,6 +32,10 @@ public class Organisation {
     @Column(nullable = true)
     private Boolean responseActive = true;
 
+    // Chat and mail requests per minute, the configured default applies if not set
+    @Column(nullable = true)
+    private Integer chatRequestsPerMinute;
+
     @OneToMany(mappedBy = "organisation", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<User> users;
 
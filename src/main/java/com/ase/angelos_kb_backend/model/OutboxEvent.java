@@ -0,0 +1,76 @@
+package com.ase.angelos_kb_backend.model;
+
+import java.time.LocalDateTime;
+
+import com.ase.angelos_kb_backend.util.OutboxAggregate;
+import com.ase.angelos_kb_backend.util.OutboxOperation;
+import com.ase.angelos_kb_backend.util.OutboxStatus;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+/**
+ * A change of the knowledge base that still has to be sent to Angelos. Events are written in the transaction
+ * of the change itself and deleted once they were delivered.
+ */
+@Entity
+@Data
+@Table(name = "outbox_events", indexes = {
+    @Index(name = "idx_outbox_status_next_attempt", columnList = "status, nextAttemptAt"),
+    @Index(name = "idx_outbox_aggregate", columnList = "aggregateId")
+})
+public class OutboxEvent {
+
+    // Generated in insertion order, events of an aggregate are delivered in this order
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private OutboxAggregate aggregateType;
+
+    @Column(nullable = false)
+    private String aggregateId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private OutboxOperation operation;
+
+    private Long orgId;
+
+    // Request body for Angelos as JSON
+    @Column(columnDefinition = "TEXT")
+    private String payload;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private OutboxStatus status;
+
+    private int attempts;
+    private LocalDateTime nextAttemptAt;
+
+    @Column(columnDefinition = "TEXT")
+    private String lastError;
+
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
+        if (nextAttemptAt == null) {
+            nextAttemptAt = createdAt;
+        }
+    }
+}
@@ -5,21 +5,26 @@ import java.util.List;
 import java.util.UUID;
 
 import jakarta.persistence.Column;
+import org.hibernate.annotations.BatchSize;
+
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.JoinTable;
 import jakarta.persistence.ManyToMany;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.PreUpdate;
+import jakarta.persistence.Table;
 import lombok.Data;
 import lombok.ToString;
 
 @Entity
 @Data
+@Table(indexes = @Index(name = "idx_sample_question_org_updated", columnList = "org_id, updatedAt, sqID"))
 public class SampleQuestion {
 
     @Id
@@ -39,6 +44,8 @@ public class SampleQuestion {
     @ToString.Exclude
     private Organisation organisation;
 
+    // Listings of whole organisations read the study programs of many items at once
+    @BatchSize(size = 100)
     @ManyToMany
     @JoinTable(
         name = "SampleQuestionStudyPrograms",
@@ -4,21 +4,29 @@ import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
 
+import org.hibernate.annotations.BatchSize;
+
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.JoinTable;
 import jakarta.persistence.ManyToMany;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.PreUpdate;
+import jakarta.persistence.Table;
 import jakarta.validation.constraints.NotBlank;
 import lombok.Data;
 
 @Entity
 @Data
+@Table(indexes = {
+    @Index(name = "idx_website_org_title", columnList = "org_id, title, id"),
+    @Index(name = "idx_website_org_updated", columnList = "org_id, updatedAt, id")
+})
 public class WebsiteContent {
 
     @Id
@@ -33,10 +41,22 @@ public class WebsiteContent {
 
     private String contentHash;
 
+    // Validators of the last fetch, used to re-fetch the page conditionally
+    private String etag;
+    private String lastModified;
+    private Long contentLength;
+
+    // Background refresh, a null interval uses the default of the refresh engine
+    private Integer refreshIntervalMinutes;
+    private LocalDateTime lastCheckedAt;
+    private LocalDateTime nextRefreshAt;
+
     @ManyToOne
     @JoinColumn(name = "org_id", nullable = false)
     private Organisation organisation;
 
+    // Listings of whole organisations read the study programs of many items at once
+    @BatchSize(size = 100)
     @ManyToMany
     @JoinTable(
         name = "WebsiteStudyPrograms",
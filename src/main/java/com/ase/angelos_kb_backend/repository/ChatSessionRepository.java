@@ -0,0 +1,28 @@
+package com.ase.angelos_kb_backend.repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.ase.angelos_kb_backend.model.ChatSession;
+
+import jakarta.persistence.LockModeType;
+
+public interface ChatSessionRepository extends JpaRepository<ChatSession, String> {
+
+    // SELECT ... FOR UPDATE, concurrent appends to one session wait for each other
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM ChatSession s WHERE s.sessionId = :sessionId")
+    Optional<ChatSession> findForUpdate(@Param("sessionId") String sessionId);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ChatSession s WHERE s.updatedAt < :cutoff")
+    int deleteByUpdatedAtBefore(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -0,0 +1,29 @@
+package com.ase.angelos_kb_backend.repository;
+
+import com.ase.angelos_kb_backend.model.ContentChunk;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.UUID;
+
+public interface ContentChunkRepository extends JpaRepository<ContentChunk, Long> {
+    List<ContentChunk> findBySourceIdAndSuppressedFalseOrderByPosition(UUID sourceId);
+
+    @Query("SELECT c FROM ContentChunk c WHERE c.simhash IS NOT NULL AND c.id > :after ORDER BY c.id")
+    List<ContentChunk> findFingerprinted(@Param("after") Long after, Pageable pageable);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ContentChunk c WHERE c.sourceId = :sourceId")
+    void deleteBySourceId(@Param("sourceId") UUID sourceId);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ContentChunk c WHERE c.sourceId IN :sourceIds")
+    void deleteBySourceIdIn(@Param("sourceIds") List<UUID> sourceIds);
+}
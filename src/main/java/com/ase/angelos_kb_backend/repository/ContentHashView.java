@@ -0,0 +1,11 @@
+package com.ase.angelos_kb_backend.repository;
+
+import java.util.UUID;
+
+/**
+ * Id and content hash of a website or document, read without loading the entity.
+ */
+public interface ContentHashView {
+    UUID getId();
+    String getContentHash();
+}
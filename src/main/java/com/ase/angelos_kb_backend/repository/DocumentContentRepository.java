@@ -3,10 +3,13 @@ package com.ase.angelos_kb_backend.repository;
 import com.ase.angelos_kb_backend.model.DocumentContent;
 import com.ase.angelos_kb_backend.model.StudyProgram;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -18,4 +21,31 @@ public interface DocumentContentRepository extends JpaRepository<DocumentContent
 
     @Query("SELECT d FROM DocumentContent d WHERE :sp MEMBER OF d.studyPrograms")
     List<DocumentContent> findByStudyProgramsContains(@Param("sp") StudyProgram sp);
-}
\ No newline at end of file
+
+    @Query("SELECT d.docID AS id, d.contentHash AS contentHash FROM DocumentContent d WHERE d.organisation.orgID = :orgId AND d.docID > :after ORDER BY d.docID")
+    List<ContentHashView> findContentHashes(@Param("orgId") Long orgId, @Param("after") UUID after, Pageable pageable);
+
+    @Query("SELECT d.docID AS id, d.organisation.orgID AS orgId FROM DocumentContent d")
+    List<SourceOrgView> findOrgIds();
+
+    // Pages of the listing, filtered by title or file name and study program and continued after the cursor.
+    // Documents without a title sort first.
+    String LIST_COLUMNS = "SELECT d.docID AS id, d.title AS title, d.createdAt AS createdAt, d.updatedAt AS updatedAt "
+            + "FROM DocumentContent d WHERE d.organisation.orgID = :orgId "
+            + "AND (LOWER(COALESCE(d.title, '')) LIKE :pattern ESCAPE '!' OR LOWER(d.originalFilename) LIKE :pattern ESCAPE '!') "
+            + "AND (:studyProgramId IS NULL OR EXISTS (SELECT 1 FROM d.studyPrograms sp WHERE sp.spID = :studyProgramId)) ";
+
+    @Query(LIST_COLUMNS + "AND (COALESCE(d.title, '') > :afterTitle OR (COALESCE(d.title, '') = :afterTitle AND d.docID > :afterId)) "
+            + "ORDER BY COALESCE(d.title, ''), d.docID")
+    List<DocumentListView> findPageByTitle(@Param("orgId") Long orgId, @Param("pattern") String pattern,
+                                           @Param("studyProgramId") Long studyProgramId, @Param("afterTitle") String afterTitle,
+                                           @Param("afterId") UUID afterId, Pageable pageable);
+
+    @Query(LIST_COLUMNS + "AND (d.updatedAt < :afterTime OR (d.updatedAt = :afterTime AND d.docID > :afterId)) ORDER BY d.updatedAt DESC, d.docID")
+    List<DocumentListView> findPageByUpdated(@Param("orgId") Long orgId, @Param("pattern") String pattern,
+                                             @Param("studyProgramId") Long studyProgramId, @Param("afterTime") LocalDateTime afterTime,
+                                             @Param("afterId") UUID afterId, Pageable pageable);
+
+    @Query("SELECT d.docID AS ownerId, sp.spID AS id, sp.name AS name FROM DocumentContent d JOIN d.studyPrograms sp WHERE d.docID IN :ids ORDER BY sp.name")
+    List<StudyProgramLinkView> findStudyPrograms(@Param("ids") Collection<UUID> ids);
+}
@@ -0,0 +1,14 @@
+package com.ase.angelos_kb_backend.repository;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * The columns of a document shown in listings, read without loading the entity.
+ */
+public interface DocumentListView {
+    UUID getId();
+    String getTitle();
+    LocalDateTime getCreatedAt();
+    LocalDateTime getUpdatedAt();
+}
@@ -0,0 +1,37 @@
+package com.ase.angelos_kb_backend.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.ase.angelos_kb_backend.model.IngestionJob;
+
+public interface IngestionJobRepository extends JpaRepository<IngestionJob, UUID> {
+
+    // Queued jobs and running jobs whose instance stopped sending heartbeats
+    @Query("SELECT j FROM IngestionJob j WHERE j.status = com.ase.angelos_kb_backend.util.JobStatus.QUEUED "
+            + "OR (j.status = com.ase.angelos_kb_backend.util.JobStatus.RUNNING AND (j.heartbeatAt IS NULL OR j.heartbeatAt < :staleBefore)) "
+            + "ORDER BY j.createdAt")
+    List<IngestionJob> findResumable(@Param("staleBefore") LocalDateTime staleBefore);
+
+    // Conditional update, of several instances resuming the same job only one gets it
+    @Modifying
+    @Transactional
+    @Query("UPDATE IngestionJob j SET j.status = com.ase.angelos_kb_backend.util.JobStatus.RUNNING, j.heartbeatAt = :now "
+            + "WHERE j.id = :id AND (j.status = com.ase.angelos_kb_backend.util.JobStatus.QUEUED "
+            + "OR (j.status = com.ase.angelos_kb_backend.util.JobStatus.RUNNING AND (j.heartbeatAt IS NULL OR j.heartbeatAt < :staleBefore)))")
+    int claim(@Param("id") UUID id, @Param("now") LocalDateTime now, @Param("staleBefore") LocalDateTime staleBefore);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE IngestionJob j SET j.heartbeatAt = :now "
+            + "WHERE j.id IN :ids AND j.status = com.ase.angelos_kb_backend.util.JobStatus.RUNNING")
+    int touch(@Param("ids") Collection<UUID> ids, @Param("now") LocalDateTime now);
+}
@@ -0,0 +1,29 @@
+package com.ase.angelos_kb_backend.repository;
+
+import com.ase.angelos_kb_backend.model.OutboxEvent;
+import com.ase.angelos_kb_backend.util.OutboxStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+    List<OutboxEvent> findByStatusAndNextAttemptAtLessThanEqualOrderById(OutboxStatus status, LocalDateTime now, Pageable pageable);
+
+    List<OutboxEvent> findByStatusAndAggregateIdInOrderById(OutboxStatus status, Collection<String> aggregateIds);
+
+    List<OutboxEvent> findByStatusInAndAggregateIdIn(Collection<OutboxStatus> statuses, Collection<String> aggregateIds);
+
+    // Conditional update, of several instances dispatching the same due event only one gets it
+    @Modifying
+    @Transactional
+    @Query("UPDATE OutboxEvent e SET e.nextAttemptAt = :leaseUntil "
+            + "WHERE e.id = :id AND e.status = com.ase.angelos_kb_backend.util.OutboxStatus.PENDING AND e.nextAttemptAt <= :now")
+    int claim(@Param("id") Long id, @Param("now") LocalDateTime now, @Param("leaseUntil") LocalDateTime leaseUntil);
+}
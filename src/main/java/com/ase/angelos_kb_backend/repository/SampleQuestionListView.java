@@ -0,0 +1,15 @@
+package com.ase.angelos_kb_backend.repository;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * The columns of a sample question shown in listings, read without loading the entity.
+ */
+public interface SampleQuestionListView {
+    UUID getId();
+    String getTopic();
+    String getQuestion();
+    String getAnswer();
+    LocalDateTime getUpdatedAt();
+}
@@ -3,10 +3,13 @@ package com.ase.angelos_kb_backend.repository;
 import com.ase.angelos_kb_backend.model.SampleQuestion;
 import com.ase.angelos_kb_backend.model.StudyProgram;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -18,4 +21,28 @@ public interface SampleQuestionRepository extends JpaRepository<SampleQuestion,
 
     @Query("SELECT s FROM SampleQuestion s WHERE :sp MEMBER OF s.studyPrograms")
     List<SampleQuestion> findByStudyProgramsContains(@Param("sp") StudyProgram sp);
+
+    @Query("SELECT s.sqID FROM SampleQuestion s WHERE s.organisation.orgID = :orgId AND s.sqID > :after ORDER BY s.sqID")
+    List<UUID> findIds(@Param("orgId") Long orgId, @Param("after") UUID after, Pageable pageable);
+
+    // Pages of the listing, filtered by topic or question and study program and continued after the cursor.
+    // Questions without a topic sort first.
+    String LIST_COLUMNS = "SELECT s.sqID AS id, s.topic AS topic, s.question AS question, s.answer AS answer, s.updatedAt AS updatedAt "
+            + "FROM SampleQuestion s WHERE s.organisation.orgID = :orgId "
+            + "AND (LOWER(COALESCE(s.topic, '')) LIKE :pattern ESCAPE '!' OR LOWER(s.question) LIKE :pattern ESCAPE '!') "
+            + "AND (:studyProgramId IS NULL OR EXISTS (SELECT 1 FROM s.studyPrograms sp WHERE sp.spID = :studyProgramId)) ";
+
+    @Query(LIST_COLUMNS + "AND (COALESCE(s.topic, '') > :afterTopic OR (COALESCE(s.topic, '') = :afterTopic AND s.sqID > :afterId)) "
+            + "ORDER BY COALESCE(s.topic, ''), s.sqID")
+    List<SampleQuestionListView> findPageByTopic(@Param("orgId") Long orgId, @Param("pattern") String pattern,
+                                                 @Param("studyProgramId") Long studyProgramId, @Param("afterTopic") String afterTopic,
+                                                 @Param("afterId") UUID afterId, Pageable pageable);
+
+    @Query(LIST_COLUMNS + "AND (s.updatedAt < :afterTime OR (s.updatedAt = :afterTime AND s.sqID > :afterId)) ORDER BY s.updatedAt DESC, s.sqID")
+    List<SampleQuestionListView> findPageByUpdated(@Param("orgId") Long orgId, @Param("pattern") String pattern,
+                                                   @Param("studyProgramId") Long studyProgramId, @Param("afterTime") LocalDateTime afterTime,
+                                                   @Param("afterId") UUID afterId, Pageable pageable);
+
+    @Query("SELECT s.sqID AS ownerId, sp.spID AS id, sp.name AS name FROM SampleQuestion s JOIN s.studyPrograms sp WHERE s.sqID IN :ids ORDER BY sp.name")
+    List<StudyProgramLinkView> findStudyPrograms(@Param("ids") Collection<UUID> ids);
 }
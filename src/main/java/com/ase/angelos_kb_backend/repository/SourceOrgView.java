@@ -0,0 +1,11 @@
+package com.ase.angelos_kb_backend.repository;
+
+import java.util.UUID;
+
+/**
+ * Id of a website or document and of the organisation it belongs to, read without loading the entity.
+ */
+public interface SourceOrgView {
+    UUID getId();
+    Long getOrgId();
+}
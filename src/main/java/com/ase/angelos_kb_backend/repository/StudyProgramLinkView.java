@@ -0,0 +1,12 @@
+package com.ase.angelos_kb_backend.repository;
+
+import java.util.UUID;
+
+/**
+ * A study program assigned to a website, document or sample question, read for a whole page of them at once.
+ */
+public interface StudyProgramLinkView {
+    UUID getOwnerId();
+    Long getId();
+    String getName();
+}
@@ -0,0 +1,11 @@
+package com.ase.angelos_kb_backend.repository;
+
+/**
+ * The columns of a user shown in listings, read without loading the user's organisation.
+ */
+public interface UserListView {
+    Long getId();
+    String getMail();
+    boolean isAdmin();
+    boolean isApproved();
+}
@@ -1,7 +1,10 @@
 package com.ase.angelos_kb_backend.repository;
 
 import com.ase.angelos_kb_backend.model.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 import java.util.Optional;
@@ -11,4 +14,12 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByMail(String mail);
     User findByConfirmationToken(String token);
     boolean existsByMail(String mail);
+
+    // Pages of the listing by mail, of one organisation or of all if allOrganisations is set
+    @Query("SELECT u.userID AS id, u.mail AS mail, u.isAdmin AS admin, u.isApproved AS approved FROM User u "
+            + "WHERE (:allOrganisations = TRUE OR u.organisation.orgID = :orgId) AND LOWER(u.mail) LIKE :pattern ESCAPE '!' "
+            + "AND (u.mail > :afterMail OR (u.mail = :afterMail AND u.userID > :afterId)) ORDER BY u.mail, u.userID")
+    List<UserListView> findPageByMail(@Param("orgId") Long orgId, @Param("allOrganisations") boolean allOrganisations,
+                                      @Param("pattern") String pattern, @Param("afterMail") String afterMail,
+                                      @Param("afterId") Long afterId, Pageable pageable);
 }
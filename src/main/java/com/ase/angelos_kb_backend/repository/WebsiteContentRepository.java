@@ -2,10 +2,15 @@ package com.ase.angelos_kb_backend.repository;
 
 import com.ase.angelos_kb_backend.model.StudyProgram;
 import com.ase.angelos_kb_backend.model.WebsiteContent;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -19,4 +24,38 @@ public interface WebsiteContentRepository extends JpaRepository<WebsiteContent,
 
     @Query("SELECT w FROM WebsiteContent w WHERE :sp MEMBER OF w.studyPrograms")
     List<WebsiteContent> findByStudyProgramsContains(@Param("sp") StudyProgram sp);
-}
\ No newline at end of file
+
+    @Query("SELECT w.id FROM WebsiteContent w WHERE w.nextRefreshAt IS NULL OR w.nextRefreshAt <= :now ORDER BY w.nextRefreshAt ASC NULLS FIRST")
+    List<UUID> findIdsDueForRefresh(@Param("now") LocalDateTime now, Pageable pageable);
+
+    // Conditional update, of several instances refreshing the same due website only one gets it
+    @Modifying
+    @Transactional
+    @Query("UPDATE WebsiteContent w SET w.nextRefreshAt = :leaseUntil WHERE w.id = :id AND (w.nextRefreshAt IS NULL OR w.nextRefreshAt <= :now)")
+    int claimRefresh(@Param("id") UUID id, @Param("now") LocalDateTime now, @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    @Query("SELECT w.id AS id, w.contentHash AS contentHash FROM WebsiteContent w WHERE w.organisation.orgID = :orgId AND w.id > :after ORDER BY w.id")
+    List<ContentHashView> findContentHashes(@Param("orgId") Long orgId, @Param("after") UUID after, Pageable pageable);
+
+    @Query("SELECT w.id AS id, w.organisation.orgID AS orgId FROM WebsiteContent w")
+    List<SourceOrgView> findOrgIds();
+
+    // Pages of the listing, filtered by title or link and study program and continued after the cursor
+    String LIST_COLUMNS = "SELECT w.id AS id, w.title AS title, w.link AS link, w.updatedAt AS updatedAt, "
+            + "w.refreshIntervalMinutes AS refreshIntervalMinutes FROM WebsiteContent w WHERE w.organisation.orgID = :orgId "
+            + "AND (LOWER(w.title) LIKE :pattern ESCAPE '!' OR LOWER(w.link) LIKE :pattern ESCAPE '!') "
+            + "AND (:studyProgramId IS NULL OR EXISTS (SELECT 1 FROM w.studyPrograms sp WHERE sp.spID = :studyProgramId)) ";
+
+    @Query(LIST_COLUMNS + "AND (w.title > :afterTitle OR (w.title = :afterTitle AND w.id > :afterId)) ORDER BY w.title, w.id")
+    List<WebsiteListView> findPageByTitle(@Param("orgId") Long orgId, @Param("pattern") String pattern,
+                                          @Param("studyProgramId") Long studyProgramId, @Param("afterTitle") String afterTitle,
+                                          @Param("afterId") UUID afterId, Pageable pageable);
+
+    @Query(LIST_COLUMNS + "AND (w.updatedAt < :afterTime OR (w.updatedAt = :afterTime AND w.id > :afterId)) ORDER BY w.updatedAt DESC, w.id")
+    List<WebsiteListView> findPageByUpdated(@Param("orgId") Long orgId, @Param("pattern") String pattern,
+                                            @Param("studyProgramId") Long studyProgramId, @Param("afterTime") LocalDateTime afterTime,
+                                            @Param("afterId") UUID afterId, Pageable pageable);
+
+    @Query("SELECT w.id AS ownerId, sp.spID AS id, sp.name AS name FROM WebsiteContent w JOIN w.studyPrograms sp WHERE w.id IN :ids ORDER BY sp.name")
+    List<StudyProgramLinkView> findStudyPrograms(@Param("ids") Collection<UUID> ids);
+}
@@ -0,0 +1,15 @@
+package com.ase.angelos_kb_backend.repository;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * The columns of a website shown in listings, read without loading the entity.
+ */
+public interface WebsiteListView {
+    UUID getId();
+    String getTitle();
+    String getLink();
+    LocalDateTime getUpdatedAt();
+    Integer getRefreshIntervalMinutes();
+}
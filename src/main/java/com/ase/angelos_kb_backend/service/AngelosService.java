@@ -1,14 +1,35 @@
 package com.ase.angelos_kb_backend.service;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
 
 import com.ase.angelos_kb_backend.dto.DocumentDataDTO;
@@ -18,14 +39,24 @@ import com.ase.angelos_kb_backend.dto.angelos.AngelosAddSampleQuestionRequest;
 import com.ase.angelos_kb_backend.dto.angelos.AngelosAddWebsiteRequest;
 import com.ase.angelos_kb_backend.dto.angelos.AngelosChatRequest;
 import com.ase.angelos_kb_backend.dto.angelos.AngelosChatResponse;
+import com.ase.angelos_kb_backend.dto.angelos.AngelosChunkDeltaRequest;
 import com.ase.angelos_kb_backend.dto.angelos.AngelosEditDocumentRequest;
 import com.ase.angelos_kb_backend.dto.angelos.AngelosEditSampleQuestionRequest;
 import com.ase.angelos_kb_backend.dto.angelos.AngelosEditWebsiteRequest;
 import com.ase.angelos_kb_backend.dto.angelos.AngelosRefreshContentRequest;
 import com.ase.angelos_kb_backend.dto.eunomia.MailResponseRequestDTO;
+import com.ase.angelos_kb_backend.exception.ServiceUnavailableException;
+import com.ase.angelos_kb_backend.util.Bulkhead;
+import com.ase.angelos_kb_backend.util.ChatRequestKey;
+import com.ase.angelos_kb_backend.util.CircuitBreaker;
+import com.ase.angelos_kb_backend.util.InventoryItem;
+import com.ase.angelos_kb_backend.util.OutboxAggregate;
+import com.ase.angelos_kb_backend.util.SingleFlight;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 @Component
-public class AngelosService {
+public class AngelosService implements RagInventory {
 
     @Value("${angelos.url}")
     private String angelosUrl;
@@ -33,10 +64,50 @@ public class AngelosService {
     @Value("${angelos.secret}")
     private String angelosSecret;
 
+    @Value("${angelos.read-timeout-ms:90000}")
+    private long readTimeout;
+
+    @Value("${angelos.coalesce-max-wait-ms:90000}")
+    private long coalesceMaxWait;
+
+    @Value("${angelos.bulkhead.sync.max-wait-ms:30000}")
+    private long syncMaxWait;
+
     private final RestTemplate restTemplate;
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final CircuitBreaker circuitBreaker;
+    private final Bulkhead chatBulkhead;
+    private final Bulkhead syncBulkhead;
+    private final SingleFlight<ChatRequestKey, AngelosChatResponse> chatFlights = new SingleFlight<>();
+    private final SingleFlight<MailResponseRequestDTO, AngelosChatResponse> askFlights = new SingleFlight<>();
+    private final ThreadLocal<String> idempotencyKey = new ThreadLocal<>();
+
+    public AngelosService(@Qualifier("angelosRestTemplate") RestTemplate restTemplate,
+                          @Qualifier("angelosHttpClient") HttpClient httpClient,
+                          ObjectMapper objectMapper,
+                          @Qualifier("angelosCircuitBreaker") CircuitBreaker circuitBreaker,
+                          @Qualifier("angelosChatBulkhead") Bulkhead chatBulkhead,
+                          @Qualifier("angelosSyncBulkhead") Bulkhead syncBulkhead) {
+        this.restTemplate = restTemplate;
+        this.httpClient = httpClient;
+        this.objectMapper = objectMapper;
+        this.circuitBreaker = circuitBreaker;
+        this.chatBulkhead = chatBulkhead;
+        this.syncBulkhead = syncBulkhead;
+    }
 
-    public AngelosService() {
-        this.restTemplate = new RestTemplate();
+    /**
+     * Runs knowledge sync requests with an Idempotency-Key header, so Angelos can recognise a request that is
+     * sent again after its response was lost.
+     */
+    public boolean withIdempotencyKey(String key, BooleanSupplier requests) {
+        idempotencyKey.set(key);
+        try {
+            return requests.getAsBoolean();
+        } finally {
+            idempotencyKey.remove();
+        }
     }
 
     public boolean verifyAPIKey(String secret) {
@@ -44,40 +115,84 @@ public class AngelosService {
     }
 
     /**
-     * Forwards an chat request from the chatbot to the RAG
+     * Forwards an chat request from the chatbot to the RAG.
+     * The call does not block the calling thread, the answer is delivered through the returned future.
+     * Identical requests that arrive while one is in flight share its answer.
      */
-    public AngelosChatResponse sendChatMessage(AngelosChatRequest request, boolean filterByOrg) {
+    public CompletableFuture<AngelosChatResponse> sendChatMessage(AngelosChatRequest request, boolean filterByOrg) {
         String endpoint = angelosUrl + "/v1/question/chat?filterByOrg=" + filterByOrg;
-    
-        HttpHeaders headers = new HttpHeaders();
-        headers.set("x-api-key", angelosSecret);
-    
+
         // Only the original request body is sent, without filterByOrg
-        HttpEntity<AngelosChatRequest> requestEntity = new HttpEntity<>(request, headers);
-    
-        ResponseEntity<AngelosChatResponse> response = 
-            restTemplate.postForEntity(endpoint, requestEntity, AngelosChatResponse.class);
-    
-        return response.getBody();
+        return chatFlights.execute(ChatRequestKey.of(request, filterByOrg),
+                () -> postAsync(endpoint, request, AngelosChatResponse.class),
+                Duration.ofMillis(coalesceMaxWait));
     }
 
     /**
-     * Forwards an response request from the mail pipeline to the RAG
+     * Forwards a chat request to the streaming endpoint of the RAG and relays every token to the consumer
+     * as soon as it arrives. The upstream body is read line by line, so the consumer paces the read: a slow
+     * client blocks the consumer and thereby the upstream read. Reading stops as soon as the cancellation
+     * supplier returns true or the consumer throws, which closes the upstream connection.
+     *
+     * The caller must hold a permission from {@link #acquireChatPermission()}, it is returned when the stream ends.
      */
-    public AngelosChatResponse sendAskRequest(MailResponseRequestDTO request) {
-        String endpoint = angelosUrl + "/v1/question/ask";
+    public void streamChatMessage(AngelosChatRequest request, boolean filterByOrg, Consumer<String> onToken, BooleanSupplier cancelled,
+                                  CircuitBreaker.Permission permission) {
+        try {
+            doStreamChatMessage(request, filterByOrg, onToken, cancelled);
+            circuitBreaker.onSuccess(permission);
+        } catch (HttpServerErrorException | ResourceAccessException e) {
+            circuitBreaker.onFailure(permission);
+            throw e;
+        } catch (RuntimeException e) {
+            // Angelos answered, the request was rejected or the client went away
+            circuitBreaker.onSuccess(permission);
+            throw e;
+        } finally {
+            chatBulkhead.release();
+        }
+    }
+
+    private void doStreamChatMessage(AngelosChatRequest request, boolean filterByOrg, Consumer<String> onToken, BooleanSupplier cancelled) {
+        String endpoint = angelosUrl + "/v1/question/chat/stream?filterByOrg=" + filterByOrg;
 
         HttpHeaders headers = new HttpHeaders();
         headers.set("x-api-key", angelosSecret);
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setAccept(List.of(MediaType.TEXT_EVENT_STREAM));
 
-        // Wrap the request in an HttpEntity
-        HttpEntity<MailResponseRequestDTO> requestEntity = new HttpEntity<>(request, headers);
+        HttpEntity<AngelosChatRequest> requestEntity = new HttpEntity<>(request, headers);
 
-        // Make the POST call
-        ResponseEntity<AngelosChatResponse> response =
-            restTemplate.postForEntity(endpoint, requestEntity, AngelosChatResponse.class);
+        restTemplate.execute(endpoint, HttpMethod.POST, restTemplate.httpEntityCallback(requestEntity), response -> {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(response.getBody(), StandardCharsets.UTF_8))) {
+                String line;
+                while (!cancelled.getAsBoolean() && (line = reader.readLine()) != null) {
+                    // Only data lines carry tokens, comments and event names are ignored
+                    if (!line.startsWith("data:")) {
+                        continue;
+                    }
+                    String token = line.substring(5);
+                    if (token.startsWith(" ")) {
+                        token = token.substring(1);
+                    }
+                    if (token.equals("[DONE]")) {
+                        break;
+                    }
+                    onToken.accept(token);
+                }
+            }
+            return null;
+        });
+    }
 
-        return response.getBody();
+    /**
+     * Forwards an response request from the mail pipeline to the RAG.
+     * Identical requests that arrive while one is in flight share its answer.
+     */
+    public CompletableFuture<AngelosChatResponse> sendAskRequest(MailResponseRequestDTO request) {
+        String endpoint = angelosUrl + "/v1/question/ask";
+        return askFlights.execute(request, () -> postAsync(endpoint, request, AngelosChatResponse.class),
+                Duration.ofMillis(coalesceMaxWait));
     }
 
     /**
@@ -107,6 +222,14 @@ public class AngelosService {
         return sendPostRequest(endpoint, body);
     }
 
+    /**
+     * Send the changed chunks of an existing website's content.
+     */
+    public boolean sendWebsiteDeltaRequest(String id, AngelosChunkDeltaRequest delta) {
+        String endpoint = angelosUrl + "/knowledge/website/" + id + "/delta";
+        return sendPostRequest(endpoint, delta);
+    }
+
     /**
      * Send a request to update a website's title and study programs.
      */
@@ -147,7 +270,13 @@ public class AngelosService {
         body.setTitle(doc.getTitle());
         body.setStudyPrograms(doc.getStudyPrograms().stream().map(sp -> sp.getName()).toList());
         body.setContent(content);
+        return sendDocumentAddRequest(body);
+    }
 
+    /**
+     * Send a prepared request to add a document resource.
+     */
+    public boolean sendDocumentAddRequest(AngelosAddDocumentRequest body) {
         String endpoint = angelosUrl + "/knowledge/document/add";
         return sendPostRequest(endpoint, body);
     }
@@ -163,6 +292,14 @@ public class AngelosService {
         return sendPostRequest(endpoint, body);
     }
 
+    /**
+     * Send the changed chunks of an existing document's content.
+     */
+    public boolean sendDocumentDeltaRequest(String id, AngelosChunkDeltaRequest delta) {
+        String endpoint = angelosUrl + "/knowledge/document/" + id + "/delta";
+        return sendPostRequest(endpoint, delta);
+    }
+
     /**
      * Send a request to edit a document resource.
      */
@@ -171,8 +308,14 @@ public class AngelosService {
         body.setTitle(doc.getTitle());
         body.setStudyPrograms(doc.getStudyPrograms().stream().map(sp -> sp.getName()).toList());
         body.setOrgId(orgId);
+        return sendDocumentEditRequest(doc.getId(), body);
+    }
 
-        String endpoint = angelosUrl + "/knowledge/document/" + doc.getId() + "/edit";
+    /**
+     * Send a prepared request to edit a document resource.
+     */
+    public boolean sendDocumentEditRequest(String id, AngelosEditDocumentRequest body) {
+        String endpoint = angelosUrl + "/knowledge/document/" + id + "/edit";
         return sendPostRequest(endpoint, body);
     }
 
@@ -227,8 +370,14 @@ public class AngelosService {
         body.setAnswer(sampleQuestion.getAnswer());
         body.setStudyPrograms(sampleQuestion.getStudyPrograms().stream().map(sp -> sp.getName()).toList());
         body.setOrgId(orgId);
+        return sendSampleQuestionEditRequest(sampleQuestion.getId(), body);
+    }
 
-        String endpoint = angelosUrl + "/knowledge/sample-question/" + sampleQuestion.getId() + "/edit";
+    /**
+     * Send a prepared request to edit a sample question resource.
+     */
+    public boolean sendSampleQuestionEditRequest(String id, AngelosEditSampleQuestionRequest body) {
+        String endpoint = angelosUrl + "/knowledge/sample-question/" + id + "/edit";
         return sendPostRequest(endpoint, body);
     }
 
@@ -250,37 +399,185 @@ public class AngelosService {
     }
 
 
+    /**
+     * Takes a permit of the chat bulkhead and asks the circuit breaker for permission.
+     * Both are returned by the caller once the call has completed. Streams acquire it on the request thread
+     * before they are handed to another thread, so a rejection still becomes a 503 response.
+     *
+     * @throws ServiceUnavailableException if chat traffic is at its limit or the circuit is open.
+     */
+    public CircuitBreaker.Permission acquireChatPermission() {
+        if (!chatBulkhead.tryAcquire()) {
+            throw new ServiceUnavailableException("Too many questions are being answered right now, please try again shortly.", 1);
+        }
+        CircuitBreaker.Permission permission = circuitBreaker.tryAcquirePermission();
+        if (permission == null) {
+            chatBulkhead.release();
+            long retryAfter = Math.max(1, (circuitBreaker.getRemainingOpenMillis() + 999) / 1000);
+            throw new ServiceUnavailableException("Angelos is currently unavailable, please try again later.", retryAfter);
+        }
+        return permission;
+    }
+
+    /**
+     * Returns a permission from {@link #acquireChatPermission()} that was never used for a call.
+     */
+    public void releaseChatPermission(CircuitBreaker.Permission permission) {
+        chatBulkhead.release();
+        circuitBreaker.onIgnored(permission);
+    }
+
+    /**
+     * Fetch a page of the ids and content hashes Angelos holds for an organisation.
+     */
+    @Override
+    public List<InventoryItem> fetchPage(OutboxAggregate type, Long orgId, String afterId, int limit) {
+        String resource = switch (type) {
+            case WEBSITE -> "website";
+            case DOCUMENT -> "document";
+            case SAMPLE_QUESTION -> "sample-question";
+        };
+        String endpoint = angelosUrl + "/knowledge/" + resource + "/inventory?orgId=" + orgId + "&limit=" + limit
+                + (afterId != null ? "&after=" + afterId : "");
+
+        List<InventoryItem> page = new ArrayList<>();
+        boolean success = sendSyncRequest(endpoint, () -> {
+            ResponseEntity<InventoryItem[]> response = restTemplate.exchange(endpoint, HttpMethod.GET,
+                    new HttpEntity<>(syncHeaders()), InventoryItem[].class);
+            if (response.getBody() != null) {
+                page.addAll(Arrays.asList(response.getBody()));
+            }
+            return response.getStatusCode().is2xxSuccessful();
+        });
+        if (!success) {
+            throw new RuntimeException("Failed to fetch inventory from Angelos RAG system.");
+        }
+        return page;
+    }
+
+    /**
+     * Helper method to send a non-blocking POST request on the chat bulkhead and map the JSON response body.
+     */
+    private <T> CompletableFuture<T> postAsync(String endpoint, Object body, Class<T> responseType) {
+        byte[] payload;
+        try {
+            payload = objectMapper.writeValueAsBytes(body);
+        } catch (JsonProcessingException e) {
+            return CompletableFuture.failedFuture(new RuntimeException("Failed to serialize request to Angelos", e));
+        }
+
+        CircuitBreaker.Permission permission;
+        try {
+            permission = acquireChatPermission();
+        } catch (ServiceUnavailableException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        HttpRequest httpRequest = HttpRequest.newBuilder(URI.create(endpoint))
+                .timeout(Duration.ofMillis(readTimeout))
+                .header("x-api-key", angelosSecret)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(payload))
+                .build();
+
+        CompletableFuture<HttpResponse<byte[]>> call;
+        try {
+            call = httpClient.sendAsync(httpRequest, HttpResponse.BodyHandlers.ofByteArray());
+        } catch (RuntimeException e) {
+            releaseChatPermission(permission);
+            return CompletableFuture.failedFuture(e);
+        }
+
+        return call
+                .whenComplete((response, e) -> {
+                    chatBulkhead.release();
+                    // Client errors mean Angelos is up, only timeouts, connection failures and server errors count
+                    if (e != null || response.statusCode() >= 500) {
+                        circuitBreaker.onFailure(permission);
+                    } else {
+                        circuitBreaker.onSuccess(permission);
+                    }
+                })
+                .thenApply(response -> {
+                    if (response.statusCode() < 200 || response.statusCode() >= 300) {
+                        throw new RuntimeException("Angelos responded with status " + response.statusCode());
+                    }
+                    try {
+                        return objectMapper.readValue(response.body(), responseType);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException("Failed to read response from Angelos", e);
+                    }
+                });
+    }
+
     /**
      * Helper method to send POST requests and return boolean based on success.
      */
     private boolean sendPostRequest(String endpoint, Object body) {
-        try {
-            HttpHeaders headers = new HttpHeaders();
-            headers.set("x-api-key", angelosSecret);
+        return sendSyncRequest(endpoint, () -> {
+            HttpHeaders headers = syncHeaders();
             HttpEntity<Object> requestEntity = new HttpEntity<>(body, headers);
             ResponseEntity<Void> response = restTemplate.postForEntity(endpoint, requestEntity, Void.class);
             
             return response.getStatusCode().is2xxSuccessful();
-        } catch (Exception e) {
-            System.err.println("Error sending request: " + e.getMessage());
-            return false;
-        }
+        });
     }
 
     /**
      * Helper method to send DELETE requests with an optional body.
      */
     private boolean sendDeleteRequest(String endpoint, @Nullable Object body) {
-        try {
-            HttpHeaders headers = new HttpHeaders();
-            headers.set("x-api-key", angelosSecret);
+        return sendSyncRequest(endpoint, () -> {
+            HttpHeaders headers = syncHeaders();
             
             HttpEntity<Object> requestEntity = (body != null) ? new HttpEntity<>(body, headers) : new HttpEntity<>(headers);
 
             restTemplate.exchange(endpoint, HttpMethod.DELETE, requestEntity, Void.class);
             return true;
-        } catch (Exception e) {
+        });
+    }
+
+    private HttpHeaders syncHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("x-api-key", angelosSecret);
+        String key = idempotencyKey.get();
+        if (key != null) {
+            headers.set("Idempotency-Key", key);
+        }
+        return headers;
+    }
+
+    /**
+     * Runs a knowledge sync request on the sync bulkhead behind the circuit breaker.
+     * Fails fast with false while the circuit is open or the bulkhead stays full for longer than the configured wait.
+     */
+    private boolean sendSyncRequest(String endpoint, Supplier<Boolean> request) {
+        if (!syncBulkhead.tryAcquire(Duration.ofMillis(syncMaxWait))) {
+            System.err.println("Error sending request: too many sync requests in flight, skipped " + endpoint);
             return false;
         }
+        try {
+            CircuitBreaker.Permission permission = circuitBreaker.tryAcquirePermission();
+            if (permission == null) {
+                System.err.println("Error sending request: Angelos is unavailable, skipped " + endpoint);
+                return false;
+            }
+            try {
+                boolean success = request.get();
+                circuitBreaker.onSuccess(permission);
+                return success;
+            } catch (HttpClientErrorException e) {
+                circuitBreaker.onSuccess(permission);
+                System.err.println("Error sending request: " + e.getMessage());
+                return false;
+            } catch (Exception e) {
+                circuitBreaker.onFailure(permission);
+                System.err.println("Error sending request: " + e.getMessage());
+                return false;
+            }
+        } finally {
+            syncBulkhead.release();
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,113 @@
+package com.ase.angelos_kb_backend.service;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.ase.angelos_kb_backend.dto.angelos.AngelosChatRequest;
+import com.ase.angelos_kb_backend.dto.angelos.AngelosChatResponse;
+import com.ase.angelos_kb_backend.util.ChatRequestKey;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Caches chat answers of the RAG so that repeated questions do not reach the LLM again.
+ * Entries are keyed by the normalized message history, study program, organisation and filterByOrg,
+ * bounded in size and expire after a fixed time. Whenever the knowledge of an organisation changes,
+ * all answers that may be based on it are dropped. Answers still being generated while that happens are not
+ * cached afterwards, each invalidation bumps a generation that the answer is checked against before it is stored.
+ *
+ * Hits, misses and evictions are published as cache.* metrics with cache=chatAnswers, the latency of the
+ * upstream calls that the cache could not answer as angelos.chat.latency.
+ */
+@Component
+public class ChatAnswerCache {
+
+    private final Cache<ChatRequestKey, AngelosChatResponse> cache;
+    private final Timer upstreamLatency;
+    // Bumped by invalidations of the organisation resp. by all invalidations
+    private final Map<Long, AtomicLong> orgGenerations = new ConcurrentHashMap<>();
+    private final AtomicLong anyGeneration = new AtomicLong();
+
+    @Value("${app.chat.answer-cache.enabled:true}")
+    private boolean enabled;
+
+    public ChatAnswerCache(@Value("${app.chat.answer-cache.max-size:10000}") long maxSize,
+                           @Value("${app.chat.answer-cache.ttl-minutes:360}") long ttlMinutes,
+                           MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .recordStats()
+                .build();
+        this.upstreamLatency = Timer.builder("angelos.chat.latency")
+                .description("Latency of chat answers that had to be generated by Angelos")
+                .register(meterRegistry);
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "chatAnswers");
+    }
+
+    /**
+     * Returns the cached answer for the request or asks the loader for a new one.
+     * Only successful answers are cached.
+     */
+    public CompletableFuture<AngelosChatResponse> get(AngelosChatRequest request, boolean filterByOrg,
+                                                      Supplier<CompletableFuture<AngelosChatResponse>> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+
+        ChatRequestKey key = ChatRequestKey.of(request, filterByOrg);
+        AngelosChatResponse cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        long generation = generation(key);
+        Timer.Sample sample = Timer.start();
+        return loader.get().whenComplete((response, e) -> {
+            sample.stop(upstreamLatency);
+            if (e == null && response != null && generation(key) == generation) {
+                cache.put(key, response);
+                // An invalidation that started after the check above may already have swept the cache
+                if (generation(key) != generation) {
+                    cache.asMap().remove(key, response);
+                }
+            }
+        });
+    }
+
+    /**
+     * Drops all answers that may be based on the knowledge of the organisation.
+     * Answers of requests without filterByOrg search across all organisations and are dropped as well.
+     */
+    public void invalidateOrg(Long orgId) {
+        anyGeneration.incrementAndGet();
+        if (orgId != null) {
+            orgGeneration(orgId).incrementAndGet();
+        }
+        cache.asMap().keySet().removeIf(key -> !key.filterByOrg() || Objects.equals(key.orgId(), orgId));
+    }
+
+    // Answers filtered by organisation only depend on its knowledge, all others on the knowledge of every organisation
+    private long generation(ChatRequestKey key) {
+        if (key.filterByOrg() && key.orgId() != null) {
+            return orgGeneration(key.orgId()).get();
+        }
+        return anyGeneration.get();
+    }
+
+    private AtomicLong orgGeneration(Long orgId) {
+        return orgGenerations.computeIfAbsent(orgId, id -> new AtomicLong());
+    }
+}
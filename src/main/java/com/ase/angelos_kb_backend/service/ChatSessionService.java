@@ -0,0 +1,122 @@
+package com.ase.angelos_kb_backend.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Deque;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.ase.angelos_kb_backend.dto.angelos.AngelosChatMessage;
+import com.ase.angelos_kb_backend.dto.angelos.AngelosChatRequest;
+import com.ase.angelos_kb_backend.exception.ResourceNotFoundException;
+
+/**
+ * Server-side chat history. Requests with a session id only carry their new messages,
+ * the history is taken from the session store and trimmed to the last turns before it is forwarded to Angelos.
+ * Session ids are random 128-bit values issued by {@link #start()}; ids the store does not know are rejected.
+ */
+@Service
+public class ChatSessionService {
+
+    private static final Pattern SESSION_ID_PATTERN = Pattern.compile("[A-Za-z0-9_-]{22}");
+
+    private final ChatSessionStore chatSessionStore;
+    private final SecureRandom random = new SecureRandom();
+
+    @Value("${app.chat.session.max-turns:10}")
+    private int maxTurns;
+
+    @Value("${app.chat.session.max-bytes:16384}")
+    private int maxBytes;
+
+    @Value("${app.chat.session.answer-type:system}")
+    private String answerType;
+
+    public ChatSessionService(ChatSessionStore chatSessionStore) {
+        this.chatSessionStore = chatSessionStore;
+    }
+
+    /**
+     * Creates a new empty session.
+     *
+     * @return the id of the session
+     */
+    public String start() {
+        byte[] bytes = new byte[16];
+        random.nextBytes(bytes);
+        String sessionId = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        chatSessionStore.create(sessionId);
+        return sessionId;
+    }
+
+    /**
+     * Builds the request that is forwarded to Angelos: the stored history followed by the new messages, trimmed.
+     * Requests without session id are forwarded as they are.
+     *
+     * @throws ResourceNotFoundException if the session is unknown or has expired.
+     */
+    public AngelosChatRequest prepare(AngelosChatRequest request) {
+        if (request.getSessionId() == null) {
+            return request;
+        }
+        List<AngelosChatMessage> history = SESSION_ID_PATTERN.matcher(request.getSessionId()).matches()
+                ? chatSessionStore.load(request.getSessionId()).orElse(null)
+                : null;
+        if (history == null) {
+            throw new ResourceNotFoundException("Chat session not found or expired, start a new one.");
+        }
+        List<AngelosChatMessage> messages = new ArrayList<>(history);
+        messages.addAll(request.getMessages());
+
+        AngelosChatRequest forwarded = new AngelosChatRequest();
+        forwarded.setMessages(trim(messages));
+        forwarded.setStudy_program(request.getStudy_program());
+        forwarded.setOrgId(request.getOrgId());
+        return forwarded;
+    }
+
+    /**
+     * Appends the new messages of the request and the answer to the session, atomically with other requests of
+     * the same session. A session that expired in the meantime is not revived.
+     */
+    public void record(AngelosChatRequest request, String answer) {
+        if (request.getSessionId() == null) {
+            return;
+        }
+        chatSessionStore.update(request.getSessionId(), history -> {
+            List<AngelosChatMessage> messages = new ArrayList<>(history);
+            messages.addAll(request.getMessages());
+            messages.add(new AngelosChatMessage(answer, answerType));
+            return trim(messages);
+        });
+    }
+
+    public void delete(String sessionId) {
+        chatSessionStore.delete(sessionId);
+    }
+
+    /**
+     * Keeps the newest messages within max-turns (a question and its answer) and max-bytes.
+     * The newest message is always kept.
+     */
+    List<AngelosChatMessage> trim(List<AngelosChatMessage> messages) {
+        Deque<AngelosChatMessage> window = new ArrayDeque<>();
+        int bytes = 0;
+        for (int i = messages.size() - 1; i >= 0 && window.size() < maxTurns * 2; i--) {
+            AngelosChatMessage message = messages.get(i);
+            String text = message.getMessage() != null ? message.getMessage() : "";
+            bytes += text.getBytes(StandardCharsets.UTF_8).length;
+            if (bytes > maxBytes && !window.isEmpty()) {
+                break;
+            }
+            window.addFirst(message);
+        }
+        return new ArrayList<>(window);
+    }
+}
@@ -0,0 +1,34 @@
+package com.ase.angelos_kb_backend.service;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.UnaryOperator;
+
+import com.ase.angelos_kb_backend.dto.angelos.AngelosChatMessage;
+
+/**
+ * Keeps the message history of chat sessions on the server, so that clients only send their new message.
+ * The implementation is chosen with app.chat.session.store (memory or postgres).
+ */
+public interface ChatSessionStore {
+
+    /**
+     * Stores a new session with an empty history.
+     */
+    void create(String sessionId);
+
+    /**
+     * Returns the history of the session, empty if the session is unknown or has expired.
+     */
+    Optional<List<AngelosChatMessage>> load(String sessionId);
+
+    /**
+     * Replaces the history of the session with the result of the update, atomically with respect to other
+     * updates of the same session. Unknown or expired sessions are left alone.
+     *
+     * @return whether the session was updated
+     */
+    boolean update(String sessionId, UnaryOperator<List<AngelosChatMessage>> update);
+
+    void delete(String sessionId);
+}
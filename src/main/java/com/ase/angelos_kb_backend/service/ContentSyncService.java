@@ -0,0 +1,224 @@
+package com.ase.angelos_kb_backend.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.ase.angelos_kb_backend.dto.angelos.AngelosChunk;
+import com.ase.angelos_kb_backend.dto.angelos.AngelosChunkDeltaRequest;
+import com.ase.angelos_kb_backend.model.ContentChunk;
+import com.ase.angelos_kb_backend.repository.ContentChunkRepository;
+import com.ase.angelos_kb_backend.util.ChunkDelta;
+import com.ase.angelos_kb_backend.util.ContentChunker;
+import com.ase.angelos_kb_backend.util.ContentRefresh;
+import com.ase.angelos_kb_backend.util.OutboxAggregate;
+import com.ase.angelos_kb_backend.util.OutboxOperation;
+import com.ase.angelos_kb_backend.util.TextChunk;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Sends changed content of websites and documents to Angelos as a chunk delta instead of the whole text.
+ * The hashes of the chunks of the latest content are stored per source; a refresh only ships the chunks that
+ * were added, the hashes of removed chunks and the new positions of unchanged ones.
+ *
+ * Refreshes are recorded in the outbox together with the change and delivered by the {@link OutboxDispatcher}.
+ * The full content is sent instead when no chunks are stored for the source yet, when most of the content
+ * changed anyway or when Angelos does not accept the delta. Refreshes are counted as content.sync with mode=delta or full.
+ * The dispatcher drops the chunks of a source whose content could not be delivered, see {@link #deleteChunks(UUID)}.
+ *
+ * Chunks are checked for near duplicates in other sources of the organisation by the {@link NearDuplicateService},
+ * which may leave them out of the content that is sent. The content hash of a source is the hash of the content
+ * as sent, so it matches the hash Angelos reports for it.
+ */
+@Service
+public class ContentSyncService {
+
+    private final AngelosService angelosService;
+    private final OutboxService outboxService;
+    private final ContentChunker contentChunker;
+    private final ContentChunkRepository contentChunkRepository;
+    private final NearDuplicateService nearDuplicateService;
+    private final Counter deltaSyncs;
+    private final Counter fullSyncs;
+
+    @Value("${angelos.delta-sync.enabled:true}")
+    private boolean deltaEnabled;
+
+    @Value("${angelos.delta-sync.max-changed-ratio:0.5}")
+    private double maxChangedRatio;
+
+    public ContentSyncService(AngelosService angelosService, OutboxService outboxService, ContentChunker contentChunker,
+                              ContentChunkRepository contentChunkRepository, NearDuplicateService nearDuplicateService,
+                              MeterRegistry meterRegistry) {
+        this.angelosService = angelosService;
+        this.outboxService = outboxService;
+        this.contentChunker = contentChunker;
+        this.contentChunkRepository = contentChunkRepository;
+        this.nearDuplicateService = nearDuplicateService;
+        this.deltaSyncs = meterRegistry.counter("content.sync", "mode", "delta");
+        this.fullSyncs = meterRegistry.counter("content.sync", "mode", "full");
+    }
+
+    /**
+     * Records the changed content of a website for Angelos.
+     *
+     * @return the content as sent, without suppressed duplicate sections
+     */
+    @Transactional
+    public String refreshWebsite(UUID websiteId, Long orgId, String content) {
+        ContentRefresh refresh = prepare(websiteId, orgId, content);
+        outboxService.record(OutboxAggregate.WEBSITE, websiteId.toString(), OutboxOperation.REFRESH, orgId, refresh);
+        return refresh.content();
+    }
+
+    /**
+     * Records the changed content of a document for Angelos.
+     *
+     * @return the content as sent, without suppressed duplicate sections
+     */
+    @Transactional
+    public String refreshDocument(UUID docId, Long orgId, String content) {
+        ContentRefresh refresh = prepare(docId, orgId, content);
+        outboxService.record(OutboxAggregate.DOCUMENT, docId.toString(), OutboxOperation.REFRESH, orgId, refresh);
+        return refresh.content();
+    }
+
+    /**
+     * Sends a recorded refresh to Angelos, falling back to the full content if the delta is not accepted.
+     */
+    public boolean deliver(OutboxAggregate type, String sourceId, ContentRefresh refresh) {
+        boolean website = type == OutboxAggregate.WEBSITE;
+        if (refresh.delta() != null) {
+            boolean success = website
+                    ? angelosService.sendWebsiteDeltaRequest(sourceId, refresh.delta())
+                    : angelosService.sendDocumentDeltaRequest(sourceId, refresh.delta());
+            if (success) {
+                deltaSyncs.increment();
+                return true;
+            }
+            System.err.println("Delta refresh of " + sourceId + " failed, sending full content.");
+        }
+
+        boolean success = website
+                ? angelosService.sendWebsiteRefreshRequest(sourceId, refresh.content())
+                : angelosService.sendDocumentRefreshRequest(sourceId, refresh.content());
+        if (success) {
+            fullSyncs.increment();
+        }
+        return success;
+    }
+
+    /**
+     * Stores the chunks of content that is sent to Angelos in full, so the next refresh can send a delta.
+     *
+     * @return the content to send, without suppressed duplicate sections
+     */
+    @Transactional
+    public String recordContent(UUID sourceId, Long orgId, String content) {
+        List<TextChunk> chunks = contentChunker.chunk(content);
+        List<TextChunk> stored = storeChunks(sourceId, orgId, chunks);
+        return stored.size() == chunks.size() ? content : join(stored);
+    }
+
+    /**
+     * The content as it would be sent now, without the sections that would be suppressed. Compared by hash with
+     * the content sent before to tell whether a source changed.
+     */
+    public String contentToSend(UUID sourceId, Long orgId, String content) {
+        if (!nearDuplicateService.isSuppressing()) {
+            return content;
+        }
+        List<TextChunk> chunks = contentChunker.chunk(content);
+        List<TextChunk> kept = new ArrayList<>();
+        for (TextChunk chunk : chunks) {
+            OptionalLong fingerprint = nearDuplicateService.fingerprint(chunk.text());
+            if (fingerprint.isEmpty() || !nearDuplicateService.hasNearDuplicate(sourceId, orgId, fingerprint.getAsLong())) {
+                kept.add(chunk);
+            }
+        }
+        return kept.size() == chunks.size() ? content : join(kept);
+    }
+
+    @Transactional
+    public void deleteChunks(UUID sourceId) {
+        contentChunkRepository.deleteBySourceId(sourceId);
+        nearDuplicateService.remove(List.of(sourceId));
+    }
+
+    private ContentRefresh prepare(UUID sourceId, Long orgId, String content) {
+        List<String> previousHashes = contentChunkRepository.findBySourceIdAndSuppressedFalseOrderByPosition(sourceId).stream()
+                .map(ContentChunk::getHash)
+                .toList();
+        List<TextChunk> parsed = contentChunker.chunk(content);
+        List<TextChunk> chunks = storeChunks(sourceId, orgId, parsed);
+        if (chunks.size() < parsed.size()) {
+            content = join(chunks);
+        }
+
+        AngelosChunkDeltaRequest delta = null;
+        if (deltaEnabled && !previousHashes.isEmpty()) {
+            ChunkDelta chunkDelta = ChunkDelta.between(previousHashes, chunks);
+            if (chunkDelta.added().size() <= maxChangedRatio * chunks.size()) {
+                delta = toRequest(chunkDelta);
+            }
+        }
+        return new ContentRefresh(content, delta);
+    }
+
+    private AngelosChunkDeltaRequest toRequest(ChunkDelta delta) {
+        List<AngelosChunk> added = new ArrayList<>();
+        for (TextChunk chunk : delta.added()) {
+            added.add(new AngelosChunk(chunk.hash(), chunk.position(), chunk.text()));
+        }
+        List<AngelosChunk> unchanged = new ArrayList<>();
+        for (TextChunk chunk : delta.unchanged()) {
+            unchanged.add(new AngelosChunk(chunk.hash(), chunk.position(), null));
+        }
+        return new AngelosChunkDeltaRequest(added, delta.removed(), unchanged);
+    }
+
+    // Replaces the stored chunks of a source, returns the chunks to send renumbered after suppressed duplicates.
+    // Suppressed chunks are stored too, with their position in the parsed content.
+    private List<TextChunk> storeChunks(UUID sourceId, Long orgId, List<TextChunk> chunks) {
+        contentChunkRepository.deleteBySourceId(sourceId);
+        List<TextChunk> stored = new ArrayList<>();
+        List<ContentChunk> entities = new ArrayList<>();
+        int duplicates = 0;
+        for (TextChunk chunk : chunks) {
+            OptionalLong fingerprint = nearDuplicateService.fingerprint(chunk.text());
+            boolean suppressed = false;
+            if (fingerprint.isPresent() && nearDuplicateService.hasNearDuplicate(sourceId, orgId, fingerprint.getAsLong())) {
+                duplicates++;
+                suppressed = nearDuplicateService.isSuppressing();
+            }
+            if (!suppressed) {
+                if (chunk.position() != stored.size()) {
+                    chunk = new TextChunk(stored.size(), chunk.hash(), chunk.text());
+                }
+                stored.add(chunk);
+            }
+
+            ContentChunk entity = new ContentChunk();
+            entity.setSourceId(sourceId);
+            entity.setPosition(chunk.position());
+            entity.setHash(chunk.hash());
+            entity.setSimhash(fingerprint.isPresent() ? fingerprint.getAsLong() : null);
+            entity.setSuppressed(suppressed);
+            entities.add(entity);
+        }
+        contentChunkRepository.saveAll(entities);
+        nearDuplicateService.record(sourceId, orgId, entities, duplicates, chunks.size());
+        return stored;
+    }
+
+    private static String join(List<TextChunk> chunks) {
+        return String.join("\n\n", chunks.stream().map(TextChunk::text).toList());
+    }
+}
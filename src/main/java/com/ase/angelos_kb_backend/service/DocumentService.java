@@ -2,18 +2,33 @@ package com.ase.angelos_kb_backend.service;
 
 import com.ase.angelos_kb_backend.dto.DocumentDataDTO;
 import com.ase.angelos_kb_backend.dto.DocumentRequestDTO;
+import com.ase.angelos_kb_backend.dto.PageDTO;
+import com.ase.angelos_kb_backend.dto.StudyProgramDTO;
+import com.ase.angelos_kb_backend.dto.angelos.AngelosAddDocumentRequest;
+import com.ase.angelos_kb_backend.dto.angelos.AngelosEditDocumentRequest;
 import com.ase.angelos_kb_backend.exception.ResourceNotFoundException;
 import com.ase.angelos_kb_backend.exception.UnauthorizedException;
 import com.ase.angelos_kb_backend.model.DocumentContent;
 import com.ase.angelos_kb_backend.model.Organisation;
 import com.ase.angelos_kb_backend.model.StudyProgram;
 import com.ase.angelos_kb_backend.repository.DocumentContentRepository;
+import com.ase.angelos_kb_backend.repository.DocumentListView;
 import com.ase.angelos_kb_backend.service.DocumentService;
+import com.ase.angelos_kb_backend.util.ListingQuery;
+import com.ase.angelos_kb_backend.util.ListingSort;
+import com.ase.angelos_kb_backend.util.OutboxAggregate;
+import com.ase.angelos_kb_backend.util.OutboxOperation;
+import com.ase.angelos_kb_backend.util.PageCursor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.nio.file.Path;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -23,22 +38,34 @@ public class DocumentService {
     private final DocumentContentRepository documentContentRepository;
     private final OrganisationService organisationService;
     private final StudyProgramService studyProgramService;
-    private final AngelosService angelosService;
+    private final OutboxService outboxService;
     private final ParsingService parsingService;
+    private final ParseCache parseCache;
     private final FileStorageService fileStorageService;
+    private final ContentSyncService contentSyncService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.documents.max-size-mb:50}")
+    private long maxFileSizeMb;
 
     public DocumentService(DocumentContentRepository documentContentRepository,
                            OrganisationService organisationService,
                            StudyProgramService studyProgramService,
-                           AngelosService angelosService,
+                           OutboxService outboxService,
                            ParsingService parsingService,
-                           FileStorageService fileStorageService) {
+                           ParseCache parseCache,
+                           FileStorageService fileStorageService,
+                           ContentSyncService contentSyncService,
+                           TransactionTemplate transactionTemplate) {
         this.documentContentRepository = documentContentRepository;
         this.organisationService = organisationService;
         this.studyProgramService = studyProgramService;
-        this.angelosService = angelosService;
+        this.outboxService = outboxService;
         this.parsingService = parsingService;
+        this.parseCache = parseCache;
         this.fileStorageService = fileStorageService;
+        this.contentSyncService = contentSyncService;
+        this.transactionTemplate = transactionTemplate;
     }
 
     /**
@@ -63,6 +90,27 @@ public class DocumentService {
         return documents.stream().map(this::convertToDataDto).collect(Collectors.toList());
     }
 
+    /**
+     * A page of the documents of an organisation. Only the listed columns are read, the study programs of the
+     * whole page in one more query.
+     */
+    public PageDTO<DocumentDataDTO> getDocumentsPage(Long orgId, ListingQuery query) {
+        PageCursor after = query.after();
+        // One more row than the limit tells whether there is a next page
+        PageRequest page = PageRequest.of(0, query.limit() + 1);
+        List<DocumentListView> rows = switch (query.sort()) {
+            case NAME -> documentContentRepository.findPageByTitle(orgId, query.pattern(), query.studyProgramId(),
+                    after.key(), after.uuid(), page);
+            case UPDATED -> documentContentRepository.findPageByUpdated(orgId, query.pattern(), query.studyProgramId(),
+                    after.time(), after.uuid(), page);
+        };
+        return PageDTO.of(rows, query.limit(),
+                row -> query.sort() == ListingSort.NAME
+                        ? PageCursor.after(row.getTitle() != null ? row.getTitle() : "", row.getId())
+                        : PageCursor.after(row.getUpdatedAt(), row.getId()),
+                this::convertToDataDtos);
+    }
+
     /**
      * Edit a document's title and study programs.
      */
@@ -85,38 +133,50 @@ public class DocumentService {
         DocumentContent updatedDocument = documentContentRepository.save(document);
         DocumentDataDTO documentDataDTO = convertToDataDto(updatedDocument);
 
-        boolean success = false;
-        success = angelosService.sendDocumentEditRequest(documentDataDTO, orgId);
+        AngelosEditDocumentRequest ragRequest = new AngelosEditDocumentRequest();
+        ragRequest.setTitle(updatedDocument.getTitle());
+        ragRequest.setStudyPrograms(updatedDocument.getStudyPrograms().stream().map(StudyProgram::getName).toList());
+        ragRequest.setOrgId(orgId);
+        outboxService.record(OutboxAggregate.DOCUMENT, docId.toString(), OutboxOperation.UPDATE, orgId, ragRequest);
 
         // If a new file is uploaded, replace the old one
-        if (success && file != null && !file.isEmpty()) {
-            if (file.getSize() > 5 * 1024 * 1024) { // 5MB limit
-                throw new IllegalArgumentException("File size exceeds the maximum allowed size of 5MB.");
+        if (file != null && !file.isEmpty()) {
+            checkFileSize(file);
+
+            // Write the upload once and parse it from storage
+            String newFilename = fileStorageService.storeFile(file, UUID.randomUUID().toString() + ".pdf");
+            String fileHash;
+            String parsedContent;
+            try {
+                fileHash = parsingService.computeFileHash(fileStorageService.loadFile(newFilename));
+                if (fileHash.equals(document.getFileHash())) {
+                    // The same file was uploaded again, keep the stored one
+                    fileStorageService.deleteFile(newFilename);
+                    return documentDataDTO;
+                }
+                parsedContent = parseCache.parseDocument(fileStorageService.loadFile(newFilename), fileHash);
+            } catch (RuntimeException ex) {
+                fileStorageService.deleteFile(newFilename);
+                throw ex;
             }
 
-            // Delete the old file if it exists
+            // Delete the old file only once the new one could be parsed
             if (document.getFilename() != null) {
                 fileStorageService.deleteFile(document.getFilename());
             }
-
-            String newFilename = UUID.randomUUID().toString() + ".pdf";
-            fileStorageService.storeFile(file, newFilename);
             document.setFilename(newFilename);
             document.setOriginalFilename(file.getOriginalFilename());
+            document.setFileHash(fileHash);
 
-            String parsedContent = parsingService.parseDocument(file);
-            String contentHash = parsingService.computeContentHash(parsedContent);
+            // The stored hash is of the content sent before
+            String contentHash = parsingService.computeContentHash(contentSyncService.contentToSend(docId, orgId, parsedContent));
 
             if (document.getContentHash() == null || ! contentHash.equals(document.getContentHash())) {
-                success = angelosService.sendDocumentRefreshRequest(documentDataDTO.getId(), parsedContent);
-                document.setContentHash(contentHash);
+                String sentContent = contentSyncService.refreshDocument(document.getDocID(), orgId, parsedContent);
+                document.setContentHash(parsingService.computeContentHash(sentContent));
             }
         }
 
-        if (!success) {
-            throw new RuntimeException("Failed to send update request to Angelos RAG system.");
-        }
-
         return documentDataDTO;
     }
 
@@ -124,16 +184,12 @@ public class DocumentService {
     public DocumentDataDTO addDocument(Long orgId, DocumentRequestDTO documentRequestDTO, MultipartFile file) {
         Organisation organisation = organisationService.getOrganisationById(orgId);
 
-        if (file.getSize() > 5 * 1024 * 1024) { // 5MB limit
-            throw new IllegalArgumentException("File size exceeds the maximum allowed size of 5MB.");
-        }
+        checkFileSize(file);
 
-        // Generate a unique filename
-        String filename = UUID.randomUUID().toString() + ".pdf";
+        // Store the file in the file system using a unique filename, it is parsed from there
+        String filename = fileStorageService.storeFile(file, UUID.randomUUID().toString() + ".pdf");
 
         try {
-            // Store the file in the file system using the unique filename
-            fileStorageService.storeFile(file, filename);
 
             // Create DocumentContent entity
             DocumentContent documentContent = new DocumentContent();
@@ -152,13 +208,11 @@ public class DocumentService {
             // Map to Response DTO
             DocumentDataDTO dto = convertToDataDto(savedDocument);
 
-            // Parse content and send it to Angelos
-            String parsedContent = parsingService.parseDocument(file);
-            boolean success = angelosService.sendDocumentAddRequest(dto, parsedContent, orgId);
-            if (!success) {
-                // If the Angelos request fails, throw an exception to trigger rollback
-                throw new RuntimeException("Failed to send add request to Angelos RAG system.");
-            }
+            // Parse content and queue it for Angelos
+            String fileHash = parsingService.computeFileHash(fileStorageService.loadFile(filename));
+            String parsedContent = parseCache.parseDocument(fileStorageService.loadFile(filename), fileHash);
+            savedDocument.setFileHash(fileHash);
+            savedDocument.setContentHash(parsingService.computeContentHash(recordAdd(savedDocument, parsedContent)));
 
             return dto;
 
@@ -187,6 +241,78 @@ public class DocumentService {
             throw new RuntimeException("Failed to delete the file from the file system.", ex);
         }
         documentContentRepository.delete(document);
+        contentSyncService.deleteChunks(docId);
+        outboxService.record(OutboxAggregate.DOCUMENT, docId.toString(), OutboxOperation.DELETE, orgId, null);
+    }
+
+    /**
+     * Parses stored documents again and queues their full content for the RAG, as an add for documents the RAG
+     * is missing or as a refresh for documents whose content in the RAG differs. Documents that no longer exist are skipped.
+     */
+    public void resendDocuments(List<UUID> docIds, OutboxOperation operation, JobProgress progress) {
+        for (UUID docId : docIds) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> documentContentRepository.findById(docId)
+                        .ifPresent(document -> resend(document, operation)));
+                progress.succeeded(1);
+            } catch (RuntimeException e) {
+                progress.failed(docId.toString(), e.getMessage());
+            }
+        }
+    }
+
+    private void resend(DocumentContent document, OutboxOperation operation) {
+        Path file = fileStorageService.loadFile(document.getFilename());
+        if (document.getFileHash() == null) {
+            document.setFileHash(parsingService.computeFileHash(file));
+        }
+        String parsedContent = parseCache.parseDocument(file, document.getFileHash());
+        String sentContent;
+        if (operation == OutboxOperation.ADD) {
+            sentContent = recordAdd(document, parsedContent);
+        } else {
+            // Drop the stored chunks, the RAG does not have the content they describe
+            contentSyncService.deleteChunks(document.getDocID());
+            sentContent = contentSyncService.refreshDocument(document.getDocID(), document.getOrganisation().getOrgID(), parsedContent);
+        }
+        document.setContentHash(parsingService.computeContentHash(sentContent));
+        documentContentRepository.save(document);
+    }
+
+    // Returns the content as sent
+    private String recordAdd(DocumentContent document, String parsedContent) {
+        Long orgId = document.getOrganisation().getOrgID();
+        AngelosAddDocumentRequest ragRequest = new AngelosAddDocumentRequest();
+        ragRequest.setId(document.getDocID().toString());
+        ragRequest.setOrgId(orgId);
+        ragRequest.setTitle(document.getTitle());
+        ragRequest.setStudyPrograms(document.getStudyPrograms().stream().map(StudyProgram::getName).toList());
+        ragRequest.setContent(contentSyncService.recordContent(document.getDocID(), orgId, parsedContent));
+        outboxService.record(OutboxAggregate.DOCUMENT, ragRequest.getId(), OutboxOperation.ADD, orgId, ragRequest);
+        return ragRequest.getContent();
+    }
+
+    private void checkFileSize(MultipartFile file) {
+        if (file.getSize() > maxFileSizeMb * 1024 * 1024) {
+            throw new IllegalArgumentException("File size exceeds the maximum allowed size of " + maxFileSizeMb + "MB.");
+        }
+    }
+
+    private List<DocumentDataDTO> convertToDataDtos(List<DocumentListView> rows) {
+        if (rows.isEmpty()) {
+            return List.of();
+        }
+        Map<UUID, List<StudyProgramDTO>> studyPrograms = studyProgramService.groupByOwner(
+                documentContentRepository.findStudyPrograms(rows.stream().map(DocumentListView::getId).toList()));
+        return rows.stream()
+                .map(row -> DocumentDataDTO.builder()
+                        .id(row.getId().toString())
+                        .title(row.getTitle())
+                        .studyPrograms(studyPrograms.getOrDefault(row.getId(), List.of()))
+                        .createdAt(row.getCreatedAt())
+                        .updatedAt(row.getUpdatedAt())
+                        .build())
+                .toList();
     }
 
     /**
@@ -1,5 +1,6 @@
 package com.ase.angelos_kb_backend.service;
 
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
@@ -23,8 +24,8 @@ public class EunomiaService {
 
     private final RestTemplate restTemplate;
 
-    public EunomiaService() {
-        this.restTemplate = new RestTemplate();
+    public EunomiaService(@Qualifier("eunomiaRestTemplate") RestTemplate restTemplate) {
+        this.restTemplate = restTemplate;
     }
 
     /**
@@ -47,8 +47,8 @@ public class FileStorageService {
                 }
             } while (Files.exists(targetLocation));
 
-            // Save the file
-            Files.copy(file.getInputStream(), targetLocation, StandardCopyOption.REPLACE_EXISTING);
+            // Save the file, uploads buffered on disk by the container are moved instead of copied
+            file.transferTo(targetLocation);
 
             return filename;
 
@@ -0,0 +1,52 @@
+package com.ase.angelos_kb_backend.service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.UnaryOperator;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.ase.angelos_kb_backend.dto.angelos.AngelosChatMessage;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Session store of a single instance. Sessions expire when idle and the number of sessions is bounded.
+ */
+@Component
+@ConditionalOnProperty(name = "app.chat.session.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryChatSessionStore implements ChatSessionStore {
+
+    private final Cache<String, List<AngelosChatMessage>> sessions;
+
+    public InMemoryChatSessionStore(@Value("${app.chat.session.idle-minutes:60}") long idleMinutes,
+                                    @Value("${app.chat.session.max-sessions:100000}") long maxSessions) {
+        this.sessions = Caffeine.newBuilder()
+                .expireAfterAccess(Duration.ofMinutes(idleMinutes))
+                .maximumSize(maxSessions)
+                .build();
+    }
+
+    @Override
+    public void create(String sessionId) {
+        sessions.put(sessionId, List.of());
+    }
+
+    @Override
+    public Optional<List<AngelosChatMessage>> load(String sessionId) {
+        return Optional.ofNullable(sessions.getIfPresent(sessionId));
+    }
+
+    @Override
+    public boolean update(String sessionId, UnaryOperator<List<AngelosChatMessage>> update) {
+        return sessions.asMap().computeIfPresent(sessionId, (id, messages) -> List.copyOf(update.apply(messages))) != null;
+    }
+
+    @Override
+    public void delete(String sessionId) {
+        sessions.invalidate(sessionId);
+    }
+}
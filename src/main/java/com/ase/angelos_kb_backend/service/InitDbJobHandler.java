@@ -0,0 +1,75 @@
+package com.ase.angelos_kb_backend.service;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.springframework.stereotype.Component;
+
+import com.ase.angelos_kb_backend.dto.InitDbJobPayload;
+import com.ase.angelos_kb_backend.dto.SampleQuestionDTO;
+import com.ase.angelos_kb_backend.dto.WebsiteRequestDTO;
+import com.ase.angelos_kb_backend.model.IngestionJob;
+import com.ase.angelos_kb_backend.model.SampleQuestion;
+import com.ase.angelos_kb_backend.model.WebsiteContent;
+import com.ase.angelos_kb_backend.repository.SampleQuestionRepository;
+import com.ase.angelos_kb_backend.repository.WebsiteContentRepository;
+import com.ase.angelos_kb_backend.util.JobType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Imports the initial websites and sample questions of an organisation.
+ * Websites and sample questions the organisation already has are skipped, so an interrupted import can be resumed.
+ */
+@Component
+public class InitDbJobHandler implements JobHandler {
+
+    private final WebsiteService websiteService;
+    private final SampleQuestionService sampleQuestionService;
+    private final WebsiteContentRepository websiteContentRepository;
+    private final SampleQuestionRepository sampleQuestionRepository;
+    private final ObjectMapper objectMapper;
+
+    public InitDbJobHandler(WebsiteService websiteService, SampleQuestionService sampleQuestionService,
+                            WebsiteContentRepository websiteContentRepository,
+                            SampleQuestionRepository sampleQuestionRepository, ObjectMapper objectMapper) {
+        this.websiteService = websiteService;
+        this.sampleQuestionService = sampleQuestionService;
+        this.websiteContentRepository = websiteContentRepository;
+        this.sampleQuestionRepository = sampleQuestionRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public JobType getType() {
+        return JobType.INIT_DB;
+    }
+
+    @Override
+    public void run(IngestionJob job, JobProgress progress) throws Exception {
+        InitDbJobPayload payload = objectMapper.readValue(job.getPayload(), InitDbJobPayload.class);
+        Long orgId = job.getOrgId();
+
+        Set<String> existingLinks = websiteContentRepository.findByOrganisationOrgID(orgId).stream()
+                .map(WebsiteContent::getLink)
+                .collect(Collectors.toSet());
+        List<WebsiteRequestDTO> websites = payload.getWebsites().stream()
+                .filter(website -> !existingLinks.contains(website.getLink()))
+                .toList();
+        if (!websites.isEmpty()) {
+            websiteService.addWebsitesInBatch(orgId, websites, progress);
+        }
+
+        Set<String> existingQuestions = sampleQuestionRepository.findByOrganisationOrgID(orgId).stream()
+                .map(SampleQuestion::getQuestion)
+                .collect(Collectors.toSet());
+        List<SampleQuestionDTO> sampleQuestions = payload.getSampleQuestions().stream()
+                .filter(question -> !existingQuestions.contains(question.getQuestion()))
+                .toList();
+        if (!sampleQuestions.isEmpty()) {
+            progress.addTotal(sampleQuestions.size());
+            sampleQuestionService.addSampleQuestions(orgId, sampleQuestions);
+            progress.succeeded(sampleQuestions.size());
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.ase.angelos_kb_backend.service;
+
+import com.ase.angelos_kb_backend.model.IngestionJob;
+import com.ase.angelos_kb_backend.util.JobType;
+
+/**
+ * Executes the jobs of one type. Jobs that were interrupted by a restart are run again from the start,
+ * so handlers must skip the work that was already done.
+ */
+public interface JobHandler {
+
+    JobType getType();
+
+    void run(IngestionJob job, JobProgress progress) throws Exception;
+}
@@ -0,0 +1,13 @@
+package com.ase.angelos_kb_backend.service;
+
+/**
+ * Receives the per-item progress of a long running operation, e.g. of an ingestion job.
+ */
+public interface JobProgress {
+
+    void addTotal(int items);
+
+    void succeeded(int items);
+
+    void failed(String item, String error);
+}
@@ -0,0 +1,336 @@
+package com.ase.angelos_kb_backend.service;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.ase.angelos_kb_backend.dto.JobDTO;
+import com.ase.angelos_kb_backend.exception.ResourceNotFoundException;
+import com.ase.angelos_kb_backend.model.IngestionJob;
+import com.ase.angelos_kb_backend.repository.IngestionJobRepository;
+import com.ase.angelos_kb_backend.util.JobRequest;
+import com.ase.angelos_kb_backend.util.JobStatus;
+import com.ase.angelos_kb_backend.util.JobType;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Runs long ingestion work in the background. Jobs are stored before they are queued and executed by a small
+ * worker pool, their progress is written back periodically and pushed to subscribers as server-sent events.
+ * Jobs that were queued when the application stopped, or running on an instance that stopped sending heartbeats,
+ * are run again on startup. A job is claimed with a conditional update, so only one instance runs it.
+ */
+@Service
+public class JobService {
+
+    private static final int MAX_ERRORS = 100;
+    private static final TypeReference<List<String>> ERRORS = new TypeReference<>() {};
+
+    private final IngestionJobRepository jobRepository;
+    private final ObjectMapper objectMapper;
+    private final Map<JobType, JobHandler> handlers = new EnumMap<>(JobType.class);
+    private final ExecutorService workers;
+    private final ConcurrentHashMap<UUID, List<SseEmitter>> subscribers = new ConcurrentHashMap<>();
+    private final Set<UUID> running = ConcurrentHashMap.newKeySet();
+
+    @Value("${app.jobs.sse-timeout-ms:1800000}")
+    private long sseTimeoutMs;
+
+    @Value("${app.jobs.progress-interval-ms:1000}")
+    private long progressIntervalMs;
+
+    @Value("${app.jobs.stale-after-ms:120000}")
+    private long staleAfterMs;
+
+    public JobService(IngestionJobRepository jobRepository, ObjectMapper objectMapper, List<JobHandler> handlers,
+                      @Value("${app.jobs.workers:2}") int workers) {
+        this.jobRepository = jobRepository;
+        this.objectMapper = objectMapper;
+        for (JobHandler handler : handlers) {
+            this.handlers.put(handler.getType(), handler);
+        }
+        this.workers = Executors.newFixedThreadPool(workers);
+    }
+
+    /**
+     * Stores a new job and queues it for execution.
+     */
+    public JobDTO enqueue(JobType type, Long orgId, Object payload) {
+        IngestionJob job = new IngestionJob();
+        job.setType(type);
+        job.setStatus(JobStatus.QUEUED);
+        job.setOrgId(orgId);
+        job.setErrors("[]");
+        try {
+            job.setPayload(objectMapper.writeValueAsString(payload));
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to serialize job payload", e);
+        }
+
+        IngestionJob savedJob = jobRepository.save(job);
+        workers.submit(() -> run(savedJob.getId()));
+        return convertToDto(savedJob);
+    }
+
+    /**
+     * Queues a job requested by a service the job handlers depend on. Requests may be published after a
+     * transaction committed, so the job must not join it; it is stored and committed before it is queued.
+     */
+    @EventListener
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void onJobRequest(JobRequest request) {
+        enqueue(request.type(), request.orgId(), request.payload());
+    }
+
+    /**
+     * Get a job of the organisation, system admins can see all jobs.
+     */
+    public JobDTO getJob(UUID jobId, Long orgId, boolean isSystemAdmin) {
+        return convertToDto(findAccessibleJob(jobId, orgId, isSystemAdmin));
+    }
+
+    /**
+     * Streams the progress of a job as server-sent events until it is finished.
+     */
+    public SseEmitter subscribe(UUID jobId, Long orgId, boolean isSystemAdmin) {
+        findAccessibleJob(jobId, orgId, isSystemAdmin);
+        SseEmitter emitter = new SseEmitter(sseTimeoutMs);
+        List<SseEmitter> jobSubscribers = subscribers.computeIfAbsent(jobId, id -> new CopyOnWriteArrayList<>());
+        jobSubscribers.add(emitter);
+        emitter.onCompletion(() -> jobSubscribers.remove(emitter));
+        emitter.onTimeout(() -> jobSubscribers.remove(emitter));
+        emitter.onError(e -> jobSubscribers.remove(emitter));
+
+        // Read the job after subscribing, so a job finishing in between is not missed
+        IngestionJob job = jobRepository.findById(jobId)
+                .orElseThrow(() -> new ResourceNotFoundException("Job not found with id " + jobId));
+        send(emitter, convertToDto(job));
+        if (isFinished(job)) {
+            subscribers.remove(jobId, jobSubscribers);
+            emitter.complete();
+        }
+        return emitter;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeJobs() {
+        List<IngestionJob> unfinished = jobRepository.findResumable(staleBefore());
+        for (IngestionJob job : unfinished) {
+            workers.submit(() -> run(job.getId()));
+        }
+        if (!unfinished.isEmpty()) {
+            System.out.println("Resuming " + unfinished.size() + " unfinished jobs.");
+        }
+    }
+
+    /**
+     * Marks the jobs running on this instance as alive, so that other instances do not reclaim them.
+     */
+    @Scheduled(fixedDelayString = "${app.jobs.heartbeat-interval-ms:30000}")
+    public void heartbeat() {
+        if (!running.isEmpty()) {
+            jobRepository.touch(List.copyOf(running), LocalDateTime.now());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    private void run(UUID jobId) {
+        // Another instance may have claimed the job in the meantime
+        if (jobRepository.claim(jobId, LocalDateTime.now(), staleBefore()) == 0) {
+            return;
+        }
+        IngestionJob job = jobRepository.findById(jobId).orElse(null);
+        if (job == null) {
+            return;
+        }
+
+        running.add(jobId);
+        try {
+            execute(job);
+        } finally {
+            running.remove(jobId);
+        }
+    }
+
+    private void execute(IngestionJob job) {
+        UUID jobId = job.getId();
+        job.setStartedAt(LocalDateTime.now());
+        job.setTotalItems(0);
+        job.setProcessedItems(0);
+        job.setFailedItems(0);
+        job.setErrors("[]");
+        Tracker tracker = new Tracker(jobRepository.save(job));
+        try {
+            JobHandler handler = handlers.get(job.getType());
+            if (handler == null) {
+                throw new IllegalStateException("No handler for job type " + job.getType());
+            }
+            handler.run(tracker.job, tracker);
+            tracker.finish(JobStatus.SUCCEEDED, null);
+        } catch (Exception e) {
+            System.err.println("Job " + jobId + " failed: " + e.getMessage());
+            tracker.finish(JobStatus.FAILED, e.getMessage());
+        }
+    }
+
+    private LocalDateTime staleBefore() {
+        return LocalDateTime.now().minus(staleAfterMs, ChronoUnit.MILLIS);
+    }
+
+    private IngestionJob findAccessibleJob(UUID jobId, Long orgId, boolean isSystemAdmin) {
+        IngestionJob job = jobRepository.findById(jobId)
+                .orElseThrow(() -> new ResourceNotFoundException("Job not found with id " + jobId));
+        if (!isSystemAdmin && !Objects.equals(job.getOrgId(), orgId)) {
+            throw new ResourceNotFoundException("Job not found with id " + jobId);
+        }
+        return job;
+    }
+
+    private boolean isFinished(IngestionJob job) {
+        return job.getStatus() == JobStatus.SUCCEEDED || job.getStatus() == JobStatus.FAILED;
+    }
+
+    private void publish(JobDTO dto, boolean finished) {
+        UUID jobId = UUID.fromString(dto.getId());
+        List<SseEmitter> jobSubscribers = finished ? subscribers.remove(jobId) : subscribers.get(jobId);
+        if (jobSubscribers == null) {
+            return;
+        }
+        for (SseEmitter emitter : jobSubscribers) {
+            send(emitter, dto);
+            if (finished) {
+                emitter.complete();
+            }
+        }
+    }
+
+    private void send(SseEmitter emitter, JobDTO dto) {
+        try {
+            emitter.send(SseEmitter.event().name("progress").data(dto));
+        } catch (IOException | IllegalStateException e) {
+            // The client went away, the emitter removes itself
+            emitter.completeWithError(e);
+        }
+    }
+
+    private JobDTO convertToDto(IngestionJob job) {
+        List<String> errors;
+        try {
+            errors = job.getErrors() != null ? objectMapper.readValue(job.getErrors(), ERRORS) : List.of();
+        } catch (JsonProcessingException e) {
+            errors = List.of();
+        }
+        return JobDTO.builder()
+                .id(job.getId().toString())
+                .type(job.getType())
+                .status(job.getStatus())
+                .totalItems(job.getTotalItems())
+                .processedItems(job.getProcessedItems())
+                .failedItems(job.getFailedItems())
+                .errors(errors)
+                .createdAt(job.getCreatedAt())
+                .startedAt(job.getStartedAt())
+                .finishedAt(job.getFinishedAt())
+                .build();
+    }
+
+    /**
+     * Collects the progress of a running job, writes it to the database at most every progressIntervalMs.
+     */
+    private class Tracker implements JobProgress {
+
+        private IngestionJob job;
+        private int total;
+        private int processed;
+        private int failed;
+        private final List<String> errors = new ArrayList<>();
+        private long lastFlush = System.currentTimeMillis();
+
+        Tracker(IngestionJob job) {
+            this.job = job;
+        }
+
+        @Override
+        public synchronized void addTotal(int items) {
+            total += items;
+            flush();
+        }
+
+        @Override
+        public synchronized void succeeded(int items) {
+            processed += items;
+            flush();
+        }
+
+        @Override
+        public synchronized void failed(String item, String error) {
+            processed++;
+            failed++;
+            if (errors.size() < MAX_ERRORS) {
+                errors.add(item + ": " + error);
+            }
+            flush();
+        }
+
+        synchronized void finish(JobStatus status, String error) {
+            if (error != null && errors.size() < MAX_ERRORS) {
+                errors.add(error);
+            }
+            write(status);
+        }
+
+        private void flush() {
+            long now = System.currentTimeMillis();
+            if (now - lastFlush < progressIntervalMs) {
+                return;
+            }
+            lastFlush = now;
+            write(null);
+        }
+
+        private void write(JobStatus finalStatus) {
+            job.setTotalItems(total);
+            job.setProcessedItems(processed);
+            job.setFailedItems(failed);
+            job.setHeartbeatAt(LocalDateTime.now());
+            try {
+                job.setErrors(objectMapper.writeValueAsString(errors));
+            } catch (JsonProcessingException e) {
+                job.setErrors("[]");
+            }
+            if (finalStatus != null) {
+                job.setFinishedAt(LocalDateTime.now());
+                job.setStatus(finalStatus);
+            }
+            job = jobRepository.save(job);
+            publish(convertToDto(job), isFinished(job));
+        }
+    }
+}
@@ -0,0 +1,428 @@
+package com.ase.angelos_kb_backend.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.ase.angelos_kb_backend.dto.DuplicateReportDTO;
+import com.ase.angelos_kb_backend.dto.ResendJobPayload;
+import com.ase.angelos_kb_backend.model.ContentChunk;
+import com.ase.angelos_kb_backend.model.DocumentContent;
+import com.ase.angelos_kb_backend.model.WebsiteContent;
+import com.ase.angelos_kb_backend.repository.ContentChunkRepository;
+import com.ase.angelos_kb_backend.repository.DocumentContentRepository;
+import com.ase.angelos_kb_backend.repository.SourceOrgView;
+import com.ase.angelos_kb_backend.repository.WebsiteContentRepository;
+import com.ase.angelos_kb_backend.util.JobRequest;
+import com.ase.angelos_kb_backend.util.JobType;
+import com.ase.angelos_kb_backend.util.SimHash;
+import com.ase.angelos_kb_backend.util.SimHashIndex;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Finds near-duplicate sections across the websites and documents of an organisation, such as boilerplate blocks
+ * shared by many pages, regulations copied between pages or the same page added for several study programs. Every
+ * chunk sent to Angelos is fingerprinted with a {@link SimHash}; the fingerprints are stored with the chunks and
+ * kept in one in-memory {@link SimHashIndex} per organisation, which is loaded from the database at startup.
+ * Changes become visible to other transactions once they commit, chunks of the same transaction are compared with
+ * each other right away. The index only sees the changes made by this instance, so the duplicate report is read
+ * from the stored fingerprints instead, and suppression refuses to start with the Postgres session store, which is
+ * only configured when several instances run.
+ *
+ * Sections with a near duplicate in another source are counted as content.duplicates with scope=section, sources
+ * whose sections are mostly duplicates with scope=page. With app.dedup.suppress such sections are not sent to
+ * Angelos at all, the source that sent them first keeps them. Suppressed sections are indexed separately; when no
+ * source keeps them any more, their sources are sent again in full by a {@link JobType#RESEND_CONTENT} job.
+ */
+@Service
+public class NearDuplicateService {
+
+    private static final int LOAD_PAGE_SIZE = 10000;
+
+    private final ContentChunkRepository contentChunkRepository;
+    private final WebsiteContentRepository websiteContentRepository;
+    private final DocumentContentRepository documentContentRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int maxDistance;
+    // Guarded by itself, as is sourceOrgs
+    private final Map<Long, OrgSections> orgs = new HashMap<>();
+    private final Map<UUID, Long> sourceOrgs = new HashMap<>();
+    private final Counter duplicateSections;
+    private final Counter duplicatePages;
+    private final Counter suppressedSections;
+
+    @Value("${app.dedup.enabled:true}")
+    private boolean enabled;
+
+    // Sources are near duplicates of another once this share of their sections is
+    @Value("${app.dedup.page-ratio:0.8}")
+    private double pageRatio;
+
+    @Value("${app.dedup.suppress:false}")
+    private boolean suppress;
+
+    @Value("${app.chat.session.store:memory}")
+    private String sessionStore;
+
+    public NearDuplicateService(ContentChunkRepository contentChunkRepository,
+                                WebsiteContentRepository websiteContentRepository,
+                                DocumentContentRepository documentContentRepository,
+                                ApplicationEventPublisher eventPublisher,
+                                MeterRegistry meterRegistry,
+                                @Value("${app.dedup.max-distance:6}") int maxDistance) {
+        if (maxDistance < 0 || maxDistance >= SimHash.BANDS) {
+            throw new IllegalArgumentException("The distance must be between 0 and " + (SimHash.BANDS - 1));
+        }
+        this.contentChunkRepository = contentChunkRepository;
+        this.websiteContentRepository = websiteContentRepository;
+        this.documentContentRepository = documentContentRepository;
+        this.eventPublisher = eventPublisher;
+        this.maxDistance = maxDistance;
+        this.duplicateSections = meterRegistry.counter("content.duplicates", "scope", "section");
+        this.duplicatePages = meterRegistry.counter("content.duplicates", "scope", "page");
+        this.suppressedSections = meterRegistry.counter("content.duplicates.suppressed");
+    }
+
+    @PostConstruct
+    void checkSingleInstance() {
+        if (enabled && suppress && "postgres".equals(sessionStore)) {
+            throw new IllegalStateException("app.dedup.suppress decides from the index of one instance, it cannot be used "
+                    + "with app.chat.session.store=postgres, which is meant for running several instances");
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadIndex() {
+        if (!enabled) {
+            return;
+        }
+        Stored stored = loadStored(null);
+        Map<UUID, Long> orgIds = stored.orgIds();
+        Map<UUID, List<SimHashIndex.Section>> kept = stored.kept();
+        Map<UUID, List<SimHashIndex.Section>> suppressed = stored.suppressed();
+
+        synchronized (orgs) {
+            kept.forEach((sourceId, sections) -> {
+                sourceOrgs.put(sourceId, orgIds.get(sourceId));
+                sections(orgIds.get(sourceId)).kept().put(sourceId, sections);
+            });
+            suppressed.forEach((sourceId, sections) -> {
+                sourceOrgs.put(sourceId, orgIds.get(sourceId));
+                sections(orgIds.get(sourceId)).suppressed().put(sourceId, sections);
+            });
+            int count = orgs.values().stream().mapToInt(org -> org.kept().size() + org.suppressed().size()).sum();
+            System.out.println("Loaded " + count + " section fingerprints of " + sourceOrgs.size() + " sources.");
+        }
+    }
+
+    /**
+     * The fingerprint of the text of a chunk, empty if detection is disabled or the text is too short.
+     */
+    public OptionalLong fingerprint(String text) {
+        return enabled ? SimHash.fingerprint(text) : OptionalLong.empty();
+    }
+
+    /**
+     * Whether a section with the fingerprint is sent by another source of the organisation already, including
+     * sources recorded earlier in the current transaction.
+     */
+    public boolean hasNearDuplicate(UUID sourceId, Long orgId, long fingerprint) {
+        Pending pending = pending(false);
+        if (pending != null && !pending.kept(orgId).near(sourceId, fingerprint).isEmpty()) {
+            return true;
+        }
+        synchronized (orgs) {
+            OrgSections org = orgs.get(orgId);
+            if (org == null) {
+                return false;
+            }
+            // Sources changed in the current transaction are only compared in their new state
+            return org.kept().near(sourceId, fingerprint).stream()
+                    .anyMatch(section -> pending == null || !pending.changes.containsKey(section.sourceId()));
+        }
+    }
+
+    /**
+     * Whether sections with a near duplicate in another source are left out of the content sent to Angelos.
+     */
+    public boolean isSuppressing() {
+        return enabled && suppress;
+    }
+
+    /**
+     * Counts the near-duplicate sections found in the content of a source and indexes the chunks stored for it,
+     * for the current transaction right away and for all others once it commits.
+     *
+     * @param chunks     the stored chunks, suppressed ones included
+     * @param duplicates number of sections with a near duplicate in another source, suppressed ones included
+     * @param sections   number of sections of the content before suppression
+     */
+    public void record(UUID sourceId, Long orgId, List<ContentChunk> chunks, int duplicates, int sections) {
+        if (!enabled) {
+            return;
+        }
+        if (duplicates > 0) {
+            duplicateSections.increment(duplicates);
+            if (isSuppressing()) {
+                suppressedSections.increment(duplicates);
+            }
+            if (duplicates >= pageRatio * sections) {
+                duplicatePages.increment();
+                System.out.println("Content of " + sourceId + " is a near duplicate: " + duplicates + " of "
+                        + sections + " sections are sent by other sources" + (isSuppressing() ? ", suppressed them." : "."));
+            }
+        }
+
+        List<SimHashIndex.Section> kept = new ArrayList<>();
+        List<SimHashIndex.Section> suppressed = new ArrayList<>();
+        for (ContentChunk chunk : chunks) {
+            if (chunk.getSimhash() != null) {
+                (chunk.isSuppressed() ? suppressed : kept).add(new SimHashIndex.Section(sourceId, chunk.getPosition(), chunk.getSimhash()));
+            }
+        }
+        Pending pending = pending(true);
+        pending.changes.put(sourceId, new Change(orgId, kept, suppressed));
+        pending.remove(sourceId);
+        pending.kept(orgId).put(sourceId, kept);
+        pending.applyUnlessTransactional();
+    }
+
+    /**
+     * Drops the sections of deleted sources from the index once the transaction commits.
+     */
+    public void remove(List<UUID> sourceIds) {
+        if (!enabled) {
+            return;
+        }
+        Pending pending = pending(true);
+        for (UUID sourceId : sourceIds) {
+            pending.changes.put(sourceId, new Change(null, List.of(), List.of()));
+            pending.remove(sourceId);
+        }
+        pending.applyUnlessTransactional();
+    }
+
+    /**
+     * Pairs of sources of the same organisation sharing near-duplicate sections, the sources with the highest
+     * share of duplicated sections first.
+     */
+    public List<DuplicateReportDTO> report(Long orgId, int limit) {
+        // Read from the stored chunks, the index of this instance may lag behind the changes made by others
+        Stored stored = loadStored(orgId);
+        Map<Long, SimHashIndex> indexes = new HashMap<>();
+        stored.kept().forEach((sourceId, sections) -> indexes
+                .computeIfAbsent(stored.orgIds().get(sourceId), id -> new SimHashIndex(maxDistance))
+                .put(sourceId, sections));
+        List<SimHashIndex.Overlap> overlaps = new ArrayList<>();
+        indexes.values().forEach(index -> overlaps.addAll(index.overlaps()));
+
+        Set<UUID> ids = new HashSet<>();
+        overlaps.forEach(overlap -> {
+            ids.add(overlap.sourceId());
+            ids.add(overlap.otherId());
+        });
+        Map<UUID, Source> sources = new HashMap<>();
+        for (WebsiteContent website : websiteContentRepository.findAllById(ids)) {
+            sources.put(website.getId(), new Source(website.getTitle(), website.getLink(), website.getOrganisation().getOrgID()));
+        }
+        for (DocumentContent document : documentContentRepository.findAllById(ids)) {
+            sources.put(document.getDocID(), new Source(document.getTitle(), document.getOriginalFilename(), document.getOrganisation().getOrgID()));
+        }
+
+        return overlaps.stream()
+                .filter(overlap -> sources.containsKey(overlap.sourceId()) && sources.containsKey(overlap.otherId()))
+                .sorted(Comparator.comparingDouble((SimHashIndex.Overlap overlap) -> (double) overlap.sharedSections() / overlap.sections())
+                        .thenComparingInt(SimHashIndex.Overlap::sharedSections)
+                        .reversed())
+                .limit(limit)
+                .map(overlap -> {
+                    Source source = sources.get(overlap.sourceId());
+                    Source other = sources.get(overlap.otherId());
+                    return DuplicateReportDTO.builder()
+                            .sourceId(overlap.sourceId().toString())
+                            .sourceTitle(source.title())
+                            .sourceLink(source.link())
+                            .duplicateOfId(overlap.otherId().toString())
+                            .duplicateOfTitle(other.title())
+                            .duplicateOfLink(other.link())
+                            .orgId(source.orgId())
+                            .sections(overlap.sections())
+                            .sharedSections(overlap.sharedSections())
+                            .nearDuplicatePage(overlap.sharedSections() >= pageRatio * overlap.sections())
+                            .build();
+                })
+                .toList();
+    }
+
+    /**
+     * Applies the changes of a committed transaction and requests a resend of the sources whose suppressed
+     * sections are no longer kept by any source.
+     */
+    private void apply(Map<UUID, Change> changes) {
+        Map<Long, Set<UUID>> released = new HashMap<>();
+        synchronized (orgs) {
+            // Sections that were kept before, suppressed sections near them may have lost their keeper
+            Map<Long, List<SimHashIndex.Section>> dropped = new HashMap<>();
+            changes.forEach((sourceId, change) -> {
+                Long previousOrg = sourceOrgs.remove(sourceId);
+                if (previousOrg != null) {
+                    OrgSections org = sections(previousOrg);
+                    dropped.computeIfAbsent(previousOrg, id -> new ArrayList<>()).addAll(org.kept().sections(sourceId));
+                    org.kept().remove(sourceId);
+                    org.suppressed().remove(sourceId);
+                }
+                if (change.orgId() != null) {
+                    sourceOrgs.put(sourceId, change.orgId());
+                    OrgSections org = sections(change.orgId());
+                    org.kept().put(sourceId, change.kept());
+                    org.suppressed().put(sourceId, change.suppressed());
+                }
+            });
+
+            dropped.forEach((orgId, sections) -> {
+                OrgSections org = orgs.get(orgId);
+                for (SimHashIndex.Section section : sections) {
+                    for (SimHashIndex.Section match : org.suppressed().near(section.sourceId(), section.fingerprint())) {
+                        if (org.kept().near(match.sourceId(), match.fingerprint()).isEmpty()) {
+                            released.computeIfAbsent(orgId, id -> new LinkedHashSet<>()).add(match.sourceId());
+                        }
+                    }
+                }
+            });
+        }
+
+        released.forEach((orgId, sourceIds) -> {
+            System.out.println("Suppressed sections of " + sourceIds.size() + " sources of organisation " + orgId
+                    + " are no longer sent by another source, sending them again.");
+            eventPublisher.publishEvent(new JobRequest(JobType.RESEND_CONTENT, orgId, new ResendJobPayload(List.copyOf(sourceIds))));
+        });
+    }
+
+    /**
+     * The fingerprinted chunks stored for the sources of an organisation, or of all organisations if null.
+     */
+    private Stored loadStored(Long orgId) {
+        Map<UUID, Long> orgIds = new HashMap<>();
+        for (SourceOrgView source : websiteContentRepository.findOrgIds()) {
+            if (orgId == null || orgId.equals(source.getOrgId())) {
+                orgIds.put(source.getId(), source.getOrgId());
+            }
+        }
+        for (SourceOrgView source : documentContentRepository.findOrgIds()) {
+            if (orgId == null || orgId.equals(source.getOrgId())) {
+                orgIds.put(source.getId(), source.getOrgId());
+            }
+        }
+
+        Map<UUID, List<SimHashIndex.Section>> kept = new HashMap<>();
+        Map<UUID, List<SimHashIndex.Section>> suppressed = new HashMap<>();
+        long after = 0;
+        List<ContentChunk> page;
+        do {
+            page = contentChunkRepository.findFingerprinted(after, PageRequest.of(0, LOAD_PAGE_SIZE));
+            for (ContentChunk chunk : page) {
+                // Chunks of sources deleted without their chunks belong to no organisation
+                if (orgIds.containsKey(chunk.getSourceId())) {
+                    (chunk.isSuppressed() ? suppressed : kept).computeIfAbsent(chunk.getSourceId(), id -> new ArrayList<>())
+                            .add(new SimHashIndex.Section(chunk.getSourceId(), chunk.getPosition(), chunk.getSimhash()));
+                }
+                after = chunk.getId();
+            }
+        } while (page.size() == LOAD_PAGE_SIZE);
+        return new Stored(orgIds, kept, suppressed);
+    }
+
+    // Call with the lock held
+    private OrgSections sections(Long orgId) {
+        return orgs.computeIfAbsent(orgId, id -> new OrgSections(new SimHashIndex(maxDistance), new SimHashIndex(maxDistance)));
+    }
+
+    // The changes of the current transaction, bound to it on first use
+    private Pending pending(boolean create) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return create ? new Pending(false) : null;
+        }
+        Pending pending = (Pending) TransactionSynchronizationManager.getResource(this);
+        if (pending == null && create) {
+            pending = new Pending(true);
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        return pending;
+    }
+
+    /**
+     * Sections of a source as they will be after the transaction.
+     */
+    private record Change(Long orgId, List<SimHashIndex.Section> kept, List<SimHashIndex.Section> suppressed) {
+    }
+
+    private record OrgSections(SimHashIndex kept, SimHashIndex suppressed) {
+    }
+
+    private record Stored(Map<UUID, Long> orgIds, Map<UUID, List<SimHashIndex.Section>> kept,
+                          Map<UUID, List<SimHashIndex.Section>> suppressed) {
+    }
+
+    /**
+     * Changes of one transaction, with the kept sections indexed so the next sources of the transaction are
+     * compared with them. Only used by the thread of the transaction.
+     */
+    private class Pending implements TransactionSynchronization {
+
+        private final boolean transactional;
+        private final Map<UUID, Change> changes = new LinkedHashMap<>();
+        private final Map<Long, SimHashIndex> kept = new HashMap<>();
+
+        Pending(boolean transactional) {
+            this.transactional = transactional;
+        }
+
+        SimHashIndex kept(Long orgId) {
+            return kept.computeIfAbsent(orgId, id -> new SimHashIndex(maxDistance));
+        }
+
+        void remove(UUID sourceId) {
+            kept.values().forEach(index -> index.remove(sourceId));
+        }
+
+        void applyUnlessTransactional() {
+            if (!transactional) {
+                apply(changes);
+            }
+        }
+
+        @Override
+        public void afterCommit() {
+            apply(changes);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(NearDuplicateService.this);
+        }
+    }
+
+    private record Source(String title, String link, Long orgId) {
+    }
+}
@@ -132,6 +132,31 @@ public class OrganisationService {
         return convertToDto(saved);
     }
 
+    public Integer getChatRequestsPerMinute(Long orgId) {
+        return organisationRepository.findById(orgId)
+                .map(Organisation::getChatRequestsPerMinute)
+                .orElse(null);
+    }
+
+    /**
+     * Sets the rate limit of the organisation. A null limit restores the default.
+     */
+    public OrganisationDTO setChatRequestsPerMinute(Long orgId, Integer requestsPerMinute) {
+        if (requestsPerMinute != null && requestsPerMinute < 1) {
+            throw new IllegalArgumentException("The rate limit must be at least one request per minute.");
+        }
+        Optional<Organisation> optionalOrg = organisationRepository.findById(orgId);
+        if (optionalOrg.isEmpty()) {
+            return null;
+        }
+
+        Organisation org = optionalOrg.get();
+        org.setChatRequestsPerMinute(requestsPerMinute);
+
+        Organisation saved = organisationRepository.save(org);
+        return convertToDto(saved);
+    }
+
     private OrganisationDTO convertToDto(Organisation organisation) {
         OrganisationDTO dto = new OrganisationDTO();
         dto.setId(organisation.getOrgID());
@@ -0,0 +1,325 @@
+package com.ase.angelos_kb_backend.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.ase.angelos_kb_backend.dto.angelos.AngelosAddDocumentRequest;
+import com.ase.angelos_kb_backend.dto.angelos.AngelosAddSampleQuestionRequest;
+import com.ase.angelos_kb_backend.dto.angelos.AngelosAddWebsiteRequest;
+import com.ase.angelos_kb_backend.dto.angelos.AngelosEditDocumentRequest;
+import com.ase.angelos_kb_backend.dto.angelos.AngelosEditSampleQuestionRequest;
+import com.ase.angelos_kb_backend.dto.angelos.AngelosEditWebsiteRequest;
+import com.ase.angelos_kb_backend.model.OutboxEvent;
+import com.ase.angelos_kb_backend.repository.OutboxEventRepository;
+import com.ase.angelos_kb_backend.util.ContentRefresh;
+import com.ase.angelos_kb_backend.util.OutboxAggregate;
+import com.ase.angelos_kb_backend.util.OutboxCoalescer;
+import com.ase.angelos_kb_backend.util.OutboxOperation;
+import com.ase.angelos_kb_backend.util.OutboxStatus;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Delivers the events of the outbox to Angelos. Each run takes the due events, coalesces the events of every
+ * item into the fewest requests and sends adds and deletes of all users together through the batch endpoints.
+ * Every request carries an Idempotency-Key derived from the events it covers.
+ *
+ * Events of an item are only delivered in order: while an older event waits for its retry, newer ones wait too.
+ * Failed events are retried with exponential backoff and marked FAILED after the maximum number of attempts,
+ * newer events of the item are then marked BLOCKED until a reconciliation resends the item. The stored chunks
+ * of content that failed for good are dropped, so the next sync of the source sends it in full.
+ * Cached chat answers of an organisation are dropped once its changes have reached Angelos.
+ *
+ * Several instances may dispatch at once. An instance claims an item by moving the next attempt of its oldest
+ * event behind a lease with a conditional update, the other instances then see the item as not due.
+ *
+ * Results are published as outbox.events with result=delivered, retried, failed or blocked.
+ */
+@Component
+public class OutboxDispatcher {
+
+    // Deletes go first, so an item that was deleted and added again ends up added
+    private static final List<OutboxOperation> DELIVERY_ORDER = List.of(
+            OutboxOperation.DELETE, OutboxOperation.ADD, OutboxOperation.UPDATE, OutboxOperation.REFRESH);
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final AngelosService angelosService;
+    private final ContentSyncService contentSyncService;
+    private final ChatAnswerCache chatAnswerCache;
+    private final ObjectMapper objectMapper;
+    private final Counter delivered;
+    private final Counter retried;
+    private final Counter failed;
+    private final Counter blocked;
+
+    @Value("${app.outbox.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.outbox.max-request-items:100}")
+    private int maxRequestItems;
+
+    @Value("${app.outbox.max-attempts:10}")
+    private int maxAttempts;
+
+    @Value("${app.outbox.initial-backoff-ms:5000}")
+    private long initialBackoffMs;
+
+    @Value("${app.outbox.max-backoff-ms:600000}")
+    private long maxBackoffMs;
+
+    @Value("${app.outbox.lease-ms:300000}")
+    private long leaseMs;
+
+    public OutboxDispatcher(OutboxEventRepository outboxEventRepository, AngelosService angelosService,
+                            ContentSyncService contentSyncService, ChatAnswerCache chatAnswerCache,
+                            ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.angelosService = angelosService;
+        this.contentSyncService = contentSyncService;
+        this.chatAnswerCache = chatAnswerCache;
+        this.objectMapper = objectMapper;
+        this.delivered = meterRegistry.counter("outbox.events", "result", "delivered");
+        this.retried = meterRegistry.counter("outbox.events", "result", "retried");
+        this.failed = meterRegistry.counter("outbox.events", "result", "failed");
+        this.blocked = meterRegistry.counter("outbox.events", "result", "blocked");
+    }
+
+    @Scheduled(initialDelayString = "${app.outbox.initial-delay-ms:5000}", fixedDelayString = "${app.outbox.poll-interval-ms:1000}")
+    public void dispatch() {
+        LocalDateTime now = LocalDateTime.now();
+        List<OutboxEvent> due = outboxEventRepository.findByStatusAndNextAttemptAtLessThanEqualOrderById(
+                OutboxStatus.PENDING, now, PageRequest.of(0, batchSize));
+        if (due.isEmpty()) {
+            return;
+        }
+
+        // Load all pending events of the due items, including the ones that are not due themselves
+        Set<String> aggregateIds = new HashSet<>();
+        due.forEach(event -> aggregateIds.add(event.getAggregateId()));
+        Map<String, List<OutboxEvent>> eventsByItem = new LinkedHashMap<>();
+        for (OutboxEvent event : outboxEventRepository.findByStatusAndAggregateIdInOrderById(OutboxStatus.PENDING, aggregateIds)) {
+            eventsByItem.computeIfAbsent(event.getAggregateType() + ":" + event.getAggregateId(), key -> new ArrayList<>()).add(event);
+        }
+
+        Map<String, Long> failedEvents = new HashMap<>();
+        for (OutboxEvent event : outboxEventRepository.findByStatusAndAggregateIdInOrderById(OutboxStatus.FAILED, aggregateIds)) {
+            failedEvents.putIfAbsent(event.getAggregateType() + ":" + event.getAggregateId(), event.getId());
+        }
+
+        List<Item> items = new ArrayList<>();
+        for (Map.Entry<String, List<OutboxEvent>> entry : eventsByItem.entrySet()) {
+            List<OutboxEvent> events = entry.getValue();
+            Long failedEvent = failedEvents.get(entry.getKey());
+            if (failedEvent != null) {
+                block(events, failedEvent);
+                continue;
+            }
+            if (events.stream().anyMatch(event -> event.getNextAttemptAt().isAfter(now))
+                    || outboxEventRepository.claim(events.get(0).getId(), now, now.plusNanos(leaseMs * 1_000_000)) == 0) {
+                continue;
+            }
+            Item item = new Item(events);
+            try {
+                item.requests.putAll(OutboxCoalescer.coalesce(events, objectMapper));
+            } catch (RuntimeException e) {
+                item.error = e.getMessage();
+            }
+            items.add(item);
+        }
+
+        for (OutboxOperation operation : DELIVERY_ORDER) {
+            Map<OutboxAggregate, List<Item>> pending = new EnumMap<>(OutboxAggregate.class);
+            for (Item item : items) {
+                if (item.error == null && item.requests.containsKey(operation)) {
+                    pending.computeIfAbsent(item.type(), type -> new ArrayList<>()).add(item);
+                }
+            }
+            pending.forEach((type, typeItems) -> deliver(type, operation, typeItems));
+        }
+
+        finish(items, now);
+    }
+
+    // Delivering the events would apply them without the change that failed before them
+    private void block(List<OutboxEvent> events, Long failedEvent) {
+        for (OutboxEvent event : events) {
+            event.setStatus(OutboxStatus.BLOCKED);
+            event.setLastError("Held back behind failed event " + failedEvent);
+        }
+        outboxEventRepository.saveAll(events);
+        blocked.increment(events.size());
+        OutboxEvent first = events.get(0);
+        System.err.println("Holding back " + events.size() + " events of " + first.getAggregateType() + " "
+                + first.getAggregateId() + " behind failed event " + failedEvent);
+    }
+
+    private void deliver(OutboxAggregate type, OutboxOperation operation, List<Item> items) {
+        switch (operation) {
+            case DELETE -> sendInBatches(items, batch -> switch (type) {
+                case WEBSITE -> angelosService.sendWebsiteBatchDeleteRequest(ids(batch));
+                case DOCUMENT -> angelosService.sendDocumentBatchDeleteRequest(ids(batch));
+                case SAMPLE_QUESTION -> angelosService.sendSampleQuestionBatchDeleteRequest(ids(batch));
+            }, operation);
+            case ADD -> {
+                switch (type) {
+                    case WEBSITE -> sendInBatches(items, batch -> angelosService.sendBatchWebsiteAddRequest(
+                            bodies(batch, operation, AngelosAddWebsiteRequest.class)), operation);
+                    case SAMPLE_QUESTION -> sendInBatches(items, batch -> angelosService.sendBatchSampleQuestionAddRequest(
+                            bodies(batch, operation, AngelosAddSampleQuestionRequest.class)), operation);
+                    case DOCUMENT -> sendEach(items, operation, item -> angelosService.sendDocumentAddRequest(
+                            body(item, operation, AngelosAddDocumentRequest.class)));
+                }
+            }
+            case UPDATE -> sendEach(items, operation, item -> switch (type) {
+                case WEBSITE -> {
+                    AngelosEditWebsiteRequest body = body(item, operation, AngelosEditWebsiteRequest.class);
+                    yield angelosService.sendWebsiteUpdateRequest(item.id(), body.getTitle(), body.getStudyPrograms(), body.getOrgId());
+                }
+                case DOCUMENT -> angelosService.sendDocumentEditRequest(item.id(), body(item, operation, AngelosEditDocumentRequest.class));
+                case SAMPLE_QUESTION -> angelosService.sendSampleQuestionEditRequest(item.id(), body(item, operation, AngelosEditSampleQuestionRequest.class));
+            });
+            case REFRESH -> sendEach(items, operation, item ->
+                    contentSyncService.deliver(type, item.id(), body(item, operation, ContentRefresh.class)));
+        }
+    }
+
+    private void sendInBatches(List<Item> items, Function<List<Item>, Boolean> request, OutboxOperation operation) {
+        for (int from = 0; from < items.size(); from += maxRequestItems) {
+            List<Item> batch = items.subList(from, Math.min(from + maxRequestItems, items.size()));
+            List<String> keys = batch.stream().map(item -> item.key(operation)).toList();
+            String key = UUID.nameUUIDFromBytes(String.join(",", keys).getBytes(StandardCharsets.UTF_8)).toString();
+            send(batch, operation, key, () -> request.apply(batch));
+        }
+    }
+
+    private void sendEach(List<Item> items, OutboxOperation operation, Function<Item, Boolean> request) {
+        for (Item item : items) {
+            send(List.of(item), operation, item.key(operation), () -> request.apply(item));
+        }
+    }
+
+    private void send(List<Item> items, OutboxOperation operation, String key, BooleanSupplier request) {
+        String error;
+        try {
+            error = angelosService.withIdempotencyKey(key, request) ? null : "Angelos did not accept the " + operation + " request";
+        } catch (RuntimeException e) {
+            error = operation + " request failed: " + e.getMessage();
+        }
+        if (error != null) {
+            for (Item item : items) {
+                item.error = error;
+            }
+        }
+    }
+
+    private void finish(List<Item> items, LocalDateTime now) {
+        List<OutboxEvent> done = new ArrayList<>();
+        List<OutboxEvent> retry = new ArrayList<>();
+        Set<Long> changedOrgs = new HashSet<>();
+        for (Item item : items) {
+            if (item.error == null) {
+                done.addAll(item.events);
+                item.events.stream().map(OutboxEvent::getOrgId).filter(Objects::nonNull).forEach(changedOrgs::add);
+                continue;
+            }
+
+            // All events of an item are retried together, with the backoff of its oldest event
+            int attempts = item.events.stream().mapToInt(OutboxEvent::getAttempts).max().orElse(0) + 1;
+            boolean giveUp = attempts >= maxAttempts;
+            LocalDateTime nextAttempt = now.plusNanos(backoffMs(attempts) * 1_000_000);
+            for (OutboxEvent event : item.events) {
+                event.setAttempts(attempts);
+                event.setLastError(item.error);
+                event.setNextAttemptAt(nextAttempt);
+                if (giveUp) {
+                    event.setStatus(OutboxStatus.FAILED);
+                }
+            }
+            retry.addAll(item.events);
+            if (giveUp) {
+                forgetSentContent(item);
+                failed.increment(item.events.size());
+                System.err.println("Giving up on " + item.type() + " " + item.id() + " after " + attempts + " attempts: " + item.error);
+            } else {
+                retried.increment(item.events.size());
+            }
+        }
+
+        outboxEventRepository.deleteAll(done);
+        outboxEventRepository.saveAll(retry);
+        delivered.increment(done.size());
+        changedOrgs.forEach(chatAnswerCache::invalidateOrg);
+    }
+
+    // The stored chunks describe content Angelos never received, without them the next sync sends the full content
+    private void forgetSentContent(Item item) {
+        if (item.type() != OutboxAggregate.SAMPLE_QUESTION && item.events.stream()
+                .anyMatch(event -> event.getOperation() == OutboxOperation.ADD || event.getOperation() == OutboxOperation.REFRESH)) {
+            contentSyncService.deleteChunks(UUID.fromString(item.id()));
+        }
+    }
+
+    private long backoffMs(int attempts) {
+        long backoff = initialBackoffMs << Math.min(attempts - 1, 30);
+        return backoff > 0 ? Math.min(backoff, maxBackoffMs) : maxBackoffMs;
+    }
+
+    private <T> T body(Item item, OutboxOperation operation, Class<T> type) {
+        return objectMapper.convertValue(item.requests.get(operation), type);
+    }
+
+    private <T> List<T> bodies(List<Item> items, OutboxOperation operation, Class<T> type) {
+        return items.stream().map(item -> body(item, operation, type)).toList();
+    }
+
+    private static List<String> ids(List<Item> items) {
+        return items.stream().map(Item::id).toList();
+    }
+
+    /**
+     * The pending events of one website, document or sample question and the requests they coalesce to.
+     */
+    private static class Item {
+
+        final List<OutboxEvent> events;
+        final Map<OutboxOperation, JsonNode> requests = new EnumMap<>(OutboxOperation.class);
+        String error;
+
+        Item(List<OutboxEvent> events) {
+            this.events = events;
+        }
+
+        OutboxAggregate type() {
+            return events.get(0).getAggregateType();
+        }
+
+        String id() {
+            return events.get(0).getAggregateId();
+        }
+
+        // Stable as long as no new event is added for the item, so a retried request keeps its key
+        String key(OutboxOperation operation) {
+            return "outbox-" + events.get(events.size() - 1).getId() + "-" + operation.name().toLowerCase();
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.ase.angelos_kb_backend.service;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.ase.angelos_kb_backend.model.OutboxEvent;
+import com.ase.angelos_kb_backend.repository.OutboxEventRepository;
+import com.ase.angelos_kb_backend.util.OutboxAggregate;
+import com.ase.angelos_kb_backend.util.OutboxOperation;
+import com.ase.angelos_kb_backend.util.OutboxStatus;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Records changes of the knowledge base that have to be sent to Angelos. Events are only written as part of
+ * the transaction that changes the data, so they are committed or rolled back together with it and the
+ * {@link OutboxDispatcher} delivers them afterwards.
+ */
+@Service
+public class OutboxService {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
+
+    public OutboxService(OutboxEventRepository outboxEventRepository, ObjectMapper objectMapper) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Records a change of a website, document or sample question with the Angelos request body as payload.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(OutboxAggregate aggregateType, String aggregateId, OutboxOperation operation, Long orgId, Object payload) {
+        OutboxEvent event = new OutboxEvent();
+        event.setAggregateType(aggregateType);
+        event.setAggregateId(aggregateId);
+        event.setOperation(operation);
+        event.setOrgId(orgId);
+        event.setStatus(OutboxStatus.PENDING);
+        try {
+            event.setPayload(payload != null ? objectMapper.writeValueAsString(payload) : null);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to serialize outbox payload", e);
+        }
+        outboxEventRepository.save(event);
+    }
+}
@@ -0,0 +1,255 @@
+package com.ase.angelos_kb_backend.service;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.ase.angelos_kb_backend.util.ParseResult;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Caches parse results by the fingerprint of the raw input, so the same PDF or web page is parsed only once no
+ * matter how often it is uploaded, added by other organisations or refreshed without changes. Documents are keyed
+ * by the SHA-256 of the file, websites by the SHA-256 of their link, HTML and the parser responsible for the link,
+ * so results of parsers or profiles that have changed since are not used.
+ *
+ * Recent results are kept on the heap, bounded by their total length. All results are also written gzipped to
+ * the cache directory, bounded by disk size, so they survive restarts; once the directory is full the results
+ * that were used least recently are removed. A hit in either tier does not call the parser at all.
+ *
+ * Lookups are counted as parse.cache.requests with result=memory, disk or miss.
+ */
+@Component
+public class ParseCache {
+
+    private static final String SUFFIX = ".gz";
+
+    private final ParsingService parsingService;
+    private final Cache<String, ParseResult> memory;
+    private final Counter memoryHits;
+    private final Counter diskHits;
+    private final Counter misses;
+    private final Path directory;
+    private final long maxDiskBytes;
+    private final AtomicLong diskBytes = new AtomicLong();
+
+    @Value("${app.parse-cache.enabled:true}")
+    private boolean enabled;
+
+    public ParseCache(ParsingService parsingService, MeterRegistry meterRegistry,
+                      @Value("${app.parse-cache.memory-max-mb:64}") long memoryMaxMb,
+                      @Value("${app.parse-cache.disk-max-mb:1024}") long diskMaxMb,
+                      @Value("${app.parse-cache.dir:${java.io.tmpdir}/angelos-parse-cache}") String directory) {
+        this.parsingService = parsingService;
+        // Weighted by characters, which take two bytes on the heap
+        this.memory = Caffeine.newBuilder()
+                .maximumWeight(memoryMaxMb * 1024 * 1024 / 2)
+                .weigher((String key, ParseResult result) -> key.length() + result.getContent().length())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, memory, "parseResults");
+        this.memoryHits = requests(meterRegistry, "memory");
+        this.diskHits = requests(meterRegistry, "disk");
+        this.misses = requests(meterRegistry, "miss");
+        this.maxDiskBytes = diskMaxMb * 1024 * 1024;
+        this.directory = directory.isBlank() ? null : Path.of(directory).toAbsolutePath().normalize();
+        if (this.directory != null) {
+            try {
+                Files.createDirectories(this.directory);
+                try (Stream<Path> files = Files.list(this.directory)) {
+                    files.filter(file -> file.toString().endsWith(SUFFIX)).forEach(file -> diskBytes.addAndGet(sizeOf(file)));
+                }
+            } catch (IOException e) {
+                throw new RuntimeException("Could not create the parse cache directory " + this.directory, e);
+            }
+        }
+    }
+
+    /**
+     * Parses fetched website content, unless the same HTML of the same link was parsed before.
+     */
+    public ParseResult parseWebsite(String link, String html) {
+        String parser = parsingService.getWebsiteParserKey(link);
+        return get("web:" + sha256(parser + "\n" + link + "\n" + html), () -> parsingService.parseWebsite(link, html));
+    }
+
+    /**
+     * Parses a stored PDF document, unless a file with the same hash was parsed before.
+     *
+     * @param fileHash the hash of the file as computed by {@link ParsingService#computeFileHash(Path)}
+     */
+    public String parseDocument(Path file, String fileHash) {
+        return get("pdf:" + fileHash, () -> new ParseResult(parsingService.parseDocument(file), "pdf")).getContent();
+    }
+
+    /**
+     * Drops all cached results, on the heap and on disk.
+     */
+    public void invalidateAll() {
+        memory.invalidateAll();
+        if (directory != null) {
+            listFiles().forEach(this::delete);
+        }
+    }
+
+    private ParseResult get(String key, Supplier<ParseResult> parser) {
+        if (!enabled) {
+            return parser.get();
+        }
+
+        ParseResult result = memory.getIfPresent(key);
+        if (result != null) {
+            memoryHits.increment();
+            return result;
+        }
+        String filename = sha256(key) + SUFFIX;
+        result = read(filename);
+        if (result != null) {
+            diskHits.increment();
+        } else {
+            misses.increment();
+            result = parser.get();
+            write(filename, result);
+        }
+        memory.put(key, result);
+        return result;
+    }
+
+    private ParseResult read(String filename) {
+        if (directory == null) {
+            return null;
+        }
+        Path file = directory.resolve(filename);
+        try (DataInputStream in = new DataInputStream(new GZIPInputStream(Files.newInputStream(file)))) {
+            String parserType = in.readUTF();
+            String content = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            // Mark the result as recently used, eviction removes the oldest files first
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            return new ParseResult(content, parserType);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            System.err.println("Discarding unreadable parse cache entry " + filename + ": " + e.getMessage());
+            delete(file);
+            return null;
+        }
+    }
+
+    private void write(String filename, ParseResult result) {
+        if (directory == null) {
+            return;
+        }
+        Path file = directory.resolve(filename);
+        Path temp = null;
+        try {
+            // Write to a temporary file first, so readers never see a partial entry
+            temp = Files.createTempFile(directory, "entry", ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(Files.newOutputStream(temp)))) {
+                out.writeUTF(result.getParserType());
+                out.write(result.getContent().getBytes(StandardCharsets.UTF_8));
+            }
+            long size = Files.size(temp);
+            long replaced = sizeOf(file);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            if (diskBytes.addAndGet(size - replaced) > maxDiskBytes) {
+                evict();
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to write parse cache entry " + filename + ": " + e.getMessage());
+            if (temp != null) {
+                delete(temp);
+            }
+        }
+    }
+
+    // Remove the least recently used files until the directory is back to 90% of its limit
+    private synchronized void evict() {
+        if (diskBytes.get() <= maxDiskBytes) {
+            return;
+        }
+        List<Path> files = listFiles().stream()
+                .sorted(Comparator.comparing(this::lastModified))
+                .toList();
+        for (Path file : files) {
+            if (diskBytes.get() <= maxDiskBytes * 9 / 10) {
+                break;
+            }
+            delete(file);
+        }
+    }
+
+    private List<Path> listFiles() {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.toString().endsWith(SUFFIX)).toList();
+        } catch (IOException e) {
+            System.err.println("Failed to list the parse cache: " + e.getMessage());
+            return List.of();
+        }
+    }
+
+    private void delete(Path file) {
+        long size = sizeOf(file);
+        try {
+            if (Files.deleteIfExists(file) && file.toString().endsWith(SUFFIX)) {
+                diskBytes.addAndGet(-size);
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to delete parse cache entry " + file.getFileName() + ": " + e.getMessage());
+        }
+    }
+
+    private long sizeOf(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private FileTime lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private static Counter requests(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("parse.cache.requests")
+                .description("Lookups of the parse cache")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private static String sha256(String value) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("Hashing algorithm not available", e);
+        }
+    }
+}
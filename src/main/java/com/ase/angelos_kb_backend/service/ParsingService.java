@@ -1,62 +1,147 @@
 package com.ase.angelos_kb_backend.service;
 
+import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
 import java.util.Base64;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
 
 import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.MemoryUsageSetting;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.text.PDFTextStripper;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
-import org.springframework.web.multipart.MultipartFile;
 
-import com.ase.angelos_kb_backend.util.CITParser;
-import com.ase.angelos_kb_backend.util.GenericWebsiteParser;
 import com.ase.angelos_kb_backend.util.ParseResult;
+import com.ase.angelos_kb_backend.util.WebsiteParser;
+
+import jakarta.annotation.PreDestroy;
 
 @Component
 public class ParsingService {
-    private CITParser citParser;
-    private GenericWebsiteParser websiteParser;
+    private final WebsiteParserRegistry parserRegistry;
+
+    // Per open copy of a document, parallel extraction opens one copy per range being extracted
+    @Value("${app.documents.parse-memory-mb:16}")
+    private long parseMemoryMb;
+
+    // Empty uses the temporary directory of the JVM
+    @Value("${app.documents.scratch-dir:}")
+    private String scratchDir;
+
+    @Value("${app.documents.parallel-min-pages:64}")
+    private int parallelMinPages;
+
+    @Value("${app.documents.pages-per-range:16}")
+    private int pagesPerRange;
 
-    public ParsingService(CITParser citParser, GenericWebsiteParser websiteParser) {
-        this.citParser = citParser;
-        this.websiteParser = websiteParser;
+    private final int parseThreads;
+    private final ExecutorService parseExecutor;
+
+    public ParsingService(WebsiteParserRegistry parserRegistry,
+                          @Value("${app.documents.parse-threads:0}") int parseThreads) {
+        this.parserRegistry = parserRegistry;
+        this.parseThreads = parseThreads > 0 ? parseThreads : Runtime.getRuntime().availableProcessors();
+        this.parseExecutor = Executors.newFixedThreadPool(this.parseThreads);
     }
 
-    // Parse website content
-    public ParseResult parseWebsite(String link) {
-        String result;
-        String type;
-        if (link.contains("cit.tum.de")) {
-            result = citParser.parseWebsite(link);
-            type = "CIT";
-        } else {
-            // Use generic parser for other links
-            result = websiteParser.parseWebsiteContent(link);
-            type = "other";
-        }
+    // Parse website content that has already been fetched, with the parser registered for its host
+    public ParseResult parseWebsite(String link, String html) {
+        return parserRegistry.parse(link, html);
+    }
 
-        return new ParseResult(result, type);
+    /**
+     * Identifies the parser a page of the link goes to and its version, parse results of other parsers or
+     * versions are stale.
+     */
+    public String getWebsiteParserKey(String link) {
+        WebsiteParser parser = parserRegistry.resolve(link);
+        return parser.getName() + ":" + parser.getVersion();
     }
 
-    public String parseDocument(MultipartFile file) {
-        try {
-            // Load PDF using Loader
-            byte[] fileBytes = file.getBytes();
-            try (PDDocument document = Loader.loadPDF(fileBytes)) {
-                PDFTextStripper stripper = new PDFTextStripper();
-                // Extract text for the entire document
-                String result = stripper.getText(document);
-                return result;
-            } catch (IOException e) {
-                throw new RuntimeException("Failed to parse PDF document", e);
+    /**
+     * Parse a stored PDF document. The file is read with random access instead of being loaded into memory,
+     * and PDFBox keeps at most parseMemoryMb of its buffers on the heap, the rest goes to scratch files.
+     */
+    public String parseDocument(Path file) {
+        StringBuilder text = new StringBuilder();
+        extractDocument(file, text::append);
+        return text.toString();
+    }
+
+    /**
+     * Extracts the text of a stored PDF document and passes it to the consumer piece by piece, in page order.
+     * Documents with at least parallelMinPages pages are split into ranges of pagesPerRange pages that are
+     * extracted on the parse pool, each from its own copy of the document since PDFBox documents are not thread safe.
+     * At most two ranges per parse thread are in flight, so memory stays bounded for very long documents.
+     */
+    public void extractDocument(Path file, Consumer<String> consumer) {
+        int pages;
+        try (PDDocument document = load(file)) {
+            pages = document.getNumberOfPages();
+            if (pages < parallelMinPages) {
+                consumer.accept(new PDFTextStripper().getText(document));
+                return;
             }
         } catch (IOException e) {
-            throw new RuntimeException("Failed to read PDF file", e);
+            throw new RuntimeException("Failed to parse PDF document " + file.getFileName(), e);
         }
+
+        Deque<Future<String>> inFlight = new ArrayDeque<>();
+        int nextPage = 1;
+        try {
+            while (nextPage <= pages || !inFlight.isEmpty()) {
+                while (nextPage <= pages && inFlight.size() < 2 * parseThreads) {
+                    int startPage = nextPage;
+                    int endPage = Math.min(pages, startPage + pagesPerRange - 1);
+                    inFlight.add(parseExecutor.submit(() -> extractPages(file, startPage, endPage)));
+                    nextPage = endPage + 1;
+                }
+                consumer.accept(inFlight.removeFirst().get());
+            }
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Failed to parse PDF document " + file.getFileName(), e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while parsing PDF document " + file.getFileName(), e);
+        } finally {
+            inFlight.forEach(future -> future.cancel(true));
+        }
+    }
+
+    private String extractPages(Path file, int startPage, int endPage) throws IOException {
+        try (PDDocument document = load(file)) {
+            PDFTextStripper stripper = new PDFTextStripper();
+            stripper.setStartPage(startPage);
+            stripper.setEndPage(endPage);
+            return stripper.getText(document);
+        }
+    }
+
+    private PDDocument load(Path file) throws IOException {
+        MemoryUsageSetting memory = MemoryUsageSetting.setupMixed(parseMemoryMb * 1024 * 1024);
+        if (!scratchDir.isBlank()) {
+            memory.setTempDir(new File(scratchDir));
+        }
+        return Loader.loadPDF(file.toFile(), memory.streamCache);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        parseExecutor.shutdownNow();
     }
 
     /**
@@ -79,5 +164,21 @@ public class ParsingService {
             throw new RuntimeException("Hashing algorithm not available", e);
         }
     }
+
+    /**
+     * Compute a SHA-256 hash of the raw bytes of a stored file, reading it in a stream.
+     *
+     * @return the SHA-256 hash of the file encoded in Base64
+     */
+    public String computeFileHash(Path file) {
+        try (DigestInputStream in = new DigestInputStream(Files.newInputStream(file), MessageDigest.getInstance("SHA-256"))) {
+            in.transferTo(OutputStream.nullOutputStream());
+            return Base64.getEncoder().encodeToString(in.getMessageDigest().digest());
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to hash file " + file.getFileName(), e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("Hashing algorithm not available", e);
+        }
+    }
 }
 
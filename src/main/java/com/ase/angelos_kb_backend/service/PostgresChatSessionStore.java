@@ -0,0 +1,101 @@
+package com.ase.angelos_kb_backend.service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.UnaryOperator;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.ase.angelos_kb_backend.dto.angelos.AngelosChatMessage;
+import com.ase.angelos_kb_backend.model.ChatSession;
+import com.ase.angelos_kb_backend.repository.ChatSessionRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Session store shared by all instances. The history is stored as JSON, idle sessions are purged periodically.
+ * Updates lock the row of the session, so concurrent requests of one session do not lose each other's messages.
+ */
+@Component
+@ConditionalOnProperty(name = "app.chat.session.store", havingValue = "postgres")
+public class PostgresChatSessionStore implements ChatSessionStore {
+
+    private static final TypeReference<List<AngelosChatMessage>> MESSAGES = new TypeReference<>() {};
+
+    private final ChatSessionRepository chatSessionRepository;
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.chat.session.idle-minutes:60}")
+    private long idleMinutes;
+
+    public PostgresChatSessionStore(ChatSessionRepository chatSessionRepository, ObjectMapper objectMapper) {
+        this.chatSessionRepository = chatSessionRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void create(String sessionId) {
+        ChatSession session = new ChatSession();
+        session.setSessionId(sessionId);
+        session.setMessages("[]");
+        chatSessionRepository.save(session);
+    }
+
+    @Override
+    public Optional<List<AngelosChatMessage>> load(String sessionId) {
+        return chatSessionRepository.findById(sessionId)
+                .filter(this::isActive)
+                .map(this::read);
+    }
+
+    @Override
+    @Transactional
+    public boolean update(String sessionId, UnaryOperator<List<AngelosChatMessage>> update) {
+        Optional<ChatSession> found = chatSessionRepository.findForUpdate(sessionId).filter(this::isActive);
+        if (found.isEmpty()) {
+            return false;
+        }
+        ChatSession session = found.get();
+        try {
+            session.setMessages(objectMapper.writeValueAsString(update.apply(read(session))));
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to serialize chat session", e);
+        }
+        chatSessionRepository.save(session);
+        return true;
+    }
+
+    @Override
+    public void delete(String sessionId) {
+        if (chatSessionRepository.existsById(sessionId)) {
+            chatSessionRepository.deleteById(sessionId);
+        }
+    }
+
+    private boolean isActive(ChatSession session) {
+        return session.getUpdatedAt().isAfter(LocalDateTime.now().minusMinutes(idleMinutes));
+    }
+
+    private List<AngelosChatMessage> read(ChatSession session) {
+        try {
+            return objectMapper.readValue(session.getMessages(), MESSAGES);
+        } catch (JsonProcessingException e) {
+            System.err.println("Discarding unreadable chat session " + session.getSessionId() + ": " + e.getMessage());
+            return List.of();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.chat.session.purge-interval-ms:600000}")
+    public void purgeIdleSessions() {
+        int purged = chatSessionRepository.deleteByUpdatedAtBefore(LocalDateTime.now().minusMinutes(idleMinutes));
+        if (purged > 0) {
+            System.out.println("Purged " + purged + " idle chat sessions");
+        }
+    }
+}
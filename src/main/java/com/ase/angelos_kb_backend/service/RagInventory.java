@@ -0,0 +1,19 @@
+package com.ase.angelos_kb_backend.service;
+
+import java.util.List;
+
+import com.ase.angelos_kb_backend.util.InventoryItem;
+import com.ase.angelos_kb_backend.util.OutboxAggregate;
+
+/**
+ * Lists what the RAG holds, one page at a time.
+ */
+public interface RagInventory {
+
+    /**
+     * Items of the given type and organisation with an id greater than afterId, ordered by id.
+     *
+     * @param afterId the last id of the previous page, null for the first page
+     */
+    List<InventoryItem> fetchPage(OutboxAggregate type, Long orgId, String afterId, int limit);
+}
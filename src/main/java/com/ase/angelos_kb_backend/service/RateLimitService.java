@@ -0,0 +1,158 @@
+package com.ase.angelos_kb_backend.service;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.ase.angelos_kb_backend.exception.RateLimitExceededException;
+import com.ase.angelos_kb_backend.util.TokenBucket;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Rate limits requests that reach Angelos with one token bucket per caller and one per organisation. Chat
+ * callers are the clients by address; mail requests all come from the Eunomia server, so they are limited per
+ * API key with a quota of their own. Organisations may have their own limit, all others and all callers use the
+ * configured defaults.
+ * Buckets that have not been used for a while are evicted and the number of buckets is bounded,
+ * an evicted bucket simply starts full again.
+ *
+ * Rejections are counted as ratelimit.rejections, tagged with the scope that rejected the request.
+ */
+@Service
+public class RateLimitService {
+
+    private final OrganisationService organisationService;
+    private final Cache<Long, TokenBucket> orgBuckets;
+    private final Cache<String, TokenBucket> clientBuckets;
+    private final Cache<String, TokenBucket> mailBuckets;
+    private final Counter orgRejections;
+    private final Counter clientRejections;
+    private final Counter mailRejections;
+
+    @Value("${app.rate-limit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.rate-limit.org.requests-per-minute:300}")
+    private int orgRequestsPerMinute;
+
+    @Value("${app.rate-limit.org.burst:60}")
+    private int orgBurst;
+
+    @Value("${app.rate-limit.client.requests-per-minute:20}")
+    private int clientRequestsPerMinute;
+
+    @Value("${app.rate-limit.client.burst:5}")
+    private int clientBurst;
+
+    @Value("${app.rate-limit.mail.requests-per-minute:600}")
+    private int mailRequestsPerMinute;
+
+    @Value("${app.rate-limit.mail.burst:100}")
+    private int mailBurst;
+
+    public RateLimitService(OrganisationService organisationService,
+                            @Value("${app.rate-limit.idle-minutes:10}") long idleMinutes,
+                            @Value("${app.rate-limit.max-buckets:100000}") long maxBuckets,
+                            MeterRegistry meterRegistry) {
+        this.organisationService = organisationService;
+        this.orgBuckets = Caffeine.newBuilder()
+                .expireAfterAccess(Duration.ofMinutes(idleMinutes))
+                .maximumSize(maxBuckets)
+                .recordStats()
+                .build();
+        this.clientBuckets = Caffeine.newBuilder()
+                .expireAfterAccess(Duration.ofMinutes(idleMinutes))
+                .maximumSize(maxBuckets)
+                .recordStats()
+                .build();
+        this.mailBuckets = Caffeine.newBuilder()
+                .expireAfterAccess(Duration.ofMinutes(idleMinutes))
+                .maximumSize(maxBuckets)
+                .recordStats()
+                .build();
+        this.orgRejections = Counter.builder("ratelimit.rejections").tag("scope", "org").register(meterRegistry);
+        this.clientRejections = Counter.builder("ratelimit.rejections").tag("scope", "client").register(meterRegistry);
+        this.mailRejections = Counter.builder("ratelimit.rejections").tag("scope", "mail").register(meterRegistry);
+        CaffeineCacheMetrics.monitor(meterRegistry, orgBuckets, "rateLimitOrgBuckets");
+        CaffeineCacheMetrics.monitor(meterRegistry, clientBuckets, "rateLimitClientBuckets");
+        CaffeineCacheMetrics.monitor(meterRegistry, mailBuckets, "rateLimitMailBuckets");
+    }
+
+    /**
+     * Takes a token from the bucket of the client and of the organisation.
+     * Requests without organisation are only limited per client.
+     *
+     * @throws RateLimitExceededException if either bucket is empty.
+     */
+    public void checkLimit(Long orgId, String clientId) {
+        if (!enabled) {
+            return;
+        }
+        check(clientBuckets.get(clientId, id -> new TokenBucket(clientBurst, clientRequestsPerMinute)), clientRejections, orgId);
+    }
+
+    /**
+     * Takes a token from the bucket of the mail pipeline calling with the API key and of the organisation.
+     *
+     * @throws RateLimitExceededException if either bucket is empty.
+     */
+    public void checkMailLimit(Long orgId, String apiKey) {
+        if (!enabled) {
+            return;
+        }
+        check(mailBuckets.get(apiKey, key -> new TokenBucket(mailBurst, mailRequestsPerMinute)), mailRejections, orgId);
+    }
+
+    // Both buckets are checked before either is used, so requests one of them rejects do not drain the other
+    private void check(TokenBucket callerBucket, Counter callerRejections, Long orgId) {
+        TokenBucket orgBucket = orgId != null ? orgBuckets.get(orgId, this::createOrgBucket) : null;
+        long wait = callerBucket.peek();
+        if (wait > 0) {
+            callerRejections.increment();
+            throw new RateLimitExceededException("Too many requests, please try again later.", toRetryAfterSeconds(wait));
+        }
+        if (orgBucket != null && (wait = orgBucket.peek()) > 0) {
+            rejectForOrg(wait);
+        }
+
+        wait = callerBucket.tryConsume();
+        if (wait > 0) {
+            callerRejections.increment();
+            throw new RateLimitExceededException("Too many requests, please try again later.", toRetryAfterSeconds(wait));
+        }
+        if (orgBucket != null && (wait = orgBucket.tryConsume()) > 0) {
+            // Another request took the last token of the organisation in between
+            callerBucket.refund();
+            rejectForOrg(wait);
+        }
+    }
+
+    private void rejectForOrg(long wait) {
+        orgRejections.increment();
+        throw new RateLimitExceededException("Too many requests for this organisation, please try again later.", toRetryAfterSeconds(wait));
+    }
+
+    /**
+     * Drops the bucket of the organisation, e.g. after its limit has been changed.
+     */
+    public void resetOrg(Long orgId) {
+        orgBuckets.invalidate(orgId);
+    }
+
+    private TokenBucket createOrgBucket(Long orgId) {
+        Integer configured = organisationService.getChatRequestsPerMinute(orgId);
+        int requestsPerMinute = configured != null && configured > 0 ? configured : orgRequestsPerMinute;
+        return new TokenBucket(Math.min(orgBurst, requestsPerMinute), requestsPerMinute);
+    }
+
+    private static long toRetryAfterSeconds(long waitNanos) {
+        return Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L));
+    }
+}
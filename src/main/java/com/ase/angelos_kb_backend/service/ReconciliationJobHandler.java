@@ -0,0 +1,229 @@
+package com.ase.angelos_kb_backend.service;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ase.angelos_kb_backend.model.IngestionJob;
+import com.ase.angelos_kb_backend.model.Organisation;
+import com.ase.angelos_kb_backend.model.OutboxEvent;
+import com.ase.angelos_kb_backend.repository.DocumentContentRepository;
+import com.ase.angelos_kb_backend.repository.OrganisationRepository;
+import com.ase.angelos_kb_backend.repository.OutboxEventRepository;
+import com.ase.angelos_kb_backend.repository.SampleQuestionRepository;
+import com.ase.angelos_kb_backend.repository.WebsiteContentRepository;
+import com.ase.angelos_kb_backend.util.InventoryDiff;
+import com.ase.angelos_kb_backend.util.InventoryItem;
+import com.ase.angelos_kb_backend.util.JobType;
+import com.ase.angelos_kb_backend.util.OutboxAggregate;
+import com.ase.angelos_kb_backend.util.OutboxOperation;
+import com.ase.angelos_kb_backend.util.OutboxStatus;
+
+/**
+ * Finds and repairs drift between the database and the RAG. The websites, documents and sample questions of
+ * an organisation are compared to the inventory of the RAG page by page in id order, so memory stays flat no
+ * matter how many items there are. Items the RAG is missing are sent again, items whose content hash differs
+ * are refreshed with their full content and items only the RAG knows are deleted from it. Fix-ups are queued
+ * in the outbox in batches; items with pending outbox events are skipped, since they are still being synced.
+ * Items stuck behind a failed outbox event are not, their events are dropped and the item is sent again.
+ *
+ * Runs for the organisation of the job, or for all organisations if the job has none.
+ */
+@Component
+public class ReconciliationJobHandler implements JobHandler {
+
+    private static final UUID FIRST_ID = new UUID(0, 0);
+
+    private final RagInventory ragInventory;
+    private final WebsiteContentRepository websiteContentRepository;
+    private final DocumentContentRepository documentContentRepository;
+    private final SampleQuestionRepository sampleQuestionRepository;
+    private final OrganisationRepository organisationRepository;
+    private final OutboxEventRepository outboxEventRepository;
+    private final OutboxService outboxService;
+    private final WebsiteService websiteService;
+    private final DocumentService documentService;
+    private final SampleQuestionService sampleQuestionService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.reconcile.page-size:1000}")
+    private int pageSize;
+
+    @Value("${app.reconcile.batch-size:100}")
+    private int batchSize;
+
+    public ReconciliationJobHandler(RagInventory ragInventory, WebsiteContentRepository websiteContentRepository,
+                                    DocumentContentRepository documentContentRepository,
+                                    SampleQuestionRepository sampleQuestionRepository,
+                                    OrganisationRepository organisationRepository,
+                                    OutboxEventRepository outboxEventRepository, OutboxService outboxService,
+                                    WebsiteService websiteService, DocumentService documentService,
+                                    SampleQuestionService sampleQuestionService, TransactionTemplate transactionTemplate) {
+        this.ragInventory = ragInventory;
+        this.websiteContentRepository = websiteContentRepository;
+        this.documentContentRepository = documentContentRepository;
+        this.sampleQuestionRepository = sampleQuestionRepository;
+        this.organisationRepository = organisationRepository;
+        this.outboxEventRepository = outboxEventRepository;
+        this.outboxService = outboxService;
+        this.websiteService = websiteService;
+        this.documentService = documentService;
+        this.sampleQuestionService = sampleQuestionService;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @Override
+    public JobType getType() {
+        return JobType.RECONCILE;
+    }
+
+    @Override
+    public void run(IngestionJob job, JobProgress progress) {
+        List<Long> orgIds = job.getOrgId() != null
+                ? List.of(job.getOrgId())
+                : organisationRepository.findAll().stream().map(Organisation::getOrgID).toList();
+        for (Long orgId : orgIds) {
+            for (OutboxAggregate type : OutboxAggregate.values()) {
+                reconcile(orgId, type, progress);
+            }
+        }
+    }
+
+    /**
+     * Compares the items of one type of an organisation with the RAG and queues the fix-ups.
+     */
+    public void reconcile(Long orgId, OutboxAggregate type, JobProgress progress) {
+        FixUps fixUps = new FixUps(orgId, type, progress);
+        int matched = InventoryDiff.compare(
+                (afterId, limit) -> localPage(orgId, type, afterId, limit),
+                (afterId, limit) -> ragInventory.fetchPage(type, orgId, afterId, limit),
+                pageSize, fixUps);
+        fixUps.flush();
+        System.out.println("Reconciled " + type + " of organisation " + orgId + ": " + matched + " in sync, "
+                + fixUps.missingTotal + " missing, " + fixUps.changedTotal + " changed, " + fixUps.orphanedTotal + " orphaned.");
+    }
+
+    private List<InventoryItem> localPage(Long orgId, OutboxAggregate type, String afterId, int limit) {
+        UUID after = afterId != null ? UUID.fromString(afterId) : FIRST_ID;
+        PageRequest page = PageRequest.of(0, limit);
+        return switch (type) {
+            case WEBSITE -> websiteContentRepository.findContentHashes(orgId, after, page).stream()
+                    .map(item -> new InventoryItem(item.getId().toString(), item.getContentHash()))
+                    .toList();
+            case DOCUMENT -> documentContentRepository.findContentHashes(orgId, after, page).stream()
+                    .map(item -> new InventoryItem(item.getId().toString(), item.getContentHash()))
+                    .toList();
+            // Sample questions have no content hash, only their presence is compared
+            case SAMPLE_QUESTION -> sampleQuestionRepository.findIds(orgId, after, page).stream()
+                    .map(id -> new InventoryItem(id.toString(), null))
+                    .toList();
+        };
+    }
+
+    /**
+     * Collects the differences of one type and queues them once a batch is full.
+     */
+    private class FixUps implements InventoryDiff.Listener {
+
+        private final Long orgId;
+        private final OutboxAggregate type;
+        private final JobProgress progress;
+        private final List<String> missing = new ArrayList<>();
+        private final List<String> changed = new ArrayList<>();
+        private final List<String> orphaned = new ArrayList<>();
+        private int missingTotal;
+        private int changedTotal;
+        private int orphanedTotal;
+
+        FixUps(Long orgId, OutboxAggregate type, JobProgress progress) {
+            this.orgId = orgId;
+            this.type = type;
+            this.progress = progress;
+        }
+
+        @Override
+        public void missing(InventoryItem local) {
+            missing.add(local.id());
+            flushIfFull();
+        }
+
+        @Override
+        public void changed(InventoryItem local) {
+            changed.add(local.id());
+            flushIfFull();
+        }
+
+        @Override
+        public void orphaned(InventoryItem remote) {
+            orphaned.add(remote.id());
+            flushIfFull();
+        }
+
+        private void flushIfFull() {
+            if (missing.size() + changed.size() + orphaned.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        void flush() {
+            Set<String> syncing = new HashSet<>();
+            List<String> ids = new ArrayList<>(missing);
+            ids.addAll(changed);
+            ids.addAll(orphaned);
+            if (!ids.isEmpty()) {
+                List<OutboxEvent> pending = outboxEventRepository.findByStatusAndAggregateIdInOrderById(OutboxStatus.PENDING, ids);
+                for (OutboxEvent event : pending) {
+                    syncing.add(event.getAggregateId());
+                }
+                // Items stuck behind a failed event are resent in full, the resend replaces all their events
+                List<OutboxEvent> stuck = outboxEventRepository.findByStatusInAndAggregateIdIn(
+                        List.of(OutboxStatus.FAILED, OutboxStatus.BLOCKED), ids);
+                if (!stuck.isEmpty()) {
+                    Set<String> stuckIds = new HashSet<>();
+                    stuck.forEach(event -> stuckIds.add(event.getAggregateId()));
+                    pending.stream().filter(event -> stuckIds.contains(event.getAggregateId())).forEach(stuck::add);
+                    outboxEventRepository.deleteAll(stuck);
+                    syncing.removeAll(stuckIds);
+                }
+            }
+            missing.removeAll(syncing);
+            changed.removeAll(syncing);
+            orphaned.removeAll(syncing);
+            missingTotal += missing.size();
+            changedTotal += changed.size();
+            orphanedTotal += orphaned.size();
+            progress.addTotal(missing.size() + changed.size() + orphaned.size());
+
+            if (!orphaned.isEmpty()) {
+                transactionTemplate.executeWithoutResult(status -> orphaned.forEach(id ->
+                        outboxService.record(type, id, OutboxOperation.DELETE, orgId, null)));
+                progress.succeeded(orphaned.size());
+            }
+            resend(missing, OutboxOperation.ADD);
+            resend(changed, OutboxOperation.REFRESH);
+
+            missing.clear();
+            changed.clear();
+            orphaned.clear();
+        }
+
+        private void resend(List<String> ids, OutboxOperation operation) {
+            if (ids.isEmpty()) {
+                return;
+            }
+            List<UUID> uuids = ids.stream().map(UUID::fromString).toList();
+            switch (type) {
+                case WEBSITE -> websiteService.resendWebsites(uuids, operation, progress);
+                case DOCUMENT -> documentService.resendDocuments(uuids, operation, progress);
+                case SAMPLE_QUESTION -> sampleQuestionService.resendSampleQuestions(uuids, progress);
+            }
+        }
+    }
+}
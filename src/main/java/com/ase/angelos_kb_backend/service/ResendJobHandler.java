@@ -0,0 +1,56 @@
+package com.ase.angelos_kb_backend.service;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import org.springframework.stereotype.Component;
+
+import com.ase.angelos_kb_backend.dto.ResendJobPayload;
+import com.ase.angelos_kb_backend.model.IngestionJob;
+import com.ase.angelos_kb_backend.model.WebsiteContent;
+import com.ase.angelos_kb_backend.repository.WebsiteContentRepository;
+import com.ase.angelos_kb_backend.util.JobType;
+import com.ase.angelos_kb_backend.util.OutboxOperation;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Sends the full content of websites and documents to the RAG again, e.g. once sections they left out as
+ * duplicates are no longer sent by any other source. Sources that no longer exist are skipped.
+ */
+@Component
+public class ResendJobHandler implements JobHandler {
+
+    private final WebsiteService websiteService;
+    private final DocumentService documentService;
+    private final WebsiteContentRepository websiteContentRepository;
+    private final ObjectMapper objectMapper;
+
+    public ResendJobHandler(WebsiteService websiteService, DocumentService documentService,
+                            WebsiteContentRepository websiteContentRepository, ObjectMapper objectMapper) {
+        this.websiteService = websiteService;
+        this.documentService = documentService;
+        this.websiteContentRepository = websiteContentRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public JobType getType() {
+        return JobType.RESEND_CONTENT;
+    }
+
+    @Override
+    public void run(IngestionJob job, JobProgress progress) throws Exception {
+        ResendJobPayload payload = objectMapper.readValue(job.getPayload(), ResendJobPayload.class);
+        progress.addTotal(payload.getSourceIds().size());
+
+        // Ids that are not websites are documents, resending skips documents that are gone
+        Set<UUID> websiteIds = websiteContentRepository.findAllById(payload.getSourceIds()).stream()
+                .map(WebsiteContent::getId)
+                .collect(Collectors.toSet());
+        List<UUID> docIds = payload.getSourceIds().stream().filter(id -> !websiteIds.contains(id)).toList();
+        websiteService.resendWebsites(List.copyOf(websiteIds), OutboxOperation.REFRESH, progress);
+        documentService.resendDocuments(docIds, OutboxOperation.REFRESH, progress);
+    }
+}
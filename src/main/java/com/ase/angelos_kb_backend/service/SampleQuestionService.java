@@ -1,44 +1,75 @@
 package com.ase.angelos_kb_backend.service;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.ase.angelos_kb_backend.dto.PageDTO;
 import com.ase.angelos_kb_backend.dto.SampleQuestionDTO;
 import com.ase.angelos_kb_backend.dto.StudyProgramDTO;
 import com.ase.angelos_kb_backend.dto.angelos.AngelosAddSampleQuestionRequest;
+import com.ase.angelos_kb_backend.dto.angelos.AngelosEditSampleQuestionRequest;
 import com.ase.angelos_kb_backend.exception.ResourceNotFoundException;
 import com.ase.angelos_kb_backend.exception.UnauthorizedException;
 import com.ase.angelos_kb_backend.model.Organisation;
 import com.ase.angelos_kb_backend.model.SampleQuestion;
 import com.ase.angelos_kb_backend.model.StudyProgram;
+import com.ase.angelos_kb_backend.repository.SampleQuestionListView;
 import com.ase.angelos_kb_backend.repository.SampleQuestionRepository;
+import com.ase.angelos_kb_backend.util.ListingQuery;
+import com.ase.angelos_kb_backend.util.ListingSort;
+import com.ase.angelos_kb_backend.util.OutboxAggregate;
+import com.ase.angelos_kb_backend.util.OutboxOperation;
+import com.ase.angelos_kb_backend.util.PageCursor;
 
 @Service
 public class SampleQuestionService {
     private final SampleQuestionRepository sampleQuestionRepository;
     private final OrganisationService organisationService;
     private final StudyProgramService studyProgramService;
-    private final AngelosService angelosService;
+    private final OutboxService outboxService;
 
     public SampleQuestionService(SampleQuestionRepository sampleQuestionRepository,
                                  OrganisationService organisationService,
                                  StudyProgramService studyProgramService,
-                                 AngelosService angelosService) {
+                                 OutboxService outboxService) {
         this.sampleQuestionRepository = sampleQuestionRepository;
         this.organisationService = organisationService;
         this.studyProgramService = studyProgramService;
-        this.angelosService = angelosService;
+        this.outboxService = outboxService;
     }
 
     public List<SampleQuestionDTO> getAllSampleQuestionsByOrgId(Long orgId) {
         return sampleQuestionRepository.findByOrganisationOrgID(orgId).stream().map(this::convertToDto).collect(Collectors.toList());
     }
 
+    /**
+     * A page of the sample questions of an organisation. Only the listed columns are read, the study programs of
+     * the whole page in one more query.
+     */
+    public PageDTO<SampleQuestionDTO> getSampleQuestionsPage(Long orgId, ListingQuery query) {
+        PageCursor after = query.after();
+        // One more row than the limit tells whether there is a next page
+        PageRequest page = PageRequest.of(0, query.limit() + 1);
+        List<SampleQuestionListView> rows = switch (query.sort()) {
+            case NAME -> sampleQuestionRepository.findPageByTopic(orgId, query.pattern(), query.studyProgramId(),
+                    after.key(), after.uuid(), page);
+            case UPDATED -> sampleQuestionRepository.findPageByUpdated(orgId, query.pattern(), query.studyProgramId(),
+                    after.time(), after.uuid(), page);
+        };
+        return PageDTO.of(rows, query.limit(),
+                row -> query.sort() == ListingSort.NAME
+                        ? PageCursor.after(row.getTopic() != null ? row.getTopic() : "", row.getId())
+                        : PageCursor.after(row.getUpdatedAt(), row.getId()),
+                this::convertToDtos);
+    }
+
     public SampleQuestionDTO getSampleQuestionById(UUID id) {
         SampleQuestion sampleQuestion = sampleQuestionRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("SampleQuestion not found with id " + id));
@@ -68,10 +99,8 @@ public class SampleQuestionService {
 
         sampleQuestionDTO.setId(savedSampleQuestion.getSqID().toString());
 
-        boolean success = angelosService.sendSampleQuestionAddRequest(sampleQuestionDTO, orgId);
-        if (!success) {
-            throw new RuntimeException("Failed to send add request to Angelos RAG system.");
-        }
+        outboxService.record(OutboxAggregate.SAMPLE_QUESTION, sampleQuestionDTO.getId(), OutboxOperation.ADD, orgId,
+                toAddRequest(savedSampleQuestion, orgId));
 
         return convertToDto(savedSampleQuestion);
     }
@@ -103,28 +132,10 @@ public class SampleQuestionService {
         // Save all SampleQuestions to the database
         List<SampleQuestion> savedEntities = sampleQuestionRepository.saveAll(entities);
 
-        // Send batch add request to Angelos RAG system
-        boolean success = angelosService.sendBatchSampleQuestionAddRequest(
-            savedEntities.stream()
-                .map(entity -> {
-                    AngelosAddSampleQuestionRequest req = new AngelosAddSampleQuestionRequest();
-                    req.setId(entity.getSqID().toString());
-                    req.setOrgId(orgId);
-                    req.setTopic(entity.getTopic());
-                    req.setQuestion(entity.getQuestion());
-                    req.setAnswer(entity.getAnswer());
-                    req.setStudyPrograms(
-                        entity.getStudyPrograms().stream()
-                            .map(StudyProgram::getName)
-                            .collect(Collectors.toList())
-                    );
-                    return req;
-                })
-                .collect(Collectors.toList())
-        );
-
-        if (!success) {
-            throw new RuntimeException("Failed to send batch add request to Angelos RAG system.");
+        // Queue add requests, the dispatcher sends them to Angelos RAG system in batches
+        for (SampleQuestion entity : savedEntities) {
+            outboxService.record(OutboxAggregate.SAMPLE_QUESTION, entity.getSqID().toString(), OutboxOperation.ADD, orgId,
+                    toAddRequest(entity, orgId));
         }
 
         // Convert saved entities back to DTOs for return
@@ -166,10 +177,13 @@ public class SampleQuestionService {
             existingSampleQuestion.setStudyPrograms(newStudyPrograms);
         }
 
-        boolean success = angelosService.sendSampleQuestionEditRequest(sampleQuestionDTO, orgId);
-        if (!success) {
-            throw new RuntimeException("Failed to send update request to Angelos RAG system.");
-        }
+        AngelosEditSampleQuestionRequest ragRequest = new AngelosEditSampleQuestionRequest();
+        ragRequest.setTopic(sampleQuestionDTO.getTopic());
+        ragRequest.setQuestion(sampleQuestionDTO.getQuestion());
+        ragRequest.setAnswer(sampleQuestionDTO.getAnswer());
+        ragRequest.setStudyPrograms(newStudyPrograms.stream().map(StudyProgram::getName).toList());
+        ragRequest.setOrgId(orgId);
+        outboxService.record(OutboxAggregate.SAMPLE_QUESTION, sampleQuestionId.toString(), OutboxOperation.UPDATE, orgId, ragRequest);
 
         // Save the updated entity to the database
         SampleQuestion updatedSampleQuestion = sampleQuestionRepository.save(existingSampleQuestion);
@@ -178,6 +192,7 @@ public class SampleQuestionService {
         return convertToDto(updatedSampleQuestion);
     }
 
+    @Transactional
     public void deleteSampleQuestion(UUID id, Long orgId) {
         if (sampleQuestionRepository.existsById(id)) {
             SampleQuestion existingSampleQuestion = sampleQuestionRepository.findById(id)
@@ -185,10 +200,7 @@ public class SampleQuestionService {
             if (!existingSampleQuestion.getOrganisation().getOrgID().equals(orgId)) {
                 throw new UnauthorizedException("You are not authorized to delete this sample question.");
             } else {
-                boolean success = angelosService.sendSampleQuestionDeleteRequest(id.toString());
-                if (!success) {
-                    throw new RuntimeException("Failed to send delete request to Angelos RAG system.");
-                }
+                outboxService.record(OutboxAggregate.SAMPLE_QUESTION, id.toString(), OutboxOperation.DELETE, orgId, null);
                 sampleQuestionRepository.deleteById(id);
             }
         } else {
@@ -196,6 +208,47 @@ public class SampleQuestionService {
         }
     }
 
+    /**
+     * Queues sample questions the RAG is missing for it again. Sample questions that no longer exist are skipped.
+     */
+    @Transactional
+    public void resendSampleQuestions(List<UUID> ids, JobProgress progress) {
+        for (SampleQuestion sampleQuestion : sampleQuestionRepository.findAllById(ids)) {
+            Long orgId = sampleQuestion.getOrganisation().getOrgID();
+            outboxService.record(OutboxAggregate.SAMPLE_QUESTION, sampleQuestion.getSqID().toString(), OutboxOperation.ADD, orgId,
+                    toAddRequest(sampleQuestion, orgId));
+        }
+        progress.succeeded(ids.size());
+    }
+
+    private AngelosAddSampleQuestionRequest toAddRequest(SampleQuestion sampleQuestion, Long orgId) {
+        AngelosAddSampleQuestionRequest request = new AngelosAddSampleQuestionRequest();
+        request.setId(sampleQuestion.getSqID().toString());
+        request.setOrgId(orgId);
+        request.setTopic(sampleQuestion.getTopic());
+        request.setQuestion(sampleQuestion.getQuestion());
+        request.setAnswer(sampleQuestion.getAnswer());
+        request.setStudyPrograms(sampleQuestion.getStudyPrograms().stream().map(StudyProgram::getName).collect(Collectors.toList()));
+        return request;
+    }
+
+    private List<SampleQuestionDTO> convertToDtos(List<SampleQuestionListView> rows) {
+        if (rows.isEmpty()) {
+            return List.of();
+        }
+        Map<UUID, List<StudyProgramDTO>> studyPrograms = studyProgramService.groupByOwner(
+                sampleQuestionRepository.findStudyPrograms(rows.stream().map(SampleQuestionListView::getId).toList()));
+        return rows.stream()
+                .map(row -> SampleQuestionDTO.builder()
+                        .id(row.getId().toString())
+                        .topic(row.getTopic())
+                        .question(row.getQuestion())
+                        .answer(row.getAnswer())
+                        .studyPrograms(studyPrograms.getOrDefault(row.getId(), List.of()))
+                        .build())
+                .toList();
+    }
+
     public SampleQuestionDTO convertToDto(SampleQuestion sampleQuestion) {
         SampleQuestionDTO dto = new SampleQuestionDTO();
         dto.setId(sampleQuestion.getSqID().toString());
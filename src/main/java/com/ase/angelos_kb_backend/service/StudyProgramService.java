@@ -1,7 +1,12 @@
 package com.ase.angelos_kb_backend.service;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -14,11 +19,15 @@ import com.ase.angelos_kb_backend.model.Organisation;
 import com.ase.angelos_kb_backend.model.SampleQuestion;
 import com.ase.angelos_kb_backend.model.StudyProgram;
 import com.ase.angelos_kb_backend.model.WebsiteContent;
+import com.ase.angelos_kb_backend.repository.ContentChunkRepository;
 import com.ase.angelos_kb_backend.repository.DocumentContentRepository;
 import com.ase.angelos_kb_backend.repository.OrganisationRepository;
 import com.ase.angelos_kb_backend.repository.SampleQuestionRepository;
+import com.ase.angelos_kb_backend.repository.StudyProgramLinkView;
 import com.ase.angelos_kb_backend.repository.StudyProgramRepository;
 import com.ase.angelos_kb_backend.repository.WebsiteContentRepository;
+import com.ase.angelos_kb_backend.util.OutboxAggregate;
+import com.ase.angelos_kb_backend.util.OutboxOperation;
 
 
 @Service
@@ -29,7 +38,9 @@ public class StudyProgramService {
     private final SampleQuestionRepository sampleQuestionRepository;
     private final WebsiteContentRepository websiteContentRepository;
     private final DocumentContentRepository documentContentRepository;
-    private final AngelosService angelosService;
+    private final OutboxService outboxService;
+    private final ContentChunkRepository contentChunkRepository;
+    private final NearDuplicateService nearDuplicateService;
 
     public StudyProgramService(
             StudyProgramRepository studyProgramRepository, 
@@ -38,7 +49,9 @@ public class StudyProgramService {
             SampleQuestionRepository sampleQuestionRepository,
             WebsiteContentRepository websiteContentRepository,
             DocumentContentRepository documentContentRepository,
-            AngelosService angelosService
+            OutboxService outboxService,
+            ContentChunkRepository contentChunkRepository,
+            NearDuplicateService nearDuplicateService
     ) {
         this.studyProgramRepository = studyProgramRepository;
         this.organisationRepository = organisationRepository;
@@ -46,7 +59,9 @@ public class StudyProgramService {
         this.sampleQuestionRepository = sampleQuestionRepository;
         this.websiteContentRepository = websiteContentRepository;
         this.documentContentRepository = documentContentRepository;
-        this.angelosService = angelosService;
+        this.outboxService = outboxService;
+        this.contentChunkRepository = contentChunkRepository;
+        this.nearDuplicateService = nearDuplicateService;
     }
 
     public List<StudyProgramDTO> getAllStudyProgramsByOrgId(Long orgId) {
@@ -167,21 +182,28 @@ public class StudyProgramService {
         websiteContentRepository.deleteAll(websitesToDelete);
         sampleQuestionRepository.deleteAll(questionsToDelete);
         documentContentRepository.deleteAll(documentsToDelete);
+        List<UUID> deletedSourceIds = Stream.concat(
+                websitesToDelete.stream().map(WebsiteContent::getId),
+                documentsToDelete.stream().map(DocumentContent::getDocID)).toList();
+        if (!deletedSourceIds.isEmpty()) {
+            contentChunkRepository.deleteBySourceIdIn(deletedSourceIds);
+            nearDuplicateService.remove(deletedSourceIds);
+        }
 
         studyProgramRepository.delete(studyProgram);
         
-        // Make Angelos requests at the end to make sure that changes are reverted in case of failure
-        boolean success = angelosService.sendWebsiteBatchDeleteRequest(websitesToDelete.stream().map(w -> w.getId().toString()).toList());
-        if (!success) {
-            throw new RuntimeException("Failed to batch delete websites from Angelos RAG system.");
+        // Queue the deletes, the dispatcher sends them to Angelos in batches
+        for (WebsiteContent website : websitesToDelete) {
+            outboxService.record(OutboxAggregate.WEBSITE, website.getId().toString(), OutboxOperation.DELETE,
+                    website.getOrganisation().getOrgID(), null);
         }
-        success = angelosService.sendSampleQuestionBatchDeleteRequest(questionsToDelete.stream().map(w -> w.getSqID().toString()).toList());
-        if (!success) {
-            throw new RuntimeException("Failed to batch delete sample questions from Angelos RAG system.");
+        for (SampleQuestion question : questionsToDelete) {
+            outboxService.record(OutboxAggregate.SAMPLE_QUESTION, question.getSqID().toString(), OutboxOperation.DELETE,
+                    question.getOrganisation().getOrgID(), null);
         }
-        success = angelosService.sendDocumentBatchDeleteRequest(documentsToDelete.stream().map(w -> w.getDocID().toString()).toList());
-        if (!success) {
-            throw new RuntimeException("Failed to batch delete documents from Angelos RAG system.");
+        for (DocumentContent document : documentsToDelete) {
+            outboxService.record(OutboxAggregate.DOCUMENT, document.getDocID().toString(), OutboxOperation.DELETE,
+                    document.getOrganisation().getOrgID(), null);
         }
     }
     /**
@@ -209,6 +231,17 @@ public class StudyProgramService {
         return studyPrograms;
     }
 
+    /**
+     * Groups study programs read for a page of websites, documents or sample questions by the item they belong to.
+     */
+    public Map<UUID, List<StudyProgramDTO>> groupByOwner(List<StudyProgramLinkView> links) {
+        Map<UUID, List<StudyProgramDTO>> studyPrograms = new HashMap<>();
+        for (StudyProgramLinkView link : links) {
+            studyPrograms.computeIfAbsent(link.getOwnerId(), id -> new ArrayList<>()).add(new StudyProgramDTO(link.getId(), link.getName()));
+        }
+        return studyPrograms;
+    }
+
     public StudyProgramDTO convertToDto(StudyProgram studyProgram) {
         StudyProgramDTO dto = new StudyProgramDTO();
         dto.setId(studyProgram.getSpID());
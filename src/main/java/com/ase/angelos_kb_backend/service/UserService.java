@@ -5,17 +5,24 @@ import java.util.UUID;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.ase.angelos_kb_backend.dto.PageDTO;
 import com.ase.angelos_kb_backend.dto.UserDTO;
 import com.ase.angelos_kb_backend.dto.UserDetailsDTO;
 import com.ase.angelos_kb_backend.exception.ResourceNotFoundException;
 import com.ase.angelos_kb_backend.exception.UnauthorizedException;
 import com.ase.angelos_kb_backend.model.Organisation;
 import com.ase.angelos_kb_backend.model.User;
+import com.ase.angelos_kb_backend.repository.UserListView;
 import com.ase.angelos_kb_backend.repository.UserRepository;
+import com.ase.angelos_kb_backend.util.ListingQuery;
+import com.ase.angelos_kb_backend.util.ListingSort;
+import com.ase.angelos_kb_backend.util.PageCursor;
 
 import jakarta.mail.MessagingException;
 
@@ -47,6 +54,30 @@ public class UserService {
         return userRepository.findByOrganisationOrgID(orgId).stream().map(this::convertToDto).collect(Collectors.toList());
     }
 
+    /**
+     * A page of the users of an organisation, or of all users for the System Organisation, ordered by mail.
+     */
+    public PageDTO<UserDTO> getUsersPage(Long orgId, ListingQuery query) {
+        if (query.sort() != ListingSort.NAME) {
+            throw new IllegalArgumentException("Users can only be sorted by name.");
+        }
+        Organisation organisation = organisationService.getOrganisationById(orgId);
+        boolean allOrganisations = "System Organisation".equals(organisation.getName());
+        PageCursor after = query.after();
+        // One more row than the limit tells whether there is a next page
+        List<UserListView> rows = userRepository.findPageByMail(orgId, allOrganisations, query.pattern(),
+                after.key(), after.longId(), PageRequest.of(0, query.limit() + 1));
+        return PageDTO.of(rows, query.limit(), row -> PageCursor.after(row.getMail(), row.getId()),
+                page -> page.stream()
+                        .map(row -> UserDTO.builder()
+                                .id(row.getId())
+                                .mail(row.getMail())
+                                .isAdmin(row.isAdmin())
+                                .isApproved(row.isApproved())
+                                .build())
+                        .toList());
+    }
+
     public UserDTO findByMail(String mail) {
         return userRepository.findByMail(mail)
             .map(this::convertToDto) // Convert User to UserDTO if present
@@ -68,6 +99,7 @@ public class UserService {
         return userDetails;
     }
 
+    @CacheEvict(value = "userDetails", allEntries = true)
     @Transactional
     public UserDTO approveUser(Long userId, Long orgId) {
         User user = userRepository.findById(userId)
@@ -82,6 +114,7 @@ public class UserService {
     }
 
     // Set a user to admin
+    @CacheEvict(value = "userDetails", allEntries = true)
     @Transactional
     public UserDTO setUserToAdmin(Long userId, Long orgId) {
         User user = userRepository.findById(userId)
@@ -98,6 +131,7 @@ public class UserService {
         return convertToDto(updatedUser);
     }
 
+    @CacheEvict(value = "userDetails", allEntries = true)
     @Transactional
     public UserDTO removeUser(Long userId, Long orgId) {
         User user = userRepository.findById(userId)
@@ -114,6 +148,7 @@ public class UserService {
         return convertToDto(updatedUser);
     }
 
+    @CacheEvict(value = "userDetails", allEntries = true)
     @Transactional
     public UserDTO registerUser(String email, String password, Long orgId) {
         // Check if the email is already in use
@@ -146,6 +181,7 @@ public class UserService {
         return convertToDto(savedUser);
     }
 
+    @CacheEvict(value = "userDetails", allEntries = true)
     public boolean confirmUserEmail(String token) {
         User user = userRepository.findByConfirmationToken(token);
         if (user == null) {
@@ -0,0 +1,174 @@
+package com.ase.angelos_kb_backend.service;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.jsoup.Connection;
+import org.jsoup.Jsoup;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.ase.angelos_kb_backend.util.FetchedPage;
+import com.ase.angelos_kb_backend.util.ParseResult;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Fetches and parses many websites at once. Fetching runs on virtual threads, bounded overall and per host
+ * so that a single site is never hit by more than a few requests at a time. Parsing is CPU bound and runs on
+ * a separate, small pool, so slow downloads never block parsing and vice versa.
+ *
+ * Pages are handed to the caller in completion order on the calling thread. Pages that cannot be fetched or
+ * parsed are logged and skipped.
+ */
+@Component
+public class WebsiteCrawler {
+
+    private final ParseCache parseCache;
+    private final ExecutorService fetchExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final ExecutorService parseExecutor;
+    private final Semaphore fetchPermits;
+    private final int perHostConcurrency;
+    private final ConcurrentHashMap<String, Semaphore> hostPermits = new ConcurrentHashMap<>();
+
+    @Value("${app.crawler.timeout-ms:10000}")
+    private int timeoutMs;
+
+    public WebsiteCrawler(ParseCache parseCache,
+                          @Value("${app.crawler.fetch-concurrency:16}") int fetchConcurrency,
+                          @Value("${app.crawler.per-host-concurrency:4}") int perHostConcurrency,
+                          @Value("${app.crawler.parse-threads:0}") int parseThreads) {
+        this.parseCache = parseCache;
+        this.fetchPermits = new Semaphore(fetchConcurrency);
+        this.perHostConcurrency = perHostConcurrency;
+        this.parseExecutor = Executors.newFixedThreadPool(
+                parseThreads > 0 ? parseThreads : Runtime.getRuntime().availableProcessors());
+    }
+
+    public record CrawledPage<T>(T item, FetchedPage page, ParseResult result) {
+    }
+
+    /**
+     * Fetches and parses the link of every item and passes each parsed page to the consumer, items that could
+     * not be fetched or parsed to onFailure. Returns once all items have been processed; both callbacks are
+     * always called on the calling thread.
+     *
+     * @return the number of items that were skipped because they could not be fetched or parsed
+     */
+    public <T> int crawl(List<T> items, Function<T, String> linkOf, Consumer<CrawledPage<T>> consumer,
+                         BiConsumer<T, Throwable> onFailure) {
+        List<CompletableFuture<CrawledPage<T>>> pages = new ArrayList<>();
+        BlockingQueue<Integer> completed = new LinkedBlockingQueue<>();
+        for (T item : items) {
+            String link = linkOf.apply(item);
+            int index = pages.size();
+            CompletableFuture<CrawledPage<T>> page = CompletableFuture
+                    .supplyAsync(() -> fetch(link, null, null), fetchExecutor)
+                    .thenApplyAsync(fetched -> new CrawledPage<>(item, fetched, parseCache.parseWebsite(link, fetched.body())), parseExecutor);
+            pages.add(page);
+            page.whenComplete((result, e) -> completed.add(index));
+        }
+
+        int skipped = 0;
+        for (int i = 0; i < items.size(); i++) {
+            int index;
+            try {
+                index = completed.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while crawling websites", e);
+            }
+
+            CrawledPage<T> result;
+            try {
+                result = pages.get(index).join();
+            } catch (RuntimeException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                System.err.println("Skipping website: " + cause.getMessage());
+                skipped++;
+                onFailure.accept(items.get(index), cause);
+                continue;
+            }
+            consumer.accept(result);
+        }
+        return skipped;
+    }
+
+    /**
+     * Fetches a single page, respecting the per host limit. If validators of a previous fetch are given the
+     * request is conditional and a page the server reports as unchanged comes back without body.
+     */
+    public FetchedPage fetch(String link, String etag, String lastModified) {
+        Semaphore hostPermit = hostPermits.computeIfAbsent(hostOf(link), host -> new Semaphore(perHostConcurrency));
+        try {
+            // Wait for the host first, so pages of a busy host do not hold permits other hosts could use
+            hostPermit.acquire();
+            try {
+                fetchPermits.acquire();
+                try {
+                    return execute(link, etag, lastModified);
+                } finally {
+                    fetchPermits.release();
+                }
+            } finally {
+                hostPermit.release();
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to fetch " + link + ": " + e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while fetching " + link, e);
+        }
+    }
+
+    private FetchedPage execute(String link, String etag, String lastModified) throws IOException {
+        Connection connection = Jsoup.connect(link).timeout(timeoutMs).userAgent("Mozilla/5.0").ignoreHttpErrors(true);
+        if (etag != null) {
+            connection.header("If-None-Match", etag);
+        }
+        if (lastModified != null) {
+            connection.header("If-Modified-Since", lastModified);
+        }
+
+        Connection.Response response = connection.execute();
+        if (response.statusCode() == 304 && (etag != null || lastModified != null)) {
+            return FetchedPage.notModified();
+        }
+        if (response.statusCode() != 200) {
+            throw new RuntimeException("Failed to fetch " + link + ": status " + response.statusCode());
+        }
+        byte[] body = response.bodyAsBytes();
+        return new FetchedPage(response.body(), response.header("ETag"), response.header("Last-Modified"), (long) body.length);
+    }
+
+    private String hostOf(String link) {
+        try {
+            String host = URI.create(link).getHost();
+            if (host == null) {
+                throw new RuntimeException("Failed to fetch " + link + ": no host");
+            }
+            return host.toLowerCase(Locale.ROOT);
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Failed to fetch " + link + ": invalid link", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        fetchExecutor.shutdownNow();
+        parseExecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,175 @@
+package com.ase.angelos_kb_backend.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+
+import com.ase.angelos_kb_backend.util.GenericWebsiteParser;
+import com.ase.angelos_kb_backend.util.ParseResult;
+import com.ase.angelos_kb_backend.util.ParserProfile;
+import com.ase.angelos_kb_backend.util.ProfileWebsiteParser;
+import com.ase.angelos_kb_backend.util.WebsiteParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Chooses the parser for a web page by its host. Parsers are the WebsiteParser beans and one parser per
+ * profile in app.parsers.profiles, so the sites of a new faculty can get a tighter extraction by adding a
+ * profile with the content roots to keep and the noise to drop. The parser whose host pattern matches the
+ * host most specifically wins, pages of all other hosts go to the generic parser.
+ *
+ * Every parser reports website.parser.duration, website.parser.output (characters extracted per page) and
+ * website.parser.errors, tagged with the name of the parser.
+ */
+@Component
+public class WebsiteParserRegistry {
+
+    private final GenericWebsiteParser genericParser;
+    private final ObjectMapper objectMapper;
+    private final ResourceLoader resourceLoader;
+    private final MeterRegistry meterRegistry;
+    private final List<WebsiteParser> parsers = new CopyOnWriteArrayList<>();
+    private final Map<String, Meters> meters = new ConcurrentHashMap<>();
+
+    // Empty registers no profiles
+    @Value("${app.parsers.profiles:}")
+    private String profilesLocation;
+
+    public WebsiteParserRegistry(List<WebsiteParser> parsers, GenericWebsiteParser genericParser, ObjectMapper objectMapper,
+                                 ResourceLoader resourceLoader, MeterRegistry meterRegistry) {
+        this.genericParser = genericParser;
+        this.objectMapper = objectMapper;
+        this.resourceLoader = resourceLoader;
+        this.meterRegistry = meterRegistry;
+        parsers.forEach(this::register);
+    }
+
+    @PostConstruct
+    public void loadProfiles() {
+        if (profilesLocation == null || profilesLocation.isBlank()) {
+            return;
+        }
+        Resource resource = resourceLoader.getResource(profilesLocation);
+        try (InputStream in = resource.getInputStream()) {
+            for (JsonNode node : objectMapper.readTree(in)) {
+                ParserProfile profile = objectMapper.treeToValue(node, ParserProfile.class);
+                if (profile.name() == null || profile.hosts().isEmpty()) {
+                    throw new IllegalArgumentException("Parser profiles need a name and at least one host: " + node);
+                }
+                register(new ProfileWebsiteParser(profile, sha256(node.toString()), genericParser));
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to load parser profiles from " + profilesLocation, e);
+        }
+        System.out.println("Registered website parsers: " + parsers.stream().map(WebsiteParser::getName).toList());
+    }
+
+    public void register(WebsiteParser parser) {
+        if (meters.putIfAbsent(parser.getName(), new Meters(parser.getName())) != null) {
+            throw new IllegalArgumentException("A website parser named " + parser.getName() + " is already registered");
+        }
+        parsers.add(parser);
+    }
+
+    /**
+     * The parser responsible for the host of the link.
+     */
+    public WebsiteParser resolve(String link) {
+        String host = hostOf(link);
+        WebsiteParser best = genericParser;
+        int bestLength = -1;
+        if (host != null) {
+            for (WebsiteParser parser : parsers) {
+                for (String pattern : parser.getHostPatterns()) {
+                    String domain = pattern.startsWith("*.") ? pattern.substring(2) : pattern;
+                    domain = domain.toLowerCase(Locale.ROOT);
+                    boolean matches = host.equals(domain) || host.endsWith("." + domain);
+                    if (matches && domain.length() > bestLength) {
+                        best = parser;
+                        bestLength = domain.length();
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Parses a fetched page with the parser responsible for its host.
+     */
+    public ParseResult parse(String link, String html) {
+        WebsiteParser parser = resolve(link);
+        Meters parserMeters = meters.computeIfAbsent(parser.getName(), Meters::new);
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            String content = parser.parse(link, html);
+            parserMeters.output.record(content != null ? content.length() : 0);
+            return new ParseResult(content, parser.getType());
+        } catch (RuntimeException e) {
+            parserMeters.errors.increment();
+            throw e;
+        } finally {
+            sample.stop(parserMeters.duration);
+        }
+    }
+
+    private String hostOf(String link) {
+        try {
+            String host = URI.create(link).getHost();
+            return host != null ? host.toLowerCase(Locale.ROOT) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static String sha256(String value) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("Hashing algorithm not available", e);
+        }
+    }
+
+    private class Meters {
+
+        private final Timer duration;
+        private final DistributionSummary output;
+        private final Counter errors;
+
+        Meters(String parser) {
+            this.duration = Timer.builder("website.parser.duration")
+                    .description("Time to extract the text of a fetched page")
+                    .tag("parser", parser)
+                    .register(meterRegistry);
+            this.output = DistributionSummary.builder("website.parser.output")
+                    .description("Characters extracted per page")
+                    .baseUnit("characters")
+                    .tag("parser", parser)
+                    .register(meterRegistry);
+            this.errors = Counter.builder("website.parser.errors")
+                    .description("Pages the parser failed on")
+                    .tag("parser", parser)
+                    .register(meterRegistry);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.ase.angelos_kb_backend.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.ase.angelos_kb_backend.repository.WebsiteContentRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Keeps the knowledge of all websites up to date in the background. Every website carries its next refresh time,
+ * the engine periodically checks the websites that are due with bounded concurrency and only sends changed
+ * pages to the RAG. Since the schedule is stored with each website, a restart continues with the websites
+ * that are still due instead of crawling everything again.
+ *
+ * Several instances may poll at once. An instance claims a due website by moving its next refresh behind the
+ * retry delay with a conditional update; if the instance stops during the refresh, the website is due again then.
+ *
+ * Results are published as website.refresh with result=changed, unchanged or failed.
+ */
+@Component
+@ConditionalOnProperty(name = "app.refresh.enabled", havingValue = "true", matchIfMissing = true)
+public class WebsiteRefreshService {
+
+    private final WebsiteContentRepository websiteContentRepository;
+    private final WebsiteService websiteService;
+    private final Counter changed;
+    private final Counter unchanged;
+    private final Counter failed;
+    private final ExecutorService executor;
+
+    @Value("${app.refresh.batch-size:50}")
+    private int batchSize;
+
+    @Value("${app.refresh.retry-minutes:60}")
+    private long retryMinutes;
+
+    public WebsiteRefreshService(WebsiteContentRepository websiteContentRepository, WebsiteService websiteService,
+                                 MeterRegistry meterRegistry, @Value("${app.refresh.concurrency:4}") int concurrency) {
+        this.websiteContentRepository = websiteContentRepository;
+        this.websiteService = websiteService;
+        this.changed = meterRegistry.counter("website.refresh", "result", "changed");
+        this.unchanged = meterRegistry.counter("website.refresh", "result", "unchanged");
+        this.failed = meterRegistry.counter("website.refresh", "result", "failed");
+        this.executor = Executors.newFixedThreadPool(concurrency);
+    }
+
+    @Scheduled(initialDelayString = "${app.refresh.initial-delay-ms:60000}", fixedDelayString = "${app.refresh.poll-interval-ms:60000}")
+    public void refreshDueWebsites() {
+        LocalDateTime now = LocalDateTime.now();
+        List<UUID> due = websiteContentRepository.findIdsDueForRefresh(now, PageRequest.of(0, batchSize));
+        if (due.isEmpty()) {
+            return;
+        }
+
+        double changedBefore = changed.count();
+        double failedBefore = failed.count();
+        List<Future<?>> refreshes = new ArrayList<>();
+        for (UUID id : due) {
+            // Another instance may have claimed the website in the meantime
+            if (websiteContentRepository.claimRefresh(id, now, now.plusMinutes(retryMinutes)) == 1) {
+                refreshes.add(executor.submit(() -> refresh(id)));
+            }
+        }
+        for (Future<?> refresh : refreshes) {
+            try {
+                refresh.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                // refresh handles its own failures
+            }
+        }
+        if (refreshes.isEmpty()) {
+            return;
+        }
+        System.out.println("Refreshed " + refreshes.size() + " websites: " + (int) (changed.count() - changedBefore) + " changed, "
+                + (int) (failed.count() - failedBefore) + " failed.");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void refresh(UUID id) {
+        try {
+            if (websiteService.refreshWebsite(id)) {
+                changed.increment();
+            } else {
+                unchanged.increment();
+            }
+        } catch (RuntimeException e) {
+            failed.increment();
+            System.err.println("Failed to refresh website " + id + ", retrying in " + retryMinutes + " minutes: " + e.getMessage());
+            try {
+                websiteService.postponeRefresh(id, retryMinutes);
+            } catch (RuntimeException postponeFailure) {
+                System.err.println("Failed to postpone refresh of website " + id + ": " + postponeFailure.getMessage());
+            }
+        }
+    }
+}
@@ -1,25 +1,42 @@
 package com.ase.angelos_kb_backend.service;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import com.ase.angelos_kb_backend.dto.PageDTO;
 import com.ase.angelos_kb_backend.dto.StudyProgramDTO;
 import com.ase.angelos_kb_backend.dto.WebsiteRequestDTO;
 import com.ase.angelos_kb_backend.dto.WebsiteResponseDTO;
 import com.ase.angelos_kb_backend.dto.angelos.AngelosAddWebsiteRequest;
+import com.ase.angelos_kb_backend.dto.angelos.AngelosEditWebsiteRequest;
 import com.ase.angelos_kb_backend.exception.ResourceNotFoundException;
 import com.ase.angelos_kb_backend.exception.UnauthorizedException;
 import com.ase.angelos_kb_backend.model.Organisation;
 import com.ase.angelos_kb_backend.model.StudyProgram;
 import com.ase.angelos_kb_backend.model.WebsiteContent;
 import com.ase.angelos_kb_backend.repository.WebsiteContentRepository;
+import com.ase.angelos_kb_backend.repository.WebsiteListView;
+import com.ase.angelos_kb_backend.service.WebsiteCrawler.CrawledPage;
+import com.ase.angelos_kb_backend.util.FetchedPage;
+import com.ase.angelos_kb_backend.util.ListingQuery;
+import com.ase.angelos_kb_backend.util.ListingSort;
+import com.ase.angelos_kb_backend.util.OutboxAggregate;
+import com.ase.angelos_kb_backend.util.OutboxOperation;
+import com.ase.angelos_kb_backend.util.PageCursor;
 import com.ase.angelos_kb_backend.util.ParseResult;
 
 
@@ -29,19 +46,40 @@ public class WebsiteService {
     private final WebsiteContentRepository websiteContentRepository;
     private final OrganisationService organisationService;
     private final StudyProgramService studyProgramService;
-    private final AngelosService angelosService;
+    private final OutboxService outboxService;
     private final ParsingService parsingService;
+    private final ParseCache parseCache;
+    private final WebsiteCrawler websiteCrawler;
+    private final ContentSyncService contentSyncService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.crawler.batch-size:100}")
+    private int batchSize;
+
+    @Value("${app.refresh.default-interval-minutes:1440}")
+    private long defaultRefreshIntervalMinutes;
+
+    @Value("${app.refresh.jitter:0.1}")
+    private double refreshJitter;
 
     public WebsiteService(WebsiteContentRepository websiteContentRepository,
                           OrganisationService organisationService,
                           StudyProgramService studyProgramService,
-                          AngelosService angelosService,
-                          ParsingService parsingService) {
+                          OutboxService outboxService,
+                          ParsingService parsingService,
+                          ParseCache parseCache,
+                          WebsiteCrawler websiteCrawler,
+                          ContentSyncService contentSyncService,
+                          TransactionTemplate transactionTemplate) {
         this.websiteContentRepository = websiteContentRepository;
         this.organisationService = organisationService;
         this.studyProgramService = studyProgramService;
-        this.angelosService = angelosService;
+        this.outboxService = outboxService;
         this.parsingService = parsingService;
+        this.parseCache = parseCache;
+        this.websiteCrawler = websiteCrawler;
+        this.contentSyncService = contentSyncService;
+        this.transactionTemplate = transactionTemplate;
     }
 
     public List<WebsiteResponseDTO> getAllWebsitesByOrgId(Long orgId) {
@@ -49,14 +87,44 @@ public class WebsiteService {
         return websites.stream().map(this::convertToDto).collect(Collectors.toList());
     }
 
+    /**
+     * A page of the websites of an organisation. Only the listed columns are read, the study programs of the
+     * whole page in one more query.
+     */
+    public PageDTO<WebsiteResponseDTO> getWebsitesPage(Long orgId, ListingQuery query) {
+        PageCursor after = query.after();
+        // One more row than the limit tells whether there is a next page
+        PageRequest page = PageRequest.of(0, query.limit() + 1);
+        List<WebsiteListView> rows = switch (query.sort()) {
+            case NAME -> websiteContentRepository.findPageByTitle(orgId, query.pattern(), query.studyProgramId(),
+                    after.key(), after.uuid(), page);
+            case UPDATED -> websiteContentRepository.findPageByUpdated(orgId, query.pattern(), query.studyProgramId(),
+                    after.time(), after.uuid(), page);
+        };
+        return PageDTO.of(rows, query.limit(),
+                row -> PageCursor.after(query.sort() == ListingSort.NAME ? row.getTitle() : row.getUpdatedAt(), row.getId()),
+                this::convertToDtos);
+    }
+
     public WebsiteResponseDTO getWebsiteById(UUID id) {
         WebsiteContent websiteContent = websiteContentRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Website not found with id " + id));
         return this.convertToDto(websiteContent);
     }
 
-    @Transactional
+    /**
+     * Fetches and parses the website before its transaction starts, the transaction only stores it and queues
+     * it for the RAG.
+     */
     public WebsiteResponseDTO addWebsite(Long orgId, WebsiteRequestDTO websiteRequestDTO) {
+        // Fetch and parse website content
+        FetchedPage page = websiteCrawler.fetch(websiteRequestDTO.getLink(), null, null);
+        ParseResult parseResult = parseCache.parseWebsite(websiteRequestDTO.getLink(), page.body());
+
+        return transactionTemplate.execute(status -> storeWebsite(orgId, websiteRequestDTO, page, parseResult));
+    }
+
+    private WebsiteResponseDTO storeWebsite(Long orgId, WebsiteRequestDTO websiteRequestDTO, FetchedPage page, ParseResult parseResult) {
         // Fetch Organisation
         Organisation organisation = organisationService.getOrganisationById(orgId);
 
@@ -73,14 +141,9 @@ public class WebsiteService {
         List<StudyProgram> studyPrograms = studyProgramService.getStudyProgramsByIds(websiteRequestDTO.getStudyProgramIds());
         websiteContent.setStudyPrograms(studyPrograms);
 
-        // Parse website content
-        ParseResult parseResult = parsingService.parseWebsite(websiteContent.getLink());
-        String parsedContent = parseResult.getContent();
-        String websiteType = parseResult.getParserType();
-
-        // Compute content hash
-        String contentHash = parsingService.computeContentHash(parsedContent);
-        websiteContent.setContentHash(contentHash);
+        setValidators(websiteContent, page);
+        websiteContent.setRefreshIntervalMinutes(websiteRequestDTO.getRefreshIntervalMinutes());
+        scheduleNextRefresh(websiteContent);
 
         // Save to database
         WebsiteContent savedWebsite = websiteContentRepository.save(websiteContent);
@@ -95,22 +158,25 @@ public class WebsiteService {
             .map(studyProgramIdToNameMap::get)
             .toList();
         ragRequest.setStudyPrograms(studyProgramNames);
-        ragRequest.setContent(parsedContent);
-        ragRequest.setType(websiteType);
+        ragRequest.setContent(contentSyncService.recordContent(savedWebsite.getId(), orgId, parseResult.getContent()));
+        ragRequest.setType(parseResult.getParserType());
+        savedWebsite.setContentHash(parsingService.computeContentHash(ragRequest.getContent()));
 
-        // Send add request to Angelos RAG
-        boolean success = angelosService.sendWebsiteAddRequest(ragRequest);
-
-        if (!success) {
-            throw new RuntimeException("Failed to send add request to Angelos RAG system.");
-        }
+        // Queue add request to Angelos RAG
+        outboxService.record(OutboxAggregate.WEBSITE, ragRequest.getId(), OutboxOperation.ADD, orgId, ragRequest);
 
         // Map Entity to Response DTO
         return convertToDto(savedWebsite);
     }
 
-    @Transactional
-    public List<WebsiteResponseDTO> addWebsitesInBatch(Long orgId, List<WebsiteRequestDTO> websiteRequestDTOs) {
+    /**
+     * Crawls the websites in parallel and stores them in batches as they come in.
+     * Every batch is saved and queued for the RAG in its own transaction; websites that cannot be fetched or
+     * parsed are skipped, so only the websites that were stored are returned. The outcome of every website is
+     * reported to the progress.
+     */
+    public List<WebsiteResponseDTO> addWebsitesInBatch(Long orgId, List<WebsiteRequestDTO> websiteRequestDTOs, JobProgress progress) {
+        progress.addTotal(websiteRequestDTOs.size());
         Organisation organisation = organisationService.getOrganisationById(orgId);
         List<WebsiteResponseDTO> responseDTOs = new ArrayList<>();
 
@@ -121,67 +187,111 @@ public class WebsiteService {
             .toList();
 
         // Fetch all StudyPrograms in bulk
-        Map<Long, String> studyProgramIdToNameMap = studyProgramService.getStudyProgramsByIds(allStudyProgramIds).stream()
-            .collect(Collectors.toMap(StudyProgram::getSpID, StudyProgram::getName));
-
-        int batchSize = 100;
-        int totalWebsites = websiteRequestDTOs.size();
-        
-        for (int i = 0; i < totalWebsites; i += batchSize) {
-            List<WebsiteRequestDTO> batch = websiteRequestDTOs.subList(i, Math.min(i + batchSize, totalWebsites));
-            List<AngelosAddWebsiteRequest> ragRequests = new ArrayList<>();
-
-            for (WebsiteRequestDTO dto : batch) {
-                WebsiteContent websiteContent = new WebsiteContent();
-                websiteContent.setTitle(dto.getTitle());
-                websiteContent.setLink(dto.getLink());
-                websiteContent.setOrganisation(organisation);
-
-                // Fetch Study Programs
-                List<StudyProgram> studyPrograms = studyProgramService.getStudyProgramsByIds(dto.getStudyProgramIds());
-                websiteContent.setStudyPrograms(studyPrograms);
-
-                // Parse website content
-                ParseResult parseResult = parsingService.parseWebsite(websiteContent.getLink());
-                String parsedContent = parseResult.getContent();
-                String websiteType = parseResult.getParserType();
-
-                // Compute content hash
-                String contentHash = parsingService.computeContentHash(parsedContent);
-                websiteContent.setContentHash(contentHash);
-
-                // Save to database
-                WebsiteContent savedWebsite = websiteContentRepository.save(websiteContent);
-                responseDTOs.add(convertToDto(savedWebsite));
-
-                // Prepare Angelos RAG Request
-                AngelosAddWebsiteRequest ragRequest = new AngelosAddWebsiteRequest();
-                ragRequest.setId(savedWebsite.getId().toString());
-                ragRequest.setOrgId(orgId);
-                ragRequest.setTitle(dto.getTitle());
-                ragRequest.setLink(dto.getLink());
-                // Map IDs to Names
-                List<String> studyProgramNames = dto.getStudyProgramIds().stream()
-                    .map(studyProgramIdToNameMap::get)
-                    .toList();
-                ragRequest.setStudyPrograms(studyProgramNames);
-                ragRequest.setContent(parsedContent);
-                ragRequest.setType(websiteType);
-
-                ragRequests.add(ragRequest);
+        Map<Long, StudyProgram> studyProgramsById = studyProgramService.getStudyProgramsByIds(allStudyProgramIds).stream()
+            .collect(Collectors.toMap(StudyProgram::getSpID, Function.identity()));
+
+        List<CrawledPage<WebsiteRequestDTO>> batch = new ArrayList<>();
+        int skipped = websiteCrawler.crawl(websiteRequestDTOs, WebsiteRequestDTO::getLink, page -> {
+            batch.add(page);
+            if (batch.size() >= batchSize) {
+                responseDTOs.addAll(saveBatch(orgId, organisation, studyProgramsById, batch, progress));
+                batch.clear();
             }
+        }, (dto, e) -> progress.failed(dto.getLink(), e.getMessage()));
+        if (!batch.isEmpty()) {
+            responseDTOs.addAll(saveBatch(orgId, organisation, studyProgramsById, batch, progress));
+        }
 
-            // Send batch to RAG
-            boolean success = angelosService.sendBatchWebsiteAddRequest(ragRequests);
+        System.out.println(responseDTOs.size() + " of " + websiteRequestDTOs.size() + " websites added, "
+            + skipped + " could not be crawled.");
 
-            if (!success) {
-                throw new RuntimeException("Failed to send batch add request to Angelos RAG system.");
-            }
+        return responseDTOs;
+    }
+
+    private List<WebsiteResponseDTO> saveBatch(Long orgId, Organisation organisation, Map<Long, StudyProgram> studyProgramsById,
+                                               List<CrawledPage<WebsiteRequestDTO>> batch, JobProgress progress) {
+        List<WebsiteResponseDTO> saved = transactionTemplate.execute(status -> doSaveBatch(organisation, studyProgramsById, batch));
+        progress.succeeded(saved.size());
+        return saved;
+    }
+
+    private List<WebsiteResponseDTO> doSaveBatch(Organisation organisation, Map<Long, StudyProgram> studyProgramsById,
+                                                 List<CrawledPage<WebsiteRequestDTO>> batch) {
+        List<WebsiteContent> websites = new ArrayList<>();
+        for (CrawledPage<WebsiteRequestDTO> page : batch) {
+            WebsiteRequestDTO dto = page.item();
+            WebsiteContent websiteContent = new WebsiteContent();
+            websiteContent.setTitle(dto.getTitle());
+            websiteContent.setLink(dto.getLink());
+            websiteContent.setOrganisation(organisation);
+            websiteContent.setStudyPrograms(dto.getStudyProgramIds().stream()
+                .map(studyProgramsById::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList()));
+            setValidators(websiteContent, page.page());
+            websiteContent.setRefreshIntervalMinutes(dto.getRefreshIntervalMinutes());
+            scheduleNextRefresh(websiteContent);
+            websites.add(websiteContent);
         }
 
-        return responseDTOs;
+        // Save to database
+        List<WebsiteContent> savedWebsites = websiteContentRepository.saveAll(websites);
+
+        // Queue Angelos RAG Requests, the dispatcher sends them in batches
+        for (int i = 0; i < savedWebsites.size(); i++) {
+            WebsiteContent website = savedWebsites.get(i);
+            website.setContentHash(parsingService.computeContentHash(recordAdd(website, batch.get(i).result())));
+        }
+
+        return savedWebsites.stream().map(this::convertToDto).toList();
+    }
+
+    /**
+     * Fetches websites again and queues their full content for the RAG, as an add for websites the RAG is missing
+     * or as a refresh for websites whose content in the RAG differs. Websites that no longer exist are skipped.
+     */
+    public void resendWebsites(List<UUID> websiteIds, OutboxOperation operation, JobProgress progress) {
+        List<WebsiteContent> websites = websiteContentRepository.findAllById(websiteIds);
+        progress.succeeded(websiteIds.size() - websites.size());
+        websiteCrawler.crawl(websites, WebsiteContent::getLink, page -> {
+            transactionTemplate.executeWithoutResult(status -> websiteContentRepository.findById(page.item().getId())
+                .ifPresent(website -> resend(website, page, operation)));
+            progress.succeeded(1);
+        }, (website, e) -> progress.failed(website.getLink(), e.getMessage()));
     }
 
+    private void resend(WebsiteContent website, CrawledPage<WebsiteContent> page, OutboxOperation operation) {
+        String sentContent;
+        if (operation == OutboxOperation.ADD) {
+            sentContent = recordAdd(website, page.result());
+        } else {
+            // Drop the stored chunks, the RAG does not have the content they describe
+            contentSyncService.deleteChunks(website.getId());
+            sentContent = contentSyncService.refreshWebsite(website.getId(), website.getOrganisation().getOrgID(), page.result().getContent());
+        }
+        website.setContentHash(parsingService.computeContentHash(sentContent));
+        setValidators(website, page.page());
+        websiteContentRepository.save(website);
+    }
+
+    // Returns the content as sent
+    private String recordAdd(WebsiteContent website, ParseResult parseResult) {
+        Long orgId = website.getOrganisation().getOrgID();
+        AngelosAddWebsiteRequest ragRequest = new AngelosAddWebsiteRequest();
+        ragRequest.setId(website.getId().toString());
+        ragRequest.setOrgId(orgId);
+        ragRequest.setTitle(website.getTitle());
+        ragRequest.setLink(website.getLink());
+        ragRequest.setStudyPrograms(website.getStudyPrograms().stream().map(StudyProgram::getName).toList());
+        ragRequest.setContent(contentSyncService.recordContent(website.getId(), orgId, parseResult.getContent()));
+        ragRequest.setType(parseResult.getParserType());
+        outboxService.record(OutboxAggregate.WEBSITE, ragRequest.getId(), OutboxOperation.ADD, orgId, ragRequest);
+        return ragRequest.getContent();
+    }
+
+    /**
+     * Edits the metadata of a website. The content is not fetched again, the background refresh keeps it up to date.
+     */
     @Transactional
     public WebsiteResponseDTO editWebsite(Long orgId, UUID websiteId, WebsiteRequestDTO websiteRequestDTO) {
         // Fetch the existing WebsiteContent by ID
@@ -208,29 +318,21 @@ public class WebsiteService {
                 .map(StudyProgram::getName)
                 .collect(Collectors.toList());
 
-            // Convert StudyProgram entities to DTOs
-            boolean success = angelosService.sendWebsiteUpdateRequest(websiteId.toString(), websiteRequestDTO.getTitle(), studyProgramNames, orgId);
-            if (!success) {
-                throw new RuntimeException("Failed to send update request to Angelos RAG system.");
-            }
+            AngelosEditWebsiteRequest ragRequest = new AngelosEditWebsiteRequest();
+            ragRequest.setTitle(websiteRequestDTO.getTitle());
+            ragRequest.setStudyPrograms(studyProgramNames);
+            ragRequest.setOrgId(orgId);
+            outboxService.record(OutboxAggregate.WEBSITE, websiteId.toString(), OutboxOperation.UPDATE, orgId, ragRequest);
             existingWebsite.setStudyPrograms(newStudyPrograms);
         }
     
-        // Parse website content
-        String parsedContent = parsingService.parseWebsite(existingWebsite.getLink()).getContent();
-
-        // Compute content hash
-        String contentHash = parsingService.computeContentHash(parsedContent);
-                    
-        // Check if content has actually changed
-        if (!contentHash.equals(existingWebsite.getContentHash())) {
-            // Content has changed, send update request to Angelos RAG
-            boolean success = angelosService.sendWebsiteRefreshRequest(existingWebsite.getId().toString(), parsedContent);
-            if (!success) {
-                throw new RuntimeException("Failed to send update request to Angelos RAG system.");
-            }
-            existingWebsite.setContentHash(contentHash);
+        if (websiteRequestDTO.getRefreshIntervalMinutes() != null
+                && !websiteRequestDTO.getRefreshIntervalMinutes().equals(existingWebsite.getRefreshIntervalMinutes())) {
+            existingWebsite.setRefreshIntervalMinutes(websiteRequestDTO.getRefreshIntervalMinutes());
+            rescheduleRefresh(existingWebsite);
         }
+
+        // Only metadata is edited, the content is kept up to date by the background refresh
         // Save the updated entity to the database
         WebsiteContent updatedWebsite = websiteContentRepository.save(existingWebsite);
     
@@ -238,6 +340,7 @@ public class WebsiteService {
         return convertToDto(updatedWebsite);
     }
 
+    @Transactional
     public void deleteWebsite(UUID id, Long orgId) {
         if (websiteContentRepository.existsById(id)) {
             WebsiteContent existingWebsite = websiteContentRepository.findById(id)
@@ -245,23 +348,135 @@ public class WebsiteService {
             if (!existingWebsite.getOrganisation().getOrgID().equals(orgId)) {
                 throw new UnauthorizedException("You are not authorized to edit this website.");
             } else {
-                boolean success = angelosService.sendWebsiteDeleteRequest(id.toString());
-                if (!success) {
-                    throw new RuntimeException("Delete request to Angelos RAG system failed.");
-                }
+                outboxService.record(OutboxAggregate.WEBSITE, id.toString(), OutboxOperation.DELETE, orgId, null);
                 websiteContentRepository.deleteById(id);
+                contentSyncService.deleteChunks(id);
             }
         } else {
             throw new ResourceNotFoundException("Website not found with id " + id);
         }
     }
 
+    /**
+     * Re-checks the content of a website for the background refresh.
+     *
+     * The website is fetched and parsed before the transaction starts, the transaction only stores the result.
+     *
+     * @return whether the content changed and was queued for the RAG
+     */
+    public boolean refreshWebsite(UUID websiteId) {
+        FetchedContent content = fetchContent(findWebsite(websiteId));
+        return transactionTemplate.execute(status -> {
+            WebsiteContent website = findWebsite(websiteId);
+            boolean changed = applyContent(website, content);
+            websiteContentRepository.save(website);
+            return changed;
+        });
+    }
+
+    private WebsiteContent findWebsite(UUID websiteId) {
+        return websiteContentRepository.findById(websiteId)
+                .orElseThrow(() -> new ResourceNotFoundException("Website not found with id " + websiteId));
+    }
+
+    /**
+     * Moves the next background refresh of a website that could not be refreshed.
+     */
+    @Transactional
+    public void postponeRefresh(UUID websiteId, long minutes) {
+        websiteContentRepository.findById(websiteId).ifPresent(website -> {
+            website.setNextRefreshAt(LocalDateTime.now().plusMinutes(minutes));
+            websiteContentRepository.save(website);
+        });
+    }
+
+    // Page and parsed content of a website, the content is null when the page was not modified
+    private record FetchedContent(FetchedPage page, String parsedContent) {
+    }
+
+    // Fetch conditionally, an unchanged page needs neither parsing nor hashing
+    private FetchedContent fetchContent(WebsiteContent website) {
+        FetchedPage page = websiteCrawler.fetch(website.getLink(), website.getEtag(), website.getLastModified());
+        if (page.isNotModified()) {
+            return new FetchedContent(page, null);
+        }
+        // Parse website content
+        return new FetchedContent(page, parseCache.parseWebsite(website.getLink(), page.body()).getContent());
+    }
+
+    private boolean applyContent(WebsiteContent website, FetchedContent content) {
+        boolean changed = false;
+        FetchedPage page = content.page();
+        if (!page.isNotModified()) {
+            String parsedContent = content.parsedContent();
+            Long orgId = website.getOrganisation().getOrgID();
+
+            // Compute content hash of what would be sent, the stored hash is of the content sent before
+            String contentHash = parsingService.computeContentHash(contentSyncService.contentToSend(website.getId(), orgId, parsedContent));
+
+            // Check if content has actually changed
+            if (!contentHash.equals(website.getContentHash())) {
+                // Content has changed, queue update request to Angelos RAG
+                String sentContent = contentSyncService.refreshWebsite(website.getId(), orgId, parsedContent);
+                website.setContentHash(parsingService.computeContentHash(sentContent));
+                changed = true;
+            }
+            setValidators(website, page);
+        }
+        scheduleNextRefresh(website);
+        return changed;
+    }
+
+    // Spread refreshes by a random jitter so that websites added together are not all checked at once
+    private void scheduleNextRefresh(WebsiteContent website) {
+        long interval = website.getRefreshIntervalMinutes() != null ? website.getRefreshIntervalMinutes() : defaultRefreshIntervalMinutes;
+        double jitter = 1 + refreshJitter * (2 * ThreadLocalRandom.current().nextDouble() - 1);
+        LocalDateTime now = LocalDateTime.now();
+        website.setLastCheckedAt(now);
+        website.setNextRefreshAt(now.plusSeconds(Math.max(60, Math.round(interval * 60 * jitter))));
+    }
+
+    // Move the next refresh to the new interval, counted from the last check
+    private void rescheduleRefresh(WebsiteContent website) {
+        if (website.getLastCheckedAt() == null) {
+            scheduleNextRefresh(website);
+            return;
+        }
+        long interval = website.getRefreshIntervalMinutes() != null ? website.getRefreshIntervalMinutes() : defaultRefreshIntervalMinutes;
+        website.setNextRefreshAt(website.getLastCheckedAt().plusMinutes(interval));
+    }
+
+    private void setValidators(WebsiteContent websiteContent, FetchedPage page) {
+        websiteContent.setEtag(page.etag());
+        websiteContent.setLastModified(page.lastModified());
+        websiteContent.setContentLength(page.contentLength());
+    }
+
+    private List<WebsiteResponseDTO> convertToDtos(List<WebsiteListView> rows) {
+        if (rows.isEmpty()) {
+            return List.of();
+        }
+        Map<UUID, List<StudyProgramDTO>> studyPrograms = studyProgramService.groupByOwner(
+                websiteContentRepository.findStudyPrograms(rows.stream().map(WebsiteListView::getId).toList()));
+        return rows.stream()
+                .map(row -> WebsiteResponseDTO.builder()
+                        .id(row.getId().toString())
+                        .title(row.getTitle())
+                        .link(row.getLink())
+                        .lastUpdated(row.getUpdatedAt())
+                        .refreshIntervalMinutes(row.getRefreshIntervalMinutes())
+                        .studyPrograms(studyPrograms.getOrDefault(row.getId(), List.of()))
+                        .build())
+                .toList();
+    }
+
     public WebsiteResponseDTO convertToDto(WebsiteContent websiteContent) {
         WebsiteResponseDTO dto = new WebsiteResponseDTO();
         dto.setId(websiteContent.getId().toString());
         dto.setTitle(websiteContent.getTitle());
         dto.setLink(websiteContent.getLink());
         dto.setLastUpdated(websiteContent.getUpdatedAt());
+        dto.setRefreshIntervalMinutes(websiteContent.getRefreshIntervalMinutes());
 
         // Map study programs to DTOs (assuming StudyProgramDTO and conversion exist)
         List<StudyProgramDTO> studyProgramDTOs = websiteContent.getStudyPrograms().stream()
@@ -0,0 +1,63 @@
+package com.ase.angelos_kb_backend.util;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounds the number of concurrent calls of one kind of traffic, so that it cannot use up the capacity of another.
+ */
+public class Bulkhead {
+
+    private final int maxConcurrent;
+    private final Semaphore permits;
+    private final LongAdder rejected = new LongAdder();
+
+    public Bulkhead(int maxConcurrent) {
+        this.maxConcurrent = maxConcurrent;
+        this.permits = new Semaphore(maxConcurrent);
+    }
+
+    /**
+     * Takes a permit if one is free right now.
+     */
+    public boolean tryAcquire() {
+        if (permits.tryAcquire()) {
+            return true;
+        }
+        rejected.increment();
+        return false;
+    }
+
+    /**
+     * Waits up to maxWait for a free permit.
+     */
+    public boolean tryAcquire(Duration maxWait) {
+        try {
+            if (permits.tryAcquire(maxWait.toMillis(), TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        rejected.increment();
+        return false;
+    }
+
+    public void release() {
+        permits.release();
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    public int getAvailable() {
+        return permits.availablePermits();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+}
@@ -5,171 +5,216 @@ import org.springframework.stereotype.Component;
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.*;
 import org.jsoup.select.Elements;
+import org.jsoup.select.NodeTraversor;
+import org.jsoup.select.NodeVisitor;
 
-import java.io.IOException;
 import java.util.*;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 
 @Component
-public class CITParser {
+public class CITParser implements WebsiteParser {
 
-    public String parseWebsite(String url) {
+    // Captures the first four-digit year
+    private static final Pattern YEAR_PATTERN = Pattern.compile("\\b(\\d{4})\\b");
+
+    @Override
+    public String getName() {
+        return "cit";
+    }
+
+    @Override
+    public String getType() {
+        return "CIT";
+    }
+
+    @Override
+    public List<String> getHostPatterns() {
+        return List.of("cit.tum.de");
+    }
+
+    @Override
+    public String parse(String link, String html) {
+        return parseDocument(Jsoup.parse(html, link));
+    }
+
+    // Extract the content of an already fetched page
+    public String parseDocument(Document doc) {
         StringBuilder contentText = new StringBuilder();
 
-        try {
-            // Fetch the HTML content of the page
-            Document doc = Jsoup.connect(url).get();
+        // Get the page title
+        String pageTitle = doc.title();
+        contentText.append(pageTitle).append("\n\n");
 
-            // Get the page title
-            String pageTitle = doc.title();
-            contentText.append(pageTitle).append("\n\n");
+        // Select the content div
+        Element contentDiv = doc.getElementById("content");
 
-            // Select the content div
-            Element contentDiv = doc.getElementById("content");
+        if (contentDiv == null) {
+            System.out.println("Content div not found");
+            return "";
+        }
 
-            if (contentDiv == null) {
-                System.out.println("Content div not found");
-                return "";
-            }
+        List<Element> childDivs = contentDiv.children();
 
-            List<Element> childDivs = contentDiv.children();
-
-            int index = 0;
-            String pageHeading = "";
-            boolean skipFollowingStudyPlans = false;
-            Integer previousStartYear = null;
-
-            while (index < childDivs.size()) {
-                Element child = childDivs.get(index);
-
-                try {
-                    ExtractedData extractedData = getVisibleText(child, pageHeading);
-                    String heading = extractedData.getHeading();
-                    String text = extractedData.getText();
-
-                    // Make sure only current study plans are included
-                    boolean isStudyPlanSection = heading.contains("Studienplan für Studienbeginn") ||
-                            heading.contains("Studienplan ab Studienbeginn") ||
-                            heading.contains("Studienbeginn ab");
-
-                    if (isStudyPlanSection) {
-                        Integer startYear = parseStartYearFromHeading(heading);
-
-                        // Determine if this section should be skipped
-                        if (skipFollowingStudyPlans) {
-                            if (previousStartYear != null && previousStartYear <= 2019) {
-                                // Skip this section because it is older than the cutoff
-                                index += 1;
-                                continue;
-                            } else {
-                                previousStartYear = startYear;
-                            }
+        int index = 0;
+        String pageHeading = "";
+        boolean skipFollowingStudyPlans = false;
+        Integer previousStartYear = null;
+
+        while (index < childDivs.size()) {
+            Element child = childDivs.get(index);
+
+            try {
+                ExtractedData extractedData = getVisibleText(child, pageHeading);
+                String heading = extractedData.getHeading();
+                String text = extractedData.getText();
+
+                // Make sure only current study plans are included
+                boolean isStudyPlanSection = heading.contains("Studienplan für Studienbeginn") ||
+                        heading.contains("Studienplan ab Studienbeginn") ||
+                        heading.contains("Studienbeginn ab");
+
+                if (isStudyPlanSection) {
+                    Integer startYear = parseStartYearFromHeading(heading);
+
+                    // Determine if this section should be skipped
+                    if (skipFollowingStudyPlans) {
+                        if (previousStartYear != null && previousStartYear <= 2019) {
+                            // Skip this section because it is older than the cutoff
+                            index += 1;
+                            continue;
                         } else {
                             previousStartYear = startYear;
-                            skipFollowingStudyPlans = true;
                         }
                     } else {
-                        // Reset the skip flag if a non-study-plan section is encountered
-                        skipFollowingStudyPlans = false;
+                        previousStartYear = startYear;
+                        skipFollowingStudyPlans = true;
                     }
+                } else {
+                    // Reset the skip flag if a non-study-plan section is encountered
+                    skipFollowingStudyPlans = false;
+                }
 
-                    if (index == 0) {
-                        pageHeading = heading;
-                    }
-                    // Append the extracted content
-                    contentText.append(text).append("\n");
-                    // Add a separator between different sections
-                    contentText.append("\n").append("----------------------------------------").append("\n\n");
-
-                } catch (Exception e) {
-                    System.out.println("Could not extract text: " + e.getMessage());
+                if (index == 0) {
+                    pageHeading = heading;
                 }
+                // Append the extracted content
+                contentText.append(text).append("\n");
+                // Add a separator between different sections
+                contentText.append("\n").append("----------------------------------------").append("\n\n");
 
-                index += 1;
+            } catch (Exception e) {
+                System.out.println("Could not extract text: " + e.getMessage());
             }
 
-        } catch (IOException e) {
-            System.out.println("Failed to connect to " + url + ": " + e.getMessage());
+            index += 1;
         }
 
         return contentText.toString();
     }
 
+    /**
+     * Extracts headings with their hierarchy, paragraphs, list items and tables of a section in a single
+     * pass in document order. Paragraphs and list items whose text already appeared in a table are skipped.
+     */
     private ExtractedData getVisibleText(Element element, String pageHeading) {
-        // Prepare containers for the output
-        List<String> content = new ArrayList<>();
-        Deque<Heading> hierarchyStack = new ArrayDeque<>();
-        if (!pageHeading.isEmpty()) {
-            hierarchyStack.push(new Heading(pageHeading, 1));
-        }
-        String sectionHeading = "";
+        SectionVisitor visitor = new SectionVisitor(pageHeading);
+        NodeTraversor.traverse(visitor, element);
+        return new ExtractedData(visitor.sectionHeading, String.join("\n", visitor.content).trim());
+    }
 
-        // Set up list to track all table texts to avoid duplicates
-        List<String> tableTexts = new ArrayList<>();
+    private class SectionVisitor implements NodeVisitor {
 
-        // Process all elements within the child div
-        Elements elements = element.getAllElements();
-        for (Element elem : elements) {
-            String tagName = elem.tagName().toLowerCase();
+        private final List<String> content = new ArrayList<>();
+        private final Deque<Heading> hierarchyStack = new ArrayDeque<>();
+        private String sectionHeading = "";
+        private String hierarchyString = "";
 
-            if (tagName.matches("h[1-6]")) { // Handle headings (h1, h2, h3, ...)
-                String headingText = elem.text().trim();
-                int headingLevel = Integer.parseInt(tagName.substring(1)); // Extract the level from the tag name (e.g., 'h2' -> 2)
+        // Texts of all tables so far, joined and one by one, and the text each table cell contributed
+        private final StringBuilder joinedTableTexts = new StringBuilder();
+        private final List<String> tableTexts = new ArrayList<>();
+        private final Map<Element, String> cellTexts = new HashMap<>();
 
-                // Get first heading specific to section
-                if (sectionHeading.isEmpty()) {
-                    sectionHeading = headingText;
-                }
+        SectionVisitor(String pageHeading) {
+            if (!pageHeading.isEmpty()) {
+                hierarchyStack.push(new Heading(pageHeading, 1));
+                hierarchyString = pageHeading;
+            }
+        }
 
-                while (!hierarchyStack.isEmpty() && hierarchyStack.peek().getLevel() >= headingLevel) {
-                    hierarchyStack.pop();
+        @Override
+        public void head(Node node, int depth) {
+            if (!(node instanceof Element elem)) {
+                return;
+            }
+            switch (elem.normalName()) {
+                case "h1", "h2", "h3", "h4", "h5", "h6" -> addHeading(elem, elem.normalName().charAt(1) - '0');
+                case "p" -> addText(elem, "");
+                case "li" -> addText(elem, "- ");
+                case "table" -> addTable(elem);
+                default -> {
                 }
+            }
+        }
 
-                // Add the new heading to the stack
-                hierarchyStack.push(new Heading(headingText, headingLevel));
-
-                // Build the hierarchical string
-                List<Heading> hierarchyList = new ArrayList<>(hierarchyStack);
-                Collections.reverse(hierarchyList);
-                String hierarchyString = hierarchyList.stream()
-                        .map(Heading::toString)
-                        .collect(Collectors.joining(" > "));
-                content.add("\n" + headingText);
-                content.add(hierarchyString);
-
-            } else if (tagName.equals("p")) { // Handle paragraphs
-                String paragraphText = elem.text().trim();
-                if (!paragraphText.isEmpty() && tableTexts.stream().noneMatch(t -> t.contains(paragraphText))) {
-                    content.add(paragraphText);
-                }
+        private void addHeading(Element elem, int headingLevel) {
+            String headingText = elem.text().trim();
 
-            } else if (tagName.equals("li")) { // Handle list items
-                String listItemText = elem.text().trim();
-                if (!listItemText.isEmpty() && tableTexts.stream().noneMatch(t -> t.contains(listItemText))) {
-                    content.add("- " + listItemText);
-                }
+            // Get first heading specific to section
+            if (sectionHeading.isEmpty()) {
+                sectionHeading = headingText;
+            }
+
+            while (!hierarchyStack.isEmpty() && hierarchyStack.peek().getLevel() >= headingLevel) {
+                hierarchyStack.pop();
+            }
+            hierarchyStack.push(new Heading(headingText, headingLevel));
 
-            } else if (tagName.equals("table")) { // Handle tables
-                List<Heading> hierarchyList = new ArrayList<>(hierarchyStack);
-                Collections.reverse(hierarchyList);
-                String hierarchyString = hierarchyList.stream()
-                        .map(Heading::toString)
-                        .collect(Collectors.joining(" > "));
-                String tableHeading = "Table (" + hierarchyString + "):";
-                String tableText = processTable(elem);
-                content.add(tableHeading + "\n" + tableText + "\n");
-                tableTexts.add(tableText);
+            // The stack is newest first, the hierarchy reads from the top level down
+            StringBuilder hierarchy = new StringBuilder();
+            Iterator<Heading> headings = hierarchyStack.descendingIterator();
+            while (headings.hasNext()) {
+                hierarchy.append(headings.next()).append(headings.hasNext() ? " > " : "");
             }
+            hierarchyString = hierarchy.toString();
+            content.add("\n" + headingText);
+            content.add(hierarchyString);
         }
 
-        String fullText = content.stream().collect(Collectors.joining("\n")).trim();
+        private void addText(Element elem, String prefix) {
+            String text = elem.text().trim();
+            if (!text.isEmpty() && !inTable(elem, text)) {
+                content.add(prefix + text);
+            }
+        }
 
-        return new ExtractedData(sectionHeading, fullText);
+        private void addTable(Element elem) {
+            String tableText = processTable(elem, cellTexts);
+            content.add("Table (" + hierarchyString + "):\n" + tableText + "\n");
+            joinedTableTexts.append(tableText).append('\n');
+            tableTexts.add(tableText);
+        }
+
+        // Text inside a table cell is usually part of the text the cell contributed, only check all tables otherwise
+        private boolean inTable(Element elem, String text) {
+            if (tableTexts.isEmpty()) {
+                return false;
+            }
+            for (Element parent = elem.parent(); parent != null; parent = parent.parent()) {
+                String cellText = cellTexts.get(parent);
+                if (cellText != null && cellText.contains(text)) {
+                    return true;
+                }
+            }
+            // A match in the joined texts cannot span two tables unless the text has a line break, as in preformatted text
+            if (text.indexOf('\n') < 0) {
+                return joinedTableTexts.indexOf(text) >= 0;
+            }
+            return tableTexts.stream().anyMatch(t -> t.contains(text));
+        }
     }
 
-    private String processTable(Element tableElement) {
+    private String processTable(Element tableElement, Map<Element, String> cellTexts) {
         List<String> rows = new ArrayList<>();
 
         // Process the header (if any)
@@ -181,6 +226,7 @@ public class CITParser {
                 Elements ths = header.select("th");
                 for (Element th : ths) {
                     String cellText = th.text().trim();
+                    cellTexts.put(th, cellText);
                     rowData.add(cellText.isEmpty() ? " " : cellText);
                 }
                 rows.add(String.join(" | ", rowData));
@@ -203,6 +249,7 @@ public class CITParser {
                     cellText = cell.text();
                 }
                 cellText = cellText.trim();
+                cellTexts.put(cell, cellText);
                 rowData.add(cellText.isEmpty() ? " " : cellText);
             }
             rows.add(String.join(" | ", rowData));
@@ -214,11 +261,8 @@ public class CITParser {
     }
 
     private Integer parseStartYearFromHeading(String heading) {
-        // Define a regex pattern to capture the first four-digit year
-        Pattern yearPattern = Pattern.compile("\\b(\\d{4})\\b");
-
         // Search for the first occurrence of a four-digit year in the heading
-        Matcher matcher = yearPattern.matcher(heading);
+        Matcher matcher = YEAR_PATTERN.matcher(heading);
         if (matcher.find()) {
             // Return the year as an integer
             return Integer.parseInt(matcher.group(1));
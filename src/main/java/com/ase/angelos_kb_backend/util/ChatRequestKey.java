@@ -0,0 +1,47 @@
+package com.ase.angelos_kb_backend.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Locale;
+
+import com.ase.angelos_kb_backend.dto.angelos.AngelosChatMessage;
+import com.ase.angelos_kb_backend.dto.angelos.AngelosChatRequest;
+
+/**
+ * Identifies chat requests that Angelos answers the same way.
+ * Messages are compared case-insensitively and with collapsed whitespace, the history is kept as SHA-256 digest.
+ */
+public record ChatRequestKey(String historyDigest, String studyProgram, Long orgId, boolean filterByOrg) {
+
+    public static ChatRequestKey of(AngelosChatRequest request, boolean filterByOrg) {
+        StringBuilder history = new StringBuilder();
+        if (request.getMessages() != null) {
+            for (AngelosChatMessage message : request.getMessages()) {
+                if (message == null) {
+                    continue;
+                }
+                history.append(normalize(message.getType())).append('\u001F')
+                        .append(normalize(message.getMessage())).append('\u001E');
+            }
+        }
+        return new ChatRequestKey(sha256(history.toString()), normalize(request.getStudy_program()), request.getOrgId(), filterByOrg);
+    }
+
+    private static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        return text.strip().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    private static String sha256(String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("Failed to compute chat request key", e);
+        }
+    }
+}
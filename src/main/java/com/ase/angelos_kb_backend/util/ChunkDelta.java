@@ -0,0 +1,54 @@
+package com.ase.angelos_kb_backend.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Difference between the chunks last sent for a source and its current chunks. Chunks are matched by hash,
+ * so moved chunks count as unchanged and only need their new position.
+ */
+public record ChunkDelta(List<TextChunk> added, List<String> removed, List<TextChunk> unchanged) {
+
+    public static ChunkDelta between(List<String> previousHashes, List<TextChunk> current) {
+        Map<String, Integer> remaining = new HashMap<>();
+        for (String hash : previousHashes) {
+            remaining.merge(hash, 1, Integer::sum);
+        }
+
+        List<TextChunk> added = new ArrayList<>();
+        List<TextChunk> unchanged = new ArrayList<>();
+        for (TextChunk chunk : current) {
+            Integer count = remaining.get(chunk.hash());
+            if (count == null) {
+                added.add(chunk);
+            } else {
+                unchanged.add(chunk);
+                if (count == 1) {
+                    remaining.remove(chunk.hash());
+                } else {
+                    remaining.put(chunk.hash(), count - 1);
+                }
+            }
+        }
+
+        List<String> removed = new ArrayList<>();
+        for (String hash : previousHashes) {
+            Integer count = remaining.get(hash);
+            if (count != null) {
+                removed.add(hash);
+                if (count == 1) {
+                    remaining.remove(hash);
+                } else {
+                    remaining.put(hash, count - 1);
+                }
+            }
+        }
+        return new ChunkDelta(added, removed, unchanged);
+    }
+
+    public boolean isEmpty() {
+        return added.isEmpty() && removed.isEmpty();
+    }
+}
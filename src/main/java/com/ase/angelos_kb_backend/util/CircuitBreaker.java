@@ -0,0 +1,121 @@
+package com.ase.angelos_kb_backend.util;
+
+import java.time.Duration;
+
+/**
+ * Stops calls to a remote that keeps failing.
+ * After failureThreshold consecutive failures the circuit opens and every call is rejected right away.
+ * Once openDuration has passed the circuit is half-open and lets a single probe through: if it succeeds the
+ * circuit closes again, if it fails the circuit opens for another openDuration.
+ *
+ * Every state change starts a new generation. A result only counts if its permission was granted in the
+ * current generation, so late results of calls started before the circuit opened neither close nor re-open it.
+ */
+public class CircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    /**
+     * A granted call, handed back with its result.
+     */
+    public static final class Permission {
+
+        private final long generation;
+        private final boolean probe;
+
+        private Permission(long generation, boolean probe) {
+            this.generation = generation;
+            this.probe = probe;
+        }
+    }
+
+    private final int failureThreshold;
+    private final long openNanos;
+
+    private State state = State.CLOSED;
+    private long generation;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean probeInFlight;
+
+    public CircuitBreaker(int failureThreshold, Duration openDuration) {
+        this.failureThreshold = failureThreshold;
+        this.openNanos = openDuration.toNanos();
+    }
+
+    /**
+     * Asks whether a call may be made, null if not. Every granted permission must be handed back to onSuccess,
+     * onFailure or onIgnored.
+     */
+    public synchronized Permission tryAcquirePermission() {
+        switch (state) {
+            case CLOSED:
+                return new Permission(generation, false);
+            case OPEN:
+                if (System.nanoTime() - openedAt < openNanos) {
+                    return null;
+                }
+                transition(State.HALF_OPEN);
+                probeInFlight = true;
+                return new Permission(generation, true);
+            default:
+                if (probeInFlight) {
+                    return null;
+                }
+                probeInFlight = true;
+                return new Permission(generation, true);
+        }
+    }
+
+    public synchronized void onSuccess(Permission permission) {
+        if (permission.generation != generation) {
+            return;
+        }
+        if (state == State.HALF_OPEN) {
+            transition(State.CLOSED);
+        }
+        consecutiveFailures = 0;
+    }
+
+    public synchronized void onFailure(Permission permission) {
+        if (permission.generation != generation) {
+            return;
+        }
+        if (state == State.HALF_OPEN || ++consecutiveFailures >= failureThreshold) {
+            System.err.println("Circuit opened after " + (state == State.HALF_OPEN ? 1 : consecutiveFailures) + " failed calls");
+            transition(State.OPEN);
+            openedAt = System.nanoTime();
+        }
+    }
+
+    /**
+     * Hands back a permission without a result, e.g. because the call was never made.
+     */
+    public synchronized void onIgnored(Permission permission) {
+        if (permission.probe && permission.generation == generation) {
+            probeInFlight = false;
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * Milliseconds until the next probe is let through, 0 if the circuit is not open.
+     */
+    public synchronized long getRemainingOpenMillis() {
+        if (state != State.OPEN) {
+            return 0;
+        }
+        return Math.max(0, (openNanos - (System.nanoTime() - openedAt)) / 1_000_000);
+    }
+
+    // Call with the lock held
+    private void transition(State next) {
+        state = next;
+        generation++;
+        consecutiveFailures = 0;
+        probeInFlight = false;
+    }
+}
@@ -0,0 +1,75 @@
+package com.ase.angelos_kb_backend.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Splits parsed content into chunks that stay stable under small edits. Content is first split into sections at
+ * the separator lines the CIT parser emits between page sections. Sections longer than the chunk size are split
+ * further at blank lines, which both parsers emit before every heading, packing consecutive paragraphs
+ * together up to the chunk size.
+ */
+@Component
+public class ContentChunker {
+
+    public static final String SECTION_SEPARATOR = "----------------------------------------";
+    private static final int MAX_CHUNK_CHARS = 2000;
+
+    public List<TextChunk> chunk(String content) {
+        List<TextChunk> chunks = new ArrayList<>();
+        if (content == null || content.isBlank()) {
+            return chunks;
+        }
+
+        StringBuilder section = new StringBuilder();
+        for (String line : content.split("\\R", -1)) {
+            if (line.trim().equals(SECTION_SEPARATOR)) {
+                splitSection(section.toString(), chunks);
+                section.setLength(0);
+            } else {
+                section.append(line).append('\n');
+            }
+        }
+        splitSection(section.toString(), chunks);
+        return chunks;
+    }
+
+    private void splitSection(String section, List<TextChunk> chunks) {
+        if (section.length() <= MAX_CHUNK_CHARS) {
+            add(section, chunks);
+            return;
+        }
+
+        StringBuilder current = new StringBuilder();
+        for (String paragraph : section.split("\\n\\s*\\n")) {
+            if (current.length() > 0 && current.length() + paragraph.length() > MAX_CHUNK_CHARS) {
+                add(current.toString(), chunks);
+                current.setLength(0);
+            }
+            current.append(paragraph).append("\n\n");
+        }
+        add(current.toString(), chunks);
+    }
+
+    private void add(String text, List<TextChunk> chunks) {
+        String trimmed = text.strip();
+        if (!trimmed.isEmpty()) {
+            chunks.add(new TextChunk(chunks.size(), hash(trimmed), trimmed));
+        }
+    }
+
+    private static String hash(String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(digest.digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("Hashing algorithm not available", e);
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.ase.angelos_kb_backend.util;
+
+import com.ase.angelos_kb_backend.dto.angelos.AngelosChunkDeltaRequest;
+
+/**
+ * New content of a website or document. The delta against the content sent before is optional, without it
+ * the full content is sent.
+ */
+public record ContentRefresh(String content, AngelosChunkDeltaRequest delta) {
+}
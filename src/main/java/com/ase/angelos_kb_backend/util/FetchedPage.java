@@ -0,0 +1,16 @@
+package com.ase.angelos_kb_backend.util;
+
+/**
+ * Response of a website fetch together with the validators needed to fetch it conditionally next time.
+ * A page that has not been modified since the given validators has no body.
+ */
+public record FetchedPage(String body, String etag, String lastModified, Long contentLength) {
+
+    public static FetchedPage notModified() {
+        return new FetchedPage(null, null, null, null);
+    }
+
+    public boolean isNotModified() {
+        return body == null;
+    }
+}
@@ -1,157 +1,267 @@
 package com.ase.angelos_kb_backend.util;
 
-import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
 import org.jsoup.nodes.Node;
+import org.jsoup.nodes.TextNode;
+import org.jsoup.select.NodeFilter;
+import org.jsoup.select.NodeTraversor;
 import org.springframework.stereotype.Component;
 
 
 @Component
-public class GenericWebsiteParser {
+public class GenericWebsiteParser implements WebsiteParser {
 
-    public String parseWebsiteContent(String url) {
-        // Extract content using Jsoup
-        String jsoupContent = extractWithJsoup(url);
-        return jsoupContent;
+    private static final String BEGIN_MARKER = "TYPO3SEARCH_begin";
+    private static final String[] END_MARKERS = {"TYPO3SEARCH_end", "studium spam prevention @tum.de"};
+    private static final String SCRIPT_PREFIX = "window.flow";
+    private static final String[] HEADING_INDENTS = {"", "    ", "        ", "            ", "                ", "                    "};
+    private static final ThreadLocal<Buffers> BUFFERS = ThreadLocal.withInitial(Buffers::new);
+
+    @Override
+    public String getName() {
+        return "generic";
+    }
+
+    @Override
+    public String getType() {
+        return "other";
+    }
+
+    // The fallback for all hosts without a parser of their own
+    @Override
+    public List<String> getHostPatterns() {
+        return List.of();
+    }
+
+    @Override
+    public String parse(String link, String html) {
+        return parseHtml(html);
     }
 
     // Truncation of website content specific to TUM websites
     public String truncateString(String s) {
-        // Define the substrings to search for
-        String[] substrings = {"TYPO3SEARCH_end", "studium spam prevention @tum.de"};
-    
-        // Initialize a list to hold the last indices of each substring
-        List<Integer> lastIndices = new ArrayList<>();
-    
-        // Iterate over each substring and find its last occurrence
-        for (String substr : substrings) {
-            int index = s.lastIndexOf(substr);
-            if (index != -1) {
-                lastIndices.add(index);
-            }
-        }
-    
-        if (!lastIndices.isEmpty()) {
-            // Truncate at the last occurrence of any specified substring
-            int truncateIndex = Collections.max(lastIndices);
-            s = s.substring(0, truncateIndex);
-        }
-    
-        // Remove lines starting with "window.flow"
-        String[] lines = s.split("\\R");
-        StringBuilder filteredLines = new StringBuilder();
-        for (String line : lines) {
-            if (!line.trim().startsWith("window.flow")) {
-                filteredLines.append(line).append("\n");
-            }
-        }
-    
-        // Return the filtered content (full content if no substrings were found)
-        return filteredLines.toString();
+        StringBuilder text = new StringBuilder(s);
+        StringBuilder out = new StringBuilder(s.length() + 1);
+        truncate(text);
+        writeLines(text, out);
+        return out.toString();
+    }
+
+    /**
+     * Extract structured content from already fetched HTML. Only the part after the TYPO3SEARCH_begin marker is
+     * parsed if the page has one. The text is written once into a buffer of the calling thread, then blank lines
+     * are collapsed, the page is truncated at its footer and script lines are dropped in a second pass.
+     */
+    public String parseHtml(String htmlContent) {
+        // If marker is found, parse only the content after the marker
+        int markerPos = htmlContent.indexOf(BEGIN_MARKER);
+        Document document = Jsoup.parse(markerPos != -1 ? htmlContent.substring(markerPos + BEGIN_MARKER.length()) : htmlContent);
+
+        return extract(List.of(document));
     }
 
-    // Extract content from a URL using Jsoup, structuring the text with hierarchy
-    public String extractWithJsoup(String url) {
+    /**
+     * Extracts structured content from the given elements in order, as if they were the whole page.
+     */
+    public String extract(List<? extends Node> roots) {
+        Buffers buffers = BUFFERS.get();
         try {
-            // Fetch the URL
-            org.jsoup.Connection.Response response = Jsoup.connect(url).timeout(10_000).userAgent("Mozilla/5.0").execute();
-    
-            if (response.statusCode() == 200) {
-                String htmlContent = response.body();
-    
-                // Parse the entire content by default
-                Document document = Jsoup.parse(htmlContent);
-    
-                // If marker is found, process only the content after the marker
-                int markerPos = htmlContent.indexOf("TYPO3SEARCH_begin");
-                if (markerPos != -1) {
-                    String contentAfterMarker = htmlContent.substring(markerPos + "TYPO3SEARCH_begin".length());
-                    document = Jsoup.parse(contentAfterMarker);
-                }
-    
-                // Initialize a list to hold the structured text
-                List<String> content = new ArrayList<>();
-    
-                // Start processing from the root of the parsed content
-                processElement(document, content, 0);
-    
-                // Join the content
-                String structuredText = String.join("\n", content);
-    
-                // Remove extra newlines
-                structuredText = structuredText.replaceAll("\\n\\n", "\n");
-                structuredText = structuredText.replaceAll("\\n{3,}", "\n\n");
-    
-                // Apply truncation if necessary, otherwise return the structured content
-                return truncateString(structuredText.trim());
-    
-            } else {
-                System.out.println("Failed to extract content from " + url + " with Jsoup. Status Code: " + response.statusCode());
-                return null;
+            StringBuilder raw = buffers.raw;
+            TextWriter writer = new TextWriter(raw);
+            for (Node root : roots) {
+                NodeTraversor.filter(writer, root);
             }
-        } catch (IOException e) {
-            System.out.println("Failed to extract content from " + url + " with Jsoup. Exception: " + e.getMessage());
-            return null;
+
+            StringBuilder text = buffers.text;
+            collapseNewlines(raw, text);
+            truncate(text);
+
+            raw.setLength(0);
+            writeLines(text, raw);
+            return raw.toString();
+        } finally {
+            buffers.reset();
         }
     }
 
-    // Recursive function to process elements
-    public void processElement(Node node, List<String> content, int level) {
-        for (Node child : node.childNodes()) {
-            if (child instanceof org.jsoup.nodes.TextNode) {
-                String text = ((org.jsoup.nodes.TextNode) child).text().trim();
+    /**
+     * Writes the text of a document as the lines of the page: headings on their own line and indented by level,
+     * paragraphs on their own line, list items as "  - item" and any other text appended to the current line.
+     */
+    private static class TextWriter implements NodeFilter {
+
+        private final StringBuilder out;
+
+        TextWriter(StringBuilder out) {
+            this.out = out;
+        }
+
+        @Override
+        public FilterResult head(Node node, int depth) {
+            if (node instanceof TextNode textNode) {
+                String text = textNode.text().trim();
                 if (!text.isEmpty()) {
-                    // Ensure proper whitespace handling
-                    if (!content.isEmpty() && !content.get(content.size() - 1).endsWith("\n")) {
-                        // Append to the last line with a space
-                        int lastIndex = content.size() - 1;
-                        content.set(lastIndex, content.get(lastIndex) + " " + text);
+                    // Continue the current line, unless it was a heading or paragraph
+                    if (out.length() > 0 && out.charAt(out.length() - 1) != '\n') {
+                        out.append(' ').append(text);
                     } else {
-                        content.add(repeat(" ", level) + text);
+                        line().append(text);
                     }
                 }
-            } else if (child instanceof Element) {
-                Element childElement = (Element) child;
-                String tagName = childElement.tagName();
-
-                if (tagName.matches("h[1-6]")) {
-                    // Headings: add new line and appropriate indentation
-                    int headingLevel = Integer.parseInt(tagName.substring(1));
-                    String indent = repeat(" ", (headingLevel - 1) * 4); // Indent based on heading level
-                    String headingText = childElement.text().trim();
-                    content.add("\n" + indent + headingText + "\n");
-                } else if (tagName.equals("p")) {
-                    // Paragraphs
-                    String paragraphText = childElement.text().trim();
+                return FilterResult.CONTINUE;
+            }
+            if (!(node instanceof Element element)) {
+                return FilterResult.CONTINUE;
+            }
+
+            switch (element.tagName()) {
+                case "h1", "h2", "h3", "h4", "h5", "h6" -> {
+                    int headingLevel = element.tagName().charAt(1) - '1';
+                    line().append('\n').append(HEADING_INDENTS[headingLevel]).append(element.text().trim()).append('\n');
+                    return FilterResult.SKIP_CHILDREN;
+                }
+                case "p" -> {
+                    String paragraphText = element.text().trim();
                     if (!paragraphText.isEmpty()) {
-                        content.add(repeat(" ", level) + paragraphText + "\n");
+                        line().append(paragraphText).append('\n');
                     }
-                } else if (tagName.equals("ul") || tagName.equals("ol")) {
-                    // Lists
-                    for (Element li : childElement.select("> li")) {
-                        String liText = li.text().trim();
-                        content.add(repeat(" ", level + 2) + "- " + liText);
+                    return FilterResult.SKIP_CHILDREN;
+                }
+                case "ul", "ol" -> {
+                    for (Element child : element.children()) {
+                        if (child.tagName().equals("li")) {
+                            line().append("  - ").append(child.text().trim());
+                        }
                     }
-                } else {
-                    // Other tags: process recursively
-                    processElement(childElement, content, level);
+                    return FilterResult.SKIP_CHILDREN;
                 }
+                default -> {
+                    return FilterResult.CONTINUE;
+                }
+            }
+        }
+
+        // Start a new line, lines are separated by a line break
+        private StringBuilder line() {
+            return out.length() > 0 ? out.append('\n') : out;
+        }
+    }
+
+    // Same as replacing "\n\n" with "\n", then "\n{3,}" with "\n\n" and trimming the result
+    private static void collapseNewlines(StringBuilder in, StringBuilder out) {
+        int length = in.length();
+        int i = 0;
+        while (i < length) {
+            char c = in.charAt(i);
+            if (c != '\n') {
+                out.append(c);
+                i++;
+                continue;
+            }
+            int run = 0;
+            while (i < length && in.charAt(i) == '\n') {
+                run++;
+                i++;
+            }
+            // Pairs of line breaks become one, which leaves two or more only for runs of three and more
+            out.append(run >= 3 ? "\n\n" : "\n");
+        }
+
+        // Same as String.trim
+        int end = out.length();
+        while (end > 0 && out.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        out.setLength(end);
+        int start = 0;
+        while (start < end && out.charAt(start) <= ' ') {
+            start++;
+        }
+        out.delete(0, start);
+    }
+
+    // Cut the text at the last occurrence of any of the end markers
+    private static void truncate(StringBuilder text) {
+        int truncateIndex = -1;
+        for (String marker : END_MARKERS) {
+            truncateIndex = Math.max(truncateIndex, text.lastIndexOf(marker));
+        }
+        if (truncateIndex != -1) {
+            text.setLength(truncateIndex);
+        }
+    }
+
+    // Write every line that is no script with a line break, lines are split like String.split("\\R") which drops trailing empty lines
+    private static void writeLines(CharSequence text, StringBuilder out) {
+        int end = text.length();
+        if (end == 0) {
+            out.append('\n');
+            return;
+        }
+        while (end > 0 && isLineBreak(text.charAt(end - 1))) {
+            end--;
+        }
+
+        int lineStart = 0;
+        while (lineStart < end) {
+            int lineEnd = lineStart;
+            while (lineEnd < end && !isLineBreak(text.charAt(lineEnd))) {
+                lineEnd++;
+            }
+            if (!isScript(text, lineStart, lineEnd)) {
+                out.append(text, lineStart, lineEnd).append('\n');
+            }
+            // A CRLF is one line break
+            if (lineEnd < end && text.charAt(lineEnd) == '\r' && text.charAt(lineEnd + 1) == '\n') {
+                lineEnd++;
+            }
+            lineStart = lineEnd + 1;
+        }
+    }
+
+    // Whether the line starts with the script prefix after leading whitespace
+    private static boolean isScript(CharSequence text, int start, int end) {
+        while (start < end && text.charAt(start) <= ' ') {
+            start++;
+        }
+        if (end - start < SCRIPT_PREFIX.length()) {
+            return false;
+        }
+        for (int i = 0; i < SCRIPT_PREFIX.length(); i++) {
+            if (text.charAt(start + i) != SCRIPT_PREFIX.charAt(i)) {
+                return false;
             }
         }
+        return true;
     }
 
-    // Helper method to repeat a string
-    public String repeat(String s, int times) {
-        StringBuilder sb = new StringBuilder();
-        for (int i = 0; i < times; i++) {
-            sb.append(s);
+    private static boolean isLineBreak(char c) {
+        return c == '\n' || c == '\r' || c == '\u000B' || c == '\f' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+
+    // Buffers are kept per thread for the next page, unless a huge page made them too large to keep around
+    private static class Buffers {
+
+        private static final int MAX_RETAINED_CAPACITY = 1 << 20;
+
+        private StringBuilder raw = new StringBuilder(16 * 1024);
+        private StringBuilder text = new StringBuilder(16 * 1024);
+
+        void reset() {
+            raw = reset(raw);
+            text = reset(text);
+        }
+
+        private static StringBuilder reset(StringBuilder buffer) {
+            if (buffer.capacity() > MAX_RETAINED_CAPACITY) {
+                return new StringBuilder(16 * 1024);
+            }
+            buffer.setLength(0);
+            return buffer;
         }
-        return sb.toString();
     }
 }
@@ -0,0 +1,91 @@
+package com.ase.angelos_kb_backend.util;
+
+import java.util.List;
+
+/**
+ * Compares two inventories that are both read in pages ordered by id, so neither has to fit in memory.
+ * Ids are compared as strings, which matches the order of lower case UUIDs in the database.
+ */
+public final class InventoryDiff {
+
+    private InventoryDiff() {
+    }
+
+    @FunctionalInterface
+    public interface PageLoader {
+        List<InventoryItem> load(String afterId, int limit);
+    }
+
+    public interface Listener {
+        /** The item exists locally but not in the RAG. */
+        void missing(InventoryItem local);
+
+        /** Both sides know a content hash for the item and they differ. */
+        void changed(InventoryItem local);
+
+        /** The item exists in the RAG but not locally. */
+        void orphaned(InventoryItem remote);
+    }
+
+    /**
+     * Walks both inventories in id order and reports every difference to the listener.
+     *
+     * @return the number of items that are in both inventories
+     */
+    public static int compare(PageLoader local, PageLoader remote, int pageSize, Listener listener) {
+        Cursor localCursor = new Cursor(local, pageSize);
+        Cursor remoteCursor = new Cursor(remote, pageSize);
+        int matched = 0;
+
+        while (localCursor.peek() != null || remoteCursor.peek() != null) {
+            InventoryItem localItem = localCursor.peek();
+            InventoryItem remoteItem = remoteCursor.peek();
+            int order = localItem == null ? 1 : remoteItem == null ? -1 : localItem.id().compareTo(remoteItem.id());
+            if (order < 0) {
+                listener.missing(localCursor.next());
+            } else if (order > 0) {
+                listener.orphaned(remoteCursor.next());
+            } else {
+                localCursor.next();
+                remoteCursor.next();
+                matched++;
+                if (localItem.contentHash() != null && remoteItem.contentHash() != null
+                        && !localItem.contentHash().equals(remoteItem.contentHash())) {
+                    listener.changed(localItem);
+                }
+            }
+        }
+        return matched;
+    }
+
+    private static class Cursor {
+
+        private final PageLoader loader;
+        private final int pageSize;
+        private List<InventoryItem> page = List.of();
+        private int index;
+        private String lastId;
+        private boolean exhausted;
+
+        Cursor(PageLoader loader, int pageSize) {
+            this.loader = loader;
+            this.pageSize = pageSize;
+        }
+
+        InventoryItem peek() {
+            if (index == page.size() && !exhausted) {
+                page = loader.load(lastId, pageSize);
+                index = 0;
+                exhausted = page.size() < pageSize;
+            }
+            return index < page.size() ? page.get(index) : null;
+        }
+
+        InventoryItem next() {
+            InventoryItem item = peek();
+            index++;
+            lastId = item.id();
+            return item;
+        }
+    }
+}
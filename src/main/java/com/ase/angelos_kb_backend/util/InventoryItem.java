@@ -0,0 +1,8 @@
+package com.ase.angelos_kb_backend.util;
+
+/**
+ * An item of the knowledge base as listed for reconciliation, with the Base64 SHA-256 hash of its content
+ * if one is known.
+ */
+public record InventoryItem(String id, String contentHash) {
+}
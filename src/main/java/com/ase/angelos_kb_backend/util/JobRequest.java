@@ -0,0 +1,8 @@
+package com.ase.angelos_kb_backend.util;
+
+/**
+ * A job requested by a service that cannot call the job service itself, because one of the job handlers
+ * depends on it. Published as an application event and queued by the job service.
+ */
+public record JobRequest(JobType type, Long orgId, Object payload) {
+}
@@ -0,0 +1,9 @@
+package com.ase.angelos_kb_backend.util;
+
+
+public enum JobStatus {
+    QUEUED,
+    RUNNING,
+    SUCCEEDED,
+    FAILED
+}
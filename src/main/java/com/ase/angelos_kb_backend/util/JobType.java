@@ -0,0 +1,8 @@
+package com.ase.angelos_kb_backend.util;
+
+
+public enum JobType {
+    INIT_DB,
+    RECONCILE,
+    RESEND_CONTENT
+}
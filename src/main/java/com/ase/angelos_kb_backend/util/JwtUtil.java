@@ -1,6 +1,7 @@
 package com.ase.angelos_kb_backend.util;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
@@ -9,17 +10,53 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
+import java.util.concurrent.TimeUnit;
 
 import javax.crypto.SecretKey;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
 @Component
 public class JwtUtil {
 
     private final SecretKey signingKey;
+    private final JwtParser parser;
+    // Verified claims by SHA-256 of the token, every entry expires together with its token
+    private final Cache<String, Claims> verifiedClaims;
 
-    public JwtUtil(@Value("${jwt.secret.key}") String secretKey) {
+    public JwtUtil(@Value("${jwt.secret.key}") String secretKey,
+                   @Value("${jwt.claims-cache.max-size:10000}") long claimsCacheSize) {
         this.signingKey = Keys.hmacShaKeyFor(secretKey.getBytes());
+        this.parser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+        this.verifiedClaims = Caffeine.newBuilder()
+                .maximumSize(claimsCacheSize)
+                .expireAfter(new Expiry<String, Claims>() {
+                    @Override
+                    public long expireAfterCreate(String key, Claims claims, long currentTime) {
+                        long millisLeft = claims.getExpiration() != null
+                                ? claims.getExpiration().getTime() - System.currentTimeMillis()
+                                : 0;
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(millisLeft, 0));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, Claims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, Claims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
     }
 
     // Generate JWT Token
@@ -64,32 +101,44 @@ public class JwtUtil {
     }
 
     private boolean isTokenExpired(String token) {
-        final Date expiration = extractAllClaims(token).getExpiration();
+        final Date expiration = extractClaims(token).getExpiration();
         return expiration.before(new Date());
     }
 
     // Extract Email from JWT Token
     public String extractEmail(String token) {
-        return extractAllClaims(token).getSubject();
+        return extractClaims(token).getSubject();
     }
 
     // Extract Organisation ID from JWT Token
     public Long extractOrgId(String token) {
-        return extractAllClaims(token).get("orgId", Long.class);
+        return extractClaims(token).get("orgId", Long.class);
     }
 
     // Extract isSystemAdmin from JWT Token
     public boolean extractIsSystemAdmin(String token) {
-        return extractAllClaims(token).get("isSystemAdmin", Boolean.class);
+        return extractClaims(token).get("isSystemAdmin", Boolean.class);
     }
 
     // Extract chat password
     public String extractChatPassword(String token) {
-        return extractAllClaims(token).get("password", String.class);
+        return extractClaims(token).get("password", String.class);
+    }
+
+    /**
+     * Returns the verified claims of the token. The signature of a token is only checked on its first use,
+     * later calls are answered from the cache until the token expires. The returned claims must not be modified.
+     */
+    public Claims extractClaims(String token) {
+        return verifiedClaims.get(digest(token), key -> parser.parseClaimsJws(token).getBody());
     }
 
-    // Extract All Claims
-    private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder().setSigningKey(signingKey).build().parseClaimsJws(token).getBody();
+    private static String digest(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("Failed to compute token digest", e);
+        }
     }
 }
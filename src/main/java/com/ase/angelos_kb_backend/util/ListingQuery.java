@@ -0,0 +1,34 @@
+package com.ase.angelos_kb_backend.util;
+
+import java.util.Locale;
+
+/**
+ * Parameters of a page of a listing: where the page starts, how many items it has and the optional filters.
+ * The search text is turned into a case-insensitive LIKE pattern escaped with {@value #ESCAPE}.
+ */
+public record ListingQuery(PageCursor after, int limit, String pattern, Long studyProgramId, ListingSort sort) {
+
+    public static final int MAX_LIMIT = 200;
+    public static final char ESCAPE = '!';
+
+    public static ListingQuery of(String cursor, int limit, String search, Long studyProgramId, String sort) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("The limit must be between 1 and " + MAX_LIMIT + ".");
+        }
+        return new ListingQuery(PageCursor.decode(cursor), limit, containsPattern(search), studyProgramId, ListingSort.parse(sort));
+    }
+
+    private static String containsPattern(String search) {
+        if (search == null || search.isBlank()) {
+            return "%";
+        }
+        StringBuilder pattern = new StringBuilder("%");
+        for (char c : search.trim().toLowerCase(Locale.ROOT).toCharArray()) {
+            if (c == '%' || c == '_' || c == ESCAPE) {
+                pattern.append(ESCAPE);
+            }
+            pattern.append(c);
+        }
+        return pattern.append('%').toString();
+    }
+}
@@ -0,0 +1,23 @@
+package com.ase.angelos_kb_backend.util;
+
+import java.util.Locale;
+
+/**
+ * Order of a paginated listing. NAME sorts by title, by topic for sample questions and by mail for users,
+ * UPDATED puts the most recently changed items first.
+ */
+public enum ListingSort {
+    NAME,
+    UPDATED;
+
+    public static ListingSort parse(String value) {
+        if (value == null || value.isBlank()) {
+            return NAME;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown sort " + value + ", use name or updated.");
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.ase.angelos_kb_backend.util;
+
+
+public enum OutboxAggregate {
+    WEBSITE,
+    DOCUMENT,
+    SAMPLE_QUESTION
+}
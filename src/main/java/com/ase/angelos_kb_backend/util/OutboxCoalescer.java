@@ -0,0 +1,111 @@
+package com.ase.angelos_kb_backend.util;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import com.ase.angelos_kb_backend.model.OutboxEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Folds the pending events of one website, document or sample question into the fewest requests that bring
+ * Angelos to the latest state:
+ * <ul>
+ *   <li>updates and refreshes of an item that was not added yet are merged into the add request,</li>
+ *   <li>of several updates or refreshes only the last one is sent,</li>
+ *   <li>a delete drops everything before it, and an item that is deleted before its add was ever sent
+ *       is not sent at all.</li>
+ * </ul>
+ * Refreshes that replace an earlier, unsent refresh lose their chunk delta, since it was computed against
+ * content Angelos never received.
+ */
+public final class OutboxCoalescer {
+
+    private OutboxCoalescer() {
+    }
+
+    /**
+     * @param events the pending events of a single item in the order they were recorded
+     * @return the request body per operation, to be sent in the order delete, add, update, refresh
+     */
+    public static Map<OutboxOperation, JsonNode> coalesce(List<OutboxEvent> events, ObjectMapper objectMapper) {
+        ObjectNode add = null;
+        boolean addAttempted = false;
+        ObjectNode update = null;
+        ObjectNode refresh = null;
+        int refreshes = 0;
+        boolean delete = false;
+
+        for (OutboxEvent event : events) {
+            switch (event.getOperation()) {
+                case ADD -> {
+                    add = read(event, objectMapper);
+                    addAttempted = event.getAttempts() > 0;
+                    update = null;
+                    refresh = null;
+                    refreshes = 0;
+                }
+                case UPDATE -> {
+                    if (add != null) {
+                        add.setAll(read(event, objectMapper));
+                    } else {
+                        update = read(event, objectMapper);
+                    }
+                }
+                case REFRESH -> {
+                    ObjectNode payload = read(event, objectMapper);
+                    if (add != null) {
+                        add.set("content", payload.get("content"));
+                    } else {
+                        refresh = payload;
+                        refreshes++;
+                    }
+                }
+                case DELETE -> {
+                    // An add that was never attempted cannot have reached Angelos
+                    if (add == null || addAttempted) {
+                        delete = true;
+                    }
+                    add = null;
+                    addAttempted = false;
+                    update = null;
+                    refresh = null;
+                    refreshes = 0;
+                }
+            }
+        }
+
+        Map<OutboxOperation, JsonNode> requests = new EnumMap<>(OutboxOperation.class);
+        if (delete) {
+            requests.put(OutboxOperation.DELETE, NullNode.getInstance());
+        }
+        if (add != null) {
+            requests.put(OutboxOperation.ADD, add);
+        }
+        if (update != null) {
+            requests.put(OutboxOperation.UPDATE, update);
+        }
+        if (refresh != null) {
+            if (refreshes > 1) {
+                refresh.remove("delta");
+            }
+            requests.put(OutboxOperation.REFRESH, refresh);
+        }
+        return requests;
+    }
+
+    private static ObjectNode read(OutboxEvent event, ObjectMapper objectMapper) {
+        if (event.getPayload() == null) {
+            return objectMapper.createObjectNode();
+        }
+        try {
+            return (ObjectNode) objectMapper.readTree(event.getPayload());
+        } catch (JsonProcessingException | ClassCastException e) {
+            throw new RuntimeException("Failed to read payload of outbox event " + event.getId(), e);
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.ase.angelos_kb_backend.util;
+
+
+public enum OutboxStatus {
+    PENDING,
+    FAILED,
+    // Held back behind a FAILED event of the same item, delivering it would reorder the item in Angelos
+    BLOCKED
+}
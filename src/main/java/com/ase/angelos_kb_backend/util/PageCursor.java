@@ -0,0 +1,72 @@
+package com.ase.angelos_kb_backend.util;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Position in a keyset-paginated listing: the sort key and the id of the last item of the previous page. The
+ * next page starts right after it, so pages stay stable while items are added or removed and the database only
+ * reads the rows of the page. Clients get it Base64 encoded and pass it back as is.
+ *
+ * The first page starts after {@link #FIRST}, whose key sorts before all titles and whose time sorts after all
+ * update times.
+ */
+public record PageCursor(String key, String id) {
+
+    public static final PageCursor FIRST = new PageCursor("", null);
+
+    private static final UUID FIRST_UUID = new UUID(0, 0);
+    private static final LocalDateTime LATEST = LocalDateTime.of(9999, 12, 31, 0, 0);
+
+    public static PageCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return FIRST;
+        }
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            // Ids never contain a line break, keys might
+            int separator = value.lastIndexOf('\n');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Invalid cursor " + cursor);
+            }
+            return new PageCursor(value.substring(0, separator), value.substring(separator + 1));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor " + cursor);
+        }
+    }
+
+    public static PageCursor after(Object key, Object id) {
+        return new PageCursor(String.valueOf(key), id.toString());
+    }
+
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString((key + "\n" + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public UUID uuid() {
+        try {
+            return id == null ? FIRST_UUID : UUID.fromString(id);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor " + encode());
+        }
+    }
+
+    public long longId() {
+        try {
+            return id == null ? 0 : Long.parseLong(id);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor " + encode());
+        }
+    }
+
+    public LocalDateTime time() {
+        try {
+            return id == null ? LATEST : LocalDateTime.parse(key);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor " + encode());
+        }
+    }
+}
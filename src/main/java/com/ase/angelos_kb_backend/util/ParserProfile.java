@@ -0,0 +1,18 @@
+package com.ase.angelos_kb_backend.util;
+
+import java.util.List;
+
+/**
+ * Declarative extraction for the pages of some hosts: the elements matching the drop selectors are removed,
+ * then only the text of the elements matching the keep selectors is extracted, or of the whole body if none
+ * of them matches. The type is sent to the RAG with the content and defaults to "other".
+ */
+public record ParserProfile(String name, String type, List<String> hosts, List<String> keep, List<String> drop) {
+
+    public ParserProfile {
+        type = type != null ? type : "other";
+        hosts = hosts != null ? List.copyOf(hosts) : List.of();
+        keep = keep != null ? List.copyOf(keep) : List.of();
+        drop = drop != null ? List.copyOf(drop) : List.of();
+    }
+}
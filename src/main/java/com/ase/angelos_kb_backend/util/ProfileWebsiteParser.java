@@ -0,0 +1,80 @@
+package com.ase.angelos_kb_backend.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+
+/**
+ * Parses the pages of a {@link ParserProfile}, the text of the kept elements is structured like
+ * {@link GenericWebsiteParser} does for whole pages.
+ */
+public class ProfileWebsiteParser implements WebsiteParser {
+
+    private final ParserProfile profile;
+    private final String version;
+    private final GenericWebsiteParser genericParser;
+    private final String keepSelector;
+    private final String dropSelector;
+
+    public ProfileWebsiteParser(ParserProfile profile, String version, GenericWebsiteParser genericParser) {
+        this.profile = profile;
+        this.version = version;
+        this.genericParser = genericParser;
+        this.keepSelector = String.join(", ", profile.keep());
+        this.dropSelector = String.join(", ", profile.drop());
+    }
+
+    @Override
+    public String getName() {
+        return profile.name();
+    }
+
+    @Override
+    public String getType() {
+        return profile.type();
+    }
+
+    @Override
+    public List<String> getHostPatterns() {
+        return profile.hosts();
+    }
+
+    @Override
+    public String getVersion() {
+        return version;
+    }
+
+    @Override
+    public String parse(String link, String html) {
+        Document document = Jsoup.parse(html, link);
+        if (!dropSelector.isEmpty()) {
+            document.select(dropSelector).remove();
+        }
+
+        List<Element> roots = keepSelector.isEmpty() ? List.of() : outermost(document.select(keepSelector));
+        return genericParser.extract(roots.isEmpty() ? List.of(document.body()) : roots);
+    }
+
+    // Kept elements inside other kept elements are extracted with them, not a second time
+    private List<Element> outermost(List<Element> elements) {
+        Set<Element> selected = Collections.newSetFromMap(new IdentityHashMap<>());
+        selected.addAll(elements);
+        List<Element> roots = new ArrayList<>();
+        for (Element element : elements) {
+            boolean nested = false;
+            for (Element parent = element.parent(); parent != null && !nested; parent = parent.parent()) {
+                nested = selected.contains(parent);
+            }
+            if (!nested) {
+                roots.add(element);
+            }
+        }
+        return roots;
+    }
+}
@@ -0,0 +1,85 @@
+package com.ase.angelos_kb_backend.util;
+
+import java.util.OptionalLong;
+
+/**
+ * 64-bit SimHash of a text over its word 3-grams, so texts that differ in a few words get fingerprints that differ
+ * in a few bits. Words are runs of letters and digits compared case-insensitively. Texts with fewer than
+ * {@value #MIN_SHINGLES} 3-grams get no fingerprint, too few words would match unrelated texts.
+ *
+ * For lookups a fingerprint is split into {@value #BANDS} bands of 8 bits. Fingerprints that differ in fewer
+ * bits than there are bands agree in at least one band.
+ */
+public final class SimHash {
+
+    public static final int BANDS = 8;
+    public static final int MIN_SHINGLES = 8;
+
+    private static final int SHINGLE_WORDS = 3;
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private SimHash() {
+    }
+
+    public static OptionalLong fingerprint(String text) {
+        int[] weights = new int[Long.SIZE];
+        long[] words = new long[SHINGLE_WORDS];
+        int wordCount = 0;
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            int codePoint = text.codePointAt(i);
+            if (!Character.isLetterOrDigit(codePoint)) {
+                i += Character.charCount(codePoint);
+                continue;
+            }
+            long word = FNV_OFFSET;
+            while (i < length && Character.isLetterOrDigit(codePoint = text.codePointAt(i))) {
+                word = (word ^ Character.toLowerCase(codePoint)) * FNV_PRIME;
+                i += Character.charCount(codePoint);
+            }
+            words[wordCount % SHINGLE_WORDS] = word;
+            wordCount++;
+            if (wordCount >= SHINGLE_WORDS) {
+                long shingle = FNV_OFFSET;
+                for (int k = wordCount - SHINGLE_WORDS; k < wordCount; k++) {
+                    shingle = (shingle ^ words[k % SHINGLE_WORDS]) * FNV_PRIME;
+                }
+                shingle = mix(shingle);
+                for (int bit = 0; bit < Long.SIZE; bit++) {
+                    weights[bit] += (shingle >>> bit & 1) != 0 ? 1 : -1;
+                }
+            }
+        }
+
+        if (wordCount - SHINGLE_WORDS + 1 < MIN_SHINGLES) {
+            return OptionalLong.empty();
+        }
+        long fingerprint = 0;
+        for (int bit = 0; bit < Long.SIZE; bit++) {
+            if (weights[bit] > 0) {
+                fingerprint |= 1L << bit;
+            }
+        }
+        return OptionalLong.of(fingerprint);
+    }
+
+    /**
+     * Number of bits two fingerprints differ in.
+     */
+    public static int distance(long a, long b) {
+        return Long.bitCount(a ^ b);
+    }
+
+    public static int band(long fingerprint, int band) {
+        return (int) (fingerprint >>> (band * 8)) & 0xFF;
+    }
+
+    // Finalizer of SplitMix64, spreads the FNV hash over all bits
+    private static long mix(long hash) {
+        hash = (hash ^ (hash >>> 30)) * 0xbf58476d1ce4e5b9L;
+        hash = (hash ^ (hash >>> 27)) * 0x94d049bb133111ebL;
+        return hash ^ (hash >>> 31);
+    }
+}
@@ -0,0 +1,129 @@
+package com.ase.angelos_kb_backend.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Finds the sections of other sources whose SimHash is within a Hamming distance of a fingerprint. Sections are
+ * kept in one bucket per band value, a lookup only compares the sections that share a band with the fingerprint.
+ * Not thread-safe.
+ */
+public class SimHashIndex {
+
+    public record Section(UUID sourceId, int position, long fingerprint) {
+    }
+
+    /**
+     * Number of sections of a source with a near duplicate in another source.
+     */
+    public record Overlap(UUID sourceId, int sections, UUID otherId, int sharedSections) {
+    }
+
+    private final int maxDistance;
+    private final Map<UUID, List<Section>> sources = new HashMap<>();
+    private final List<Map<Integer, List<Section>>> buckets = new ArrayList<>();
+
+    public SimHashIndex(int maxDistance) {
+        if (maxDistance < 0 || maxDistance >= SimHash.BANDS) {
+            throw new IllegalArgumentException("The distance must be between 0 and " + (SimHash.BANDS - 1));
+        }
+        this.maxDistance = maxDistance;
+        for (int band = 0; band < SimHash.BANDS; band++) {
+            buckets.add(new HashMap<>());
+        }
+    }
+
+    /**
+     * Replaces the sections of a source.
+     */
+    public void put(UUID sourceId, List<Section> sections) {
+        remove(sourceId);
+        if (sections.isEmpty()) {
+            return;
+        }
+        sources.put(sourceId, List.copyOf(sections));
+        for (Section section : sections) {
+            for (int band = 0; band < SimHash.BANDS; band++) {
+                buckets.get(band).computeIfAbsent(SimHash.band(section.fingerprint(), band), key -> new ArrayList<>()).add(section);
+            }
+        }
+    }
+
+    public void remove(UUID sourceId) {
+        List<Section> sections = sources.remove(sourceId);
+        if (sections == null) {
+            return;
+        }
+        for (int band = 0; band < SimHash.BANDS; band++) {
+            Set<Integer> keys = new HashSet<>();
+            for (Section section : sections) {
+                keys.add(SimHash.band(section.fingerprint(), band));
+            }
+            Map<Integer, List<Section>> bandBuckets = buckets.get(band);
+            for (Integer key : keys) {
+                List<Section> bucket = bandBuckets.get(key);
+                bucket.removeIf(section -> section.sourceId().equals(sourceId));
+                if (bucket.isEmpty()) {
+                    bandBuckets.remove(key);
+                }
+            }
+        }
+    }
+
+    /**
+     * The sections of the source, empty if it has none.
+     */
+    public List<Section> sections(UUID sourceId) {
+        return sources.getOrDefault(sourceId, List.of());
+    }
+
+    /**
+     * The sections of other sources near the fingerprint.
+     */
+    public List<Section> near(UUID sourceId, long fingerprint) {
+        Set<Section> matches = new LinkedHashSet<>();
+        for (int band = 0; band < SimHash.BANDS; band++) {
+            List<Section> bucket = buckets.get(band).get(SimHash.band(fingerprint, band));
+            if (bucket == null) {
+                continue;
+            }
+            for (Section section : bucket) {
+                if (!section.sourceId().equals(sourceId) && SimHash.distance(section.fingerprint(), fingerprint) <= maxDistance) {
+                    matches.add(section);
+                }
+            }
+        }
+        return new ArrayList<>(matches);
+    }
+
+    /**
+     * For every source, the other sources it shares near-duplicate sections with.
+     */
+    public List<Overlap> overlaps() {
+        List<Overlap> overlaps = new ArrayList<>();
+        for (Map.Entry<UUID, List<Section>> source : sources.entrySet()) {
+            Map<UUID, Integer> shared = new LinkedHashMap<>();
+            for (Section section : source.getValue()) {
+                Set<UUID> others = new HashSet<>();
+                for (Section match : near(source.getKey(), section.fingerprint())) {
+                    others.add(match.sourceId());
+                }
+                others.forEach(other -> shared.merge(other, 1, Integer::sum));
+            }
+            shared.forEach((other, count) ->
+                    overlaps.add(new Overlap(source.getKey(), source.getValue().size(), other, count)));
+        }
+        return overlaps;
+    }
+
+    public int size() {
+        return sources.values().stream().mapToInt(List::size).sum();
+    }
+}
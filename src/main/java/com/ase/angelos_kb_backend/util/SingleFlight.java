@@ -0,0 +1,67 @@
+package com.ase.angelos_kb_backend.util;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces identical concurrent calls: the first caller for a key starts the call, everybody arriving
+ * while it is in flight shares its result. A flight is forgotten as soon as it completes, so this is no cache.
+ *
+ * Followers wait at most maxWait and then fail with a TimeoutException. If the shared call fails, followers
+ * retry once on a fresh flight, so a single failing call does not fail everybody waiting for it.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> flights = new ConcurrentHashMap<>();
+
+    public CompletableFuture<V> execute(K key, Supplier<CompletableFuture<V>> call, Duration maxWait) {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> existing = flights.putIfAbsent(key, flight);
+        if (existing == null) {
+            return lead(key, flight, call);
+        }
+
+        return existing
+                .handle((value, e) -> e == null ? CompletableFuture.completedFuture(value) : retry(key, call))
+                .thenCompose(Function.identity())
+                .orTimeout(maxWait.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Number of calls currently in flight.
+     */
+    public int inFlight() {
+        return flights.size();
+    }
+
+    private CompletableFuture<V> retry(K key, Supplier<CompletableFuture<V>> call) {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> existing = flights.putIfAbsent(key, flight);
+        return existing == null ? lead(key, flight, call) : existing.copy();
+    }
+
+    private CompletableFuture<V> lead(K key, CompletableFuture<V> flight, Supplier<CompletableFuture<V>> call) {
+        CompletableFuture<V> source;
+        try {
+            source = call.get();
+        } catch (RuntimeException e) {
+            source = CompletableFuture.failedFuture(e);
+        }
+
+        source.whenComplete((value, e) -> {
+            // Forget the flight before completing it, followers that retry must not join it again
+            flights.remove(key, flight);
+            if (e != null) {
+                flight.completeExceptionally(e);
+            } else {
+                flight.complete(value);
+            }
+        });
+        // Callers get a copy, completing or cancelling it does not affect the followers
+        return flight.copy();
+    }
+}
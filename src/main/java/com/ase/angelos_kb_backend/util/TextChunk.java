@@ -0,0 +1,7 @@
+package com.ase.angelos_kb_backend.util;
+
+/**
+ * A chunk of parsed content with its position in the content and the SHA-256 hash of its text.
+ */
+public record TextChunk(int position, String hash, String text) {
+}
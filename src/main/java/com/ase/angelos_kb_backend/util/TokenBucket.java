@@ -0,0 +1,64 @@
+package com.ase.angelos_kb_backend.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket that refills continuously at a fixed rate up to its capacity.
+ * Instead of a token count the bucket stores the time at which it will be full again, so a take is a single
+ * compare-and-set on one long (the generic cell rate algorithm, which behaves exactly like a token bucket).
+ */
+public class TokenBucket {
+
+    private final long capacity;
+    private final long nanosPerToken;
+    private final AtomicLong fullAt;
+
+    public TokenBucket(long capacity, long tokensPerMinute) {
+        if (capacity < 1 || tokensPerMinute < 1) {
+            throw new IllegalArgumentException("Capacity and rate of a token bucket must be positive.");
+        }
+        this.capacity = capacity;
+        this.nanosPerToken = 60_000_000_000L / tokensPerMinute;
+        this.fullAt = new AtomicLong(System.nanoTime());
+    }
+
+    /**
+     * Takes one token.
+     *
+     * @return 0 if a token was taken, otherwise the nanoseconds until the next token is available.
+     */
+    public long tryConsume() {
+        long now = System.nanoTime();
+        while (true) {
+            long current = fullAt.get();
+            long base = current - now < 0 ? now : current;
+            long next = base + nanosPerToken;
+            long overdraft = next - now - capacity * nanosPerToken;
+            if (overdraft > 0) {
+                return overdraft;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Tells whether a token is available without taking it.
+     *
+     * @return 0 if a token is available, otherwise the nanoseconds until the next one is.
+     */
+    public long peek() {
+        long now = System.nanoTime();
+        long current = fullAt.get();
+        long base = current - now < 0 ? now : current;
+        return Math.max(0, base + nanosPerToken - now - capacity * nanosPerToken);
+    }
+
+    /**
+     * Puts back a token taken by {@link #tryConsume()}, for a request that was rejected elsewhere after all.
+     */
+    public void refund() {
+        fullAt.addAndGet(-nanosPerToken);
+    }
+}
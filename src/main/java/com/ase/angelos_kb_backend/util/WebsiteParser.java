@@ -0,0 +1,35 @@
+package com.ase.angelos_kb_backend.util;
+
+import java.util.List;
+
+/**
+ * Extracts the text of fetched web pages for the RAG. Parsers are registered for the hosts they are
+ * responsible for, the parser with the most specific matching host pattern handles a page.
+ */
+public interface WebsiteParser {
+
+    /**
+     * Unique name of the parser, used in the metrics and logs.
+     */
+    String getName();
+
+    /**
+     * Parser type sent to the RAG with the content.
+     */
+    String getType();
+
+    /**
+     * Hosts the parser is responsible for. A pattern matches the host itself and all of its subdomains,
+     * a parser without patterns is only used as the fallback.
+     */
+    List<String> getHostPatterns();
+
+    /**
+     * Changes whenever the same page may be parsed differently, cached results of older versions are not used.
+     */
+    default String getVersion() {
+        return "1";
+    }
+
+    String parse(String link, String html);
+}
@@ -0,0 +1,99 @@
+package com.ase.angelos_kb_backend.configuration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import com.ase.angelos_kb_backend.model.Organisation;
+import com.ase.angelos_kb_backend.model.User;
+import com.ase.angelos_kb_backend.util.JwtUtil;
+
+class JwtAuthenticationFilterTest {
+
+    private final JwtUtil jwtUtil = new JwtUtil("test-secret-test-secret-test-secret-test-secret", 100);
+    private final UserDetailsService userDetailsService = mock(UserDetailsService.class);
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void resolvesPrincipalThroughUserDetails() throws Exception {
+        when(userDetailsService.loadUserByUsername("admin@tum.de")).thenReturn(user(7L, true, true));
+
+        filter(jwtUtil.generateToken("admin@tum.de", 7L, true));
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        CustomUserDetails principal = (CustomUserDetails) authentication.getPrincipal();
+        assertEquals("admin@tum.de", principal.getUsername());
+        assertEquals(7L, principal.getOrgId());
+        assertTrue(principal.isSystemAdmin());
+        assertTrue(principal.isAdmin());
+    }
+
+    @Test
+    void rejectsRemovedUsers() throws Exception {
+        when(userDetailsService.loadUserByUsername("admin@tum.de")).thenThrow(new UsernameNotFoundException("admin@tum.de"));
+
+        filter(jwtUtil.generateToken("admin@tum.de", 7L, true));
+
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+    }
+
+    @Test
+    void rejectsTokensOfDemotedUsers() throws Exception {
+        when(userDetailsService.loadUserByUsername("admin@tum.de")).thenReturn(user(7L, false, true));
+
+        filter(jwtUtil.generateToken("admin@tum.de", 7L, true));
+
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+    }
+
+    @Test
+    void rejectsUnapprovedUsers() throws Exception {
+        when(userDetailsService.loadUserByUsername("admin@tum.de")).thenReturn(user(7L, false, false));
+
+        filter(jwtUtil.generateToken("admin@tum.de", 7L, false));
+
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+    }
+
+    @Test
+    void ignoresRefreshTokens() throws Exception {
+        filter(jwtUtil.generateRefreshToken("admin@tum.de"));
+
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+    }
+
+    private static CustomUserDetails user(Long orgId, boolean systemAdmin, boolean approved) {
+        Organisation organisation = new Organisation();
+        organisation.setOrgID(orgId);
+        User user = new User();
+        user.setMail("admin@tum.de");
+        user.setOrganisation(organisation);
+        user.setSystemAdmin(systemAdmin);
+        user.setAdmin(true);
+        user.setApproved(approved);
+        return new CustomUserDetails(user);
+    }
+
+    private void filter(String token) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer " + token);
+        new JwtAuthenticationFilter(jwtUtil, userDetailsService, true)
+                .doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+    }
+}
@@ -0,0 +1,98 @@
+package com.ase.angelos_kb_backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+
+import com.ase.angelos_kb_backend.dto.angelos.AngelosChatMessage;
+import com.ase.angelos_kb_backend.dto.angelos.AngelosChatRequest;
+import com.ase.angelos_kb_backend.util.Bulkhead;
+import com.ase.angelos_kb_backend.util.CircuitBreaker;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Streams a chat answer from a local Angelos stub that emits its answer as Server-Sent Events.
+ */
+class AngelosServiceStreamTest {
+
+    private static final List<String> TOKENS = List.of("The", " exam", " registration", " closes", " soon.");
+
+    private HttpServer angelosStub;
+    private AngelosService angelosService;
+
+    @BeforeEach
+    void startStub() throws IOException {
+        angelosStub = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        angelosStub.createContext("/v1/question/chat/stream", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream body = exchange.getResponseBody()) {
+                for (String token : TOKENS) {
+                    body.write(("data: " + token + "\n\n").getBytes(StandardCharsets.UTF_8));
+                    body.flush();
+                }
+                body.write("data: [DONE]\n\n".getBytes(StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                // Client went away early
+            }
+        });
+        angelosStub.start();
+
+        angelosService = new AngelosService(new RestTemplate(), HttpClient.newHttpClient(), new ObjectMapper(),
+                new CircuitBreaker(5, Duration.ofSeconds(30)), new Bulkhead(64), new Bulkhead(8));
+        ReflectionTestUtils.setField(angelosService, "angelosUrl", "http://localhost:" + angelosStub.getAddress().getPort());
+        ReflectionTestUtils.setField(angelosService, "angelosSecret", "secret");
+    }
+
+    @AfterEach
+    void stopStub() {
+        angelosStub.stop(0);
+    }
+
+    @Test
+    void relaysEveryToken() {
+        List<String> received = new ArrayList<>();
+
+        CircuitBreaker.Permission permission = angelosService.acquireChatPermission();
+        angelosService.streamChatMessage(chatRequest(), false, received::add, () -> false, permission);
+
+        assertEquals(TOKENS, received);
+    }
+
+    @Test
+    void stopsReadingWhenCancelled() {
+        List<String> received = new ArrayList<>();
+        AtomicBoolean cancelled = new AtomicBoolean(false);
+
+        CircuitBreaker.Permission permission = angelosService.acquireChatPermission();
+        angelosService.streamChatMessage(chatRequest(), false, token -> {
+            received.add(token);
+            cancelled.set(true);
+        }, cancelled::get, permission);
+
+        assertEquals(List.of("The"), received);
+    }
+
+    private AngelosChatRequest chatRequest() {
+        AngelosChatRequest request = new AngelosChatRequest();
+        request.setMessages(List.of(new AngelosChatMessage("When does the exam registration close?", "user")));
+        request.setOrgId(1L);
+        return request;
+    }
+}
@@ -0,0 +1,120 @@
+package com.ase.angelos_kb_backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.ase.angelos_kb_backend.dto.angelos.AngelosChatMessage;
+import com.ase.angelos_kb_backend.dto.angelos.AngelosChatRequest;
+import com.ase.angelos_kb_backend.dto.angelos.AngelosChatResponse;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ChatAnswerCacheTest {
+
+    private ChatAnswerCache chatAnswerCache;
+    private AtomicInteger upstreamCalls;
+
+    @BeforeEach
+    void setUp() {
+        chatAnswerCache = new ChatAnswerCache(100, 60, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(chatAnswerCache, "enabled", true);
+        upstreamCalls = new AtomicInteger();
+    }
+
+    @Test
+    void answersNormalizedRepeatFromCache() {
+        ask("When does the exam registration close?", 1L, true);
+        ask("  when does the EXAM   registration close? ", 1L, true);
+
+        assertEquals(1, upstreamCalls.get());
+    }
+
+    @Test
+    void keepsOrgsAndFilterModesApart() {
+        ask("When does the exam registration close?", 1L, true);
+        ask("When does the exam registration close?", 2L, true);
+        ask("When does the exam registration close?", 1L, false);
+
+        assertEquals(3, upstreamCalls.get());
+    }
+
+    @Test
+    void invalidatesOrgAndUnfilteredAnswers() {
+        ask("When does the exam registration close?", 1L, true);
+        ask("When does the exam registration close?", 2L, true);
+        ask("When does the exam registration close?", 2L, false);
+
+        chatAnswerCache.invalidateOrg(1L);
+
+        ask("When does the exam registration close?", 1L, true);
+        ask("When does the exam registration close?", 2L, true);
+        ask("When does the exam registration close?", 2L, false);
+
+        // Org 1 and the unfiltered answer are loaded again, the filtered answer of org 2 stays cached
+        assertEquals(5, upstreamCalls.get());
+    }
+
+    @Test
+    void doesNotCacheAnswersLoadedWhileOrgIsInvalidated() {
+        CompletableFuture<AngelosChatResponse> pending = new CompletableFuture<>();
+        chatAnswerCache.get(request("When does the exam registration close?", 1L), true, () -> {
+            upstreamCalls.incrementAndGet();
+            return pending;
+        });
+        CompletableFuture<AngelosChatResponse> pendingUnfiltered = new CompletableFuture<>();
+        chatAnswerCache.get(request("When does the exam registration close?", 2L), false, () -> {
+            upstreamCalls.incrementAndGet();
+            return pendingUnfiltered;
+        });
+
+        chatAnswerCache.invalidateOrg(1L);
+        pending.complete(answer());
+        pendingUnfiltered.complete(answer());
+
+        ask("When does the exam registration close?", 1L, true);
+        ask("When does the exam registration close?", 2L, false);
+
+        assertEquals(4, upstreamCalls.get());
+    }
+
+    @Test
+    void doesNotCacheFailures() {
+        AngelosChatRequest request = request("When does the exam registration close?", 1L);
+        chatAnswerCache.get(request, true, () -> {
+            upstreamCalls.incrementAndGet();
+            return CompletableFuture.failedFuture(new RuntimeException("Angelos responded with status 500"));
+        });
+
+        ask("When does the exam registration close?", 1L, true);
+
+        assertEquals(2, upstreamCalls.get());
+    }
+
+    private AngelosChatResponse ask(String question, Long orgId, boolean filterByOrg) {
+        return chatAnswerCache.get(request(question, orgId), filterByOrg, () -> {
+            upstreamCalls.incrementAndGet();
+            return CompletableFuture.completedFuture(answer());
+        }).join();
+    }
+
+    private AngelosChatResponse answer() {
+        AngelosChatResponse response = new AngelosChatResponse();
+        response.setAnswer("Registration closes on 15 January.");
+        return response;
+    }
+
+    private AngelosChatRequest request(String question, Long orgId) {
+        AngelosChatRequest request = new AngelosChatRequest();
+        request.setMessages(List.of(new AngelosChatMessage(question, "user")));
+        request.setStudy_program("Informatics");
+        request.setOrgId(orgId);
+        return request;
+    }
+}
@@ -0,0 +1,106 @@
+package com.ase.angelos_kb_backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.ase.angelos_kb_backend.dto.angelos.AngelosChatMessage;
+import com.ase.angelos_kb_backend.dto.angelos.AngelosChatRequest;
+import com.ase.angelos_kb_backend.exception.ResourceNotFoundException;
+
+class ChatSessionServiceTest {
+
+    private ChatSessionService chatSessionService;
+    private String sessionId;
+
+    @BeforeEach
+    void setUp() {
+        chatSessionService = new ChatSessionService(new InMemoryChatSessionStore(60, 100));
+        ReflectionTestUtils.setField(chatSessionService, "maxTurns", 2);
+        ReflectionTestUtils.setField(chatSessionService, "maxBytes", 1000);
+        ReflectionTestUtils.setField(chatSessionService, "answerType", "system");
+        sessionId = chatSessionService.start();
+    }
+
+    @Test
+    void forwardsHistoryFollowedByNewMessage() {
+        chatSessionService.record(request("When does the exam registration close?"), "On 15 January.");
+
+        AngelosChatRequest forwarded = chatSessionService.prepare(request("And for the retake?"));
+
+        assertEquals(List.of(
+                new AngelosChatMessage("When does the exam registration close?", "user"),
+                new AngelosChatMessage("On 15 January.", "system"),
+                new AngelosChatMessage("And for the retake?", "user")), forwarded.getMessages());
+        assertNull(forwarded.getSessionId());
+    }
+
+    @Test
+    void keepsOnlyTheLastTurns() {
+        for (int i = 0; i < 5; i++) {
+            chatSessionService.record(request("Question " + i), "Answer " + i);
+        }
+
+        AngelosChatRequest forwarded = chatSessionService.prepare(request("Question 5"));
+
+        assertEquals(4, forwarded.getMessages().size());
+        assertEquals("Answer 3", forwarded.getMessages().get(0).getMessage());
+        assertEquals("Question 5", forwarded.getMessages().get(3).getMessage());
+    }
+
+    @Test
+    void dropsOldMessagesAboveByteLimit() {
+        ReflectionTestUtils.setField(chatSessionService, "maxBytes", 30);
+        chatSessionService.record(request("A rather long question about the semester"), "A rather long answer");
+
+        AngelosChatRequest forwarded = chatSessionService.prepare(request("Short follow-up"));
+
+        assertEquals(List.of(new AngelosChatMessage("Short follow-up", "user")), forwarded.getMessages());
+    }
+
+    @Test
+    void rejectsSessionIdsItDidNotIssue() {
+        AngelosChatRequest request = request("When does the exam registration close?");
+        request.setSessionId("AAAAAAAAAAAAAAAAAAAAAA");
+
+        assertThrows(ResourceNotFoundException.class, () -> chatSessionService.prepare(request));
+        assertNotEquals(sessionId, chatSessionService.start());
+    }
+
+    @Test
+    void keepsConcurrentAnswersOfOneSession() throws Exception {
+        ReflectionTestUtils.setField(chatSessionService, "maxTurns", 100);
+        ReflectionTestUtils.setField(chatSessionService, "maxBytes", 100000);
+        List<Future<?>> results = new ArrayList<>();
+        try (ExecutorService threads = Executors.newFixedThreadPool(8)) {
+            for (int i = 0; i < 40; i++) {
+                int question = i;
+                results.add(threads.submit(() -> chatSessionService.record(request("Question " + question), "Answer " + question)));
+            }
+        }
+        for (Future<?> result : results) {
+            result.get();
+        }
+
+        assertEquals(80 + 1, chatSessionService.prepare(request("Question 40")).getMessages().size());
+    }
+
+    private AngelosChatRequest request(String message) {
+        AngelosChatRequest request = new AngelosChatRequest();
+        request.setMessages(List.of(new AngelosChatMessage(message, "user")));
+        request.setOrgId(1L);
+        request.setSessionId(sessionId);
+        return request;
+    }
+}
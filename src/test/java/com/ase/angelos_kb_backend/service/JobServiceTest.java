@@ -0,0 +1,165 @@
+package com.ase.angelos_kb_backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.BeanUtils;
+
+import com.ase.angelos_kb_backend.dto.JobDTO;
+import com.ase.angelos_kb_backend.exception.ResourceNotFoundException;
+import com.ase.angelos_kb_backend.model.IngestionJob;
+import com.ase.angelos_kb_backend.repository.IngestionJobRepository;
+import com.ase.angelos_kb_backend.util.JobStatus;
+import com.ase.angelos_kb_backend.util.JobType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class JobServiceTest {
+
+    private final Map<UUID, IngestionJob> jobs = new ConcurrentHashMap<>();
+    private final IngestionJobRepository repository = mock(IngestionJobRepository.class);
+    private JobService jobService;
+
+    @AfterEach
+    void shutdown() {
+        jobService.shutdown();
+    }
+
+    @Test
+    void runsJobAndRecordsProgress() throws Exception {
+        jobService = createService((job, progress) -> {
+            progress.addTotal(3);
+            progress.succeeded(2);
+            progress.failed("https://example.com", "status 404");
+        });
+
+        JobDTO queued = jobService.enqueue(JobType.INIT_DB, 1L, List.of());
+        JobDTO finished = awaitFinished(UUID.fromString(queued.getId()));
+
+        assertEquals(JobStatus.SUCCEEDED, finished.getStatus());
+        assertEquals(3, finished.getTotalItems());
+        assertEquals(3, finished.getProcessedItems());
+        assertEquals(1, finished.getFailedItems());
+        assertEquals(List.of("https://example.com: status 404"), finished.getErrors());
+    }
+
+    @Test
+    void marksJobAsFailedWhenHandlerThrows() throws Exception {
+        jobService = createService((job, progress) -> {
+            throw new RuntimeException("Angelos is down");
+        });
+
+        JobDTO queued = jobService.enqueue(JobType.INIT_DB, 1L, List.of());
+        JobDTO finished = awaitFinished(UUID.fromString(queued.getId()));
+
+        assertEquals(JobStatus.FAILED, finished.getStatus());
+        assertEquals(List.of("Angelos is down"), finished.getErrors());
+    }
+
+    @Test
+    void hidesJobsOfOtherOrganisations() throws Exception {
+        jobService = createService((job, progress) -> { });
+
+        JobDTO queued = jobService.enqueue(JobType.INIT_DB, 1L, List.of());
+        UUID jobId = UUID.fromString(queued.getId());
+
+        assertThrows(ResourceNotFoundException.class, () -> jobService.getJob(jobId, 2L, false));
+        assertEquals(queued.getId(), jobService.getJob(jobId, 2L, true).getId());
+    }
+
+    @Test
+    void skipsJobsClaimedByAnotherInstance() throws Exception {
+        AtomicBoolean ran = new AtomicBoolean();
+        jobService = createService((job, progress) -> ran.set(true));
+        IngestionJob job = new IngestionJob();
+        job.setId(UUID.randomUUID());
+        job.setType(JobType.INIT_DB);
+        job.setStatus(JobStatus.RUNNING);
+        job.setHeartbeatAt(LocalDateTime.now());
+        jobs.put(job.getId(), job);
+        when(repository.findResumable(any(LocalDateTime.class))).thenReturn(List.of(job));
+        when(repository.claim(eq(job.getId()), any(LocalDateTime.class), any(LocalDateTime.class))).thenReturn(0);
+
+        jobService.resumeJobs();
+
+        verify(repository, timeout(5000)).claim(eq(job.getId()), any(LocalDateTime.class), any(LocalDateTime.class));
+
+        assertEquals(JobStatus.RUNNING, job.getStatus());
+        assertFalse(ran.get());
+    }
+
+    private interface Body {
+        void run(IngestionJob job, JobProgress progress) throws Exception;
+    }
+
+    private JobService createService(Body body) {
+        when(repository.save(any(IngestionJob.class))).thenAnswer(invocation -> {
+            IngestionJob job = invocation.getArgument(0);
+            if (job.getId() == null) {
+                job.setId(UUID.randomUUID());
+            }
+            jobs.put(job.getId(), copy(job));
+            return job;
+        });
+        when(repository.claim(any(UUID.class), any(LocalDateTime.class), any(LocalDateTime.class))).thenAnswer(invocation -> {
+            IngestionJob job = jobs.get(invocation.getArgument(0));
+            if (job == null || job.getStatus() != JobStatus.QUEUED) {
+                return 0;
+            }
+            IngestionJob claimed = copy(job);
+            claimed.setStatus(JobStatus.RUNNING);
+            jobs.put(claimed.getId(), claimed);
+            return 1;
+        });
+        when(repository.findById(any(UUID.class))).thenAnswer(invocation -> Optional.ofNullable(jobs.get(invocation.getArgument(0))).map(JobServiceTest::copy));
+
+        JobHandler handler = new JobHandler() {
+            @Override
+            public JobType getType() {
+                return JobType.INIT_DB;
+            }
+
+            @Override
+            public void run(IngestionJob job, JobProgress progress) throws Exception {
+                body.run(job, progress);
+            }
+        };
+        return new JobService(repository, new ObjectMapper(), List.of(handler), 1);
+    }
+
+    // Like the database, the repository hands out copies, so readers never see a job while the worker changes it
+    private static IngestionJob copy(IngestionJob job) {
+        IngestionJob copy = new IngestionJob();
+        BeanUtils.copyProperties(job, copy);
+        return copy;
+    }
+
+    private JobDTO awaitFinished(UUID jobId) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (System.nanoTime() < deadline) {
+            JobDTO job = jobService.getJob(jobId, 1L, false);
+            if (job.getStatus() == JobStatus.SUCCEEDED || job.getStatus() == JobStatus.FAILED) {
+                return job;
+            }
+            Thread.sleep(10);
+        }
+        throw new AssertionError("Job did not finish");
+    }
+}
@@ -0,0 +1,119 @@
+package com.ase.angelos_kb_backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.ase.angelos_kb_backend.dto.ResendJobPayload;
+import com.ase.angelos_kb_backend.model.ContentChunk;
+import com.ase.angelos_kb_backend.repository.ContentChunkRepository;
+import com.ase.angelos_kb_backend.repository.DocumentContentRepository;
+import com.ase.angelos_kb_backend.repository.WebsiteContentRepository;
+import com.ase.angelos_kb_backend.util.JobRequest;
+import com.ase.angelos_kb_backend.util.JobType;
+import com.ase.angelos_kb_backend.util.SimHash;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class NearDuplicateServiceTest {
+
+    private static final String REGULATION = "Applicants must submit a certified copy of their bachelor's degree "
+            + "certificate together with the transcript of records and a language certificate proving sufficient "
+            + "command of English at level B2 or higher, no later than the end of the application period.";
+
+    private final List<Object> events = new ArrayList<>();
+    private NearDuplicateService service;
+
+    @BeforeEach
+    void setUp() {
+        ApplicationEventPublisher publisher = events::add;
+        service = new NearDuplicateService(mock(ContentChunkRepository.class), mock(WebsiteContentRepository.class),
+                mock(DocumentContentRepository.class), publisher, new SimpleMeterRegistry(), 6);
+        ReflectionTestUtils.setField(service, "enabled", true);
+        ReflectionTestUtils.setField(service, "suppress", true);
+    }
+
+    @AfterEach
+    void clearTransaction() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void onlyMatchesSectionsOfTheSameOrganisation() {
+        UUID first = UUID.randomUUID();
+        service.record(first, 1L, List.of(chunk(0, REGULATION, false)), 0, 1);
+
+        assertTrue(service.hasNearDuplicate(UUID.randomUUID(), 1L, fingerprint(REGULATION)));
+        assertFalse(service.hasNearDuplicate(UUID.randomUUID(), 2L, fingerprint(REGULATION)));
+        assertFalse(service.hasNearDuplicate(first, 1L, fingerprint(REGULATION)));
+    }
+
+    @Test
+    void matchesSectionsRecordedEarlierInTheSameTransaction() {
+        TransactionSynchronizationManager.initSynchronization();
+        service.record(UUID.randomUUID(), 1L, List.of(chunk(0, REGULATION, false)), 0, 1);
+
+        assertTrue(service.hasNearDuplicate(UUID.randomUUID(), 1L, fingerprint(REGULATION)));
+
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        assertFalse(service.hasNearDuplicate(UUID.randomUUID(), 1L, fingerprint(REGULATION)));
+
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+        synchronizations.forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        assertTrue(service.hasNearDuplicate(UUID.randomUUID(), 1L, fingerprint(REGULATION)));
+    }
+
+    @Test
+    void resendsSuppressedSectionsOnceNoSourceKeepsThem() {
+        UUID keeper = UUID.randomUUID();
+        UUID suppressing = UUID.randomUUID();
+        service.record(keeper, 1L, List.of(chunk(0, REGULATION, false)), 0, 1);
+        service.record(suppressing, 1L, List.of(chunk(0, REGULATION, true)), 1, 1);
+
+        service.remove(List.of(keeper));
+
+        assertEquals(1, events.size());
+        JobRequest request = (JobRequest) events.get(0);
+        assertEquals(JobType.RESEND_CONTENT, request.type());
+        assertEquals(1L, request.orgId());
+        assertEquals(List.of(suppressing), ((ResendJobPayload) request.payload()).getSourceIds());
+    }
+
+    @Test
+    void refusesToSuppressWithSeveralInstances() {
+        ReflectionTestUtils.setField(service, "sessionStore", "postgres");
+        assertThrows(IllegalStateException.class, service::checkSingleInstance);
+
+        ReflectionTestUtils.setField(service, "suppress", false);
+        service.checkSingleInstance();
+    }
+
+    private static ContentChunk chunk(int position, String text, boolean suppressed) {
+        ContentChunk chunk = new ContentChunk();
+        chunk.setPosition(position);
+        chunk.setSimhash(fingerprint(text));
+        chunk.setSuppressed(suppressed);
+        return chunk;
+    }
+
+    private static long fingerprint(String text) {
+        return SimHash.fingerprint(text).getAsLong();
+    }
+}
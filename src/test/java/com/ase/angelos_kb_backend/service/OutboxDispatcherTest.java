@@ -0,0 +1,101 @@
+package com.ase.angelos_kb_backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.ase.angelos_kb_backend.model.OutboxEvent;
+import com.ase.angelos_kb_backend.repository.OutboxEventRepository;
+import com.ase.angelos_kb_backend.util.OutboxAggregate;
+import com.ase.angelos_kb_backend.util.OutboxOperation;
+import com.ase.angelos_kb_backend.util.OutboxStatus;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class OutboxDispatcherTest {
+
+    private final OutboxEventRepository repository = mock(OutboxEventRepository.class);
+    private final AngelosService angelosService = mock(AngelosService.class);
+    private final ContentSyncService contentSyncService = mock(ContentSyncService.class);
+    private final OutboxDispatcher dispatcher = new OutboxDispatcher(repository, angelosService,
+            contentSyncService, mock(ChatAnswerCache.class), new ObjectMapper(), new SimpleMeterRegistry());
+
+    @Test
+    void skipsItemsClaimedByAnotherInstance() {
+        OutboxEvent event = event(1L, OutboxStatus.PENDING);
+        pending(event);
+        when(repository.claim(eq(1L), any(LocalDateTime.class), any(LocalDateTime.class))).thenReturn(0);
+
+        dispatcher.dispatch();
+
+        verifyNoInteractions(angelosService);
+        assertEquals(OutboxStatus.PENDING, event.getStatus());
+    }
+
+    @Test
+    void holdsBackEventsBehindAFailedEvent() {
+        OutboxEvent update = event(2L, OutboxStatus.PENDING);
+        pending(update);
+        when(repository.findByStatusAndAggregateIdInOrderById(eq(OutboxStatus.FAILED), anyCollection()))
+                .thenReturn(List.of(event(1L, OutboxStatus.FAILED)));
+
+        dispatcher.dispatch();
+
+        verifyNoInteractions(angelosService);
+        verify(repository).saveAll(List.of(update));
+        assertEquals(OutboxStatus.BLOCKED, update.getStatus());
+        assertEquals("Held back behind failed event 1", update.getLastError());
+    }
+
+    @Test
+    void dropsStoredChunksWhenARefreshFailsForGood() {
+        UUID websiteId = UUID.randomUUID();
+        OutboxEvent refresh = event(1L, OutboxStatus.PENDING);
+        refresh.setAggregateId(websiteId.toString());
+        refresh.setOperation(OutboxOperation.REFRESH);
+        refresh.setPayload("{\"content\":\"Registration closes on 15 January.\"}");
+        pending(refresh);
+        ReflectionTestUtils.setField(dispatcher, "maxAttempts", 1);
+        when(repository.claim(eq(1L), any(LocalDateTime.class), any(LocalDateTime.class))).thenReturn(1);
+        when(contentSyncService.deliver(eq(OutboxAggregate.WEBSITE), eq(websiteId.toString()), any())).thenReturn(false);
+
+        dispatcher.dispatch();
+
+        assertEquals(OutboxStatus.FAILED, refresh.getStatus());
+        verify(contentSyncService).deleteChunks(websiteId);
+    }
+
+    private void pending(OutboxEvent event) {
+        ReflectionTestUtils.setField(dispatcher, "batchSize", 500);
+        ReflectionTestUtils.setField(dispatcher, "leaseMs", 300000L);
+        when(repository.findByStatusAndNextAttemptAtLessThanEqualOrderById(eq(OutboxStatus.PENDING), any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of(event));
+        when(repository.findByStatusAndAggregateIdInOrderById(eq(OutboxStatus.PENDING), anyCollection()))
+                .thenReturn(List.of(event));
+    }
+
+    private static OutboxEvent event(Long id, OutboxStatus status) {
+        OutboxEvent event = new OutboxEvent();
+        event.setId(id);
+        event.setAggregateType(OutboxAggregate.WEBSITE);
+        event.setAggregateId("website-1");
+        event.setOperation(OutboxOperation.UPDATE);
+        event.setStatus(status);
+        event.setNextAttemptAt(LocalDateTime.now().minusMinutes(1));
+        return event;
+    }
+}
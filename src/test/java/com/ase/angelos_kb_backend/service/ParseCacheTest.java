@@ -0,0 +1,92 @@
+package com.ase.angelos_kb_backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.ase.angelos_kb_backend.util.ParseResult;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ParseCacheTest {
+
+    @TempDir
+    Path dir;
+
+    private final ParsingService parsingService = mock(ParsingService.class);
+
+    @BeforeEach
+    void stubParser() {
+        when(parsingService.parseWebsite(anyString(), anyString()))
+                .thenAnswer(invocation -> new ParseResult("parsed " + invocation.getArgument(1), "other"));
+    }
+
+    @Test
+    void parsesSamePageOnlyOnce() {
+        ParseCache parseCache = parseCache(1);
+
+        ParseResult first = parseCache.parseWebsite("https://example.org", "<p>A</p>");
+        ParseResult second = parseCache.parseWebsite("https://example.org", "<p>A</p>");
+        parseCache.parseWebsite("https://example.org", "<p>B</p>");
+        parseCache.parseWebsite("https://example.com", "<p>A</p>");
+
+        assertEquals(first, second);
+        verify(parsingService, times(1)).parseWebsite("https://example.org", "<p>A</p>");
+        verify(parsingService, times(3)).parseWebsite(anyString(), anyString());
+    }
+
+    @Test
+    void readsResultsOfEarlierRunsFromDisk() {
+        parseCache(1).parseWebsite("https://example.org", "<p>A</p>");
+
+        ParseResult result = parseCache(1).parseWebsite("https://example.org", "<p>A</p>");
+
+        assertEquals(new ParseResult("parsed <p>A</p>", "other"), result);
+        verify(parsingService, times(1)).parseWebsite(anyString(), anyString());
+    }
+
+    @Test
+    void keepsDiskTierWithinItsLimit() throws IOException {
+        ParseCache parseCache = parseCache(1);
+        for (int i = 0; i < 100; i++) {
+            // Random letters hardly compress, 100 pages take about twice the limit
+            parseCache.parseWebsite("https://example.org/" + i, randomText(i, 32 * 1024));
+        }
+
+        long size;
+        try (Stream<Path> files = Files.list(dir)) {
+            size = files.mapToLong(file -> file.toFile().length()).sum();
+        }
+        assertTrue(size <= 1024 * 1024, "Disk tier uses " + size + " bytes");
+    }
+
+    private ParseCache parseCache(long diskMaxMb) {
+        ParseCache parseCache = new ParseCache(parsingService, new SimpleMeterRegistry(), 1, diskMaxMb, dir.toString());
+        ReflectionTestUtils.setField(parseCache, "enabled", true);
+        return parseCache;
+    }
+
+    private static String randomText(long seed, int length) {
+        StringBuilder text = new StringBuilder(length);
+        Random random = new Random(seed);
+        for (int i = 0; i < length; i++) {
+            text.append((char) ('a' + random.nextInt(26)));
+        }
+        return text.toString();
+    }
+}
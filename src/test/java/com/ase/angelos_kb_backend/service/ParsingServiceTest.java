@@ -0,0 +1,90 @@
+package com.ase.angelos_kb_backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.ase.angelos_kb_backend.util.CITParser;
+import com.ase.angelos_kb_backend.util.GenericWebsiteParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ParsingServiceTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void parsesStoredDocumentWithSmallMemoryBudget() throws IOException {
+        Path file = createDocument(50);
+        ParsingService parsingService = parsingService(1000);
+
+        String text = parsingService.parseDocument(file);
+
+        assertTrue(text.contains("Page 0 of the examination regulations"));
+        assertTrue(text.contains("Page 49 of the examination regulations"));
+    }
+
+    @Test
+    void extractsPageRangesInParallelInPageOrder() throws IOException {
+        Path file = createDocument(101);
+        String sequential = parsingService(1000).parseDocument(file);
+
+        ParsingService parsingService = parsingService(10);
+        List<String> pieces = new ArrayList<>();
+        parsingService.extractDocument(file, pieces::add);
+
+        // 101 pages in ranges of 8 pages
+        assertEquals(13, pieces.size());
+        assertEquals(sequential, String.join("", pieces));
+    }
+
+    private ParsingService parsingService(int parallelMinPages) {
+        ParsingService parsingService = new ParsingService(parserRegistry(), 4);
+        ReflectionTestUtils.setField(parsingService, "parseMemoryMb", 1L);
+        ReflectionTestUtils.setField(parsingService, "scratchDir", dir.toString());
+        ReflectionTestUtils.setField(parsingService, "parallelMinPages", parallelMinPages);
+        ReflectionTestUtils.setField(parsingService, "pagesPerRange", 8);
+        return parsingService;
+    }
+
+    static WebsiteParserRegistry parserRegistry() {
+        GenericWebsiteParser genericParser = new GenericWebsiteParser();
+        return new WebsiteParserRegistry(List.of(new CITParser(), genericParser), genericParser, new ObjectMapper(),
+                new DefaultResourceLoader(), new SimpleMeterRegistry());
+    }
+
+    private Path createDocument(int pages) throws IOException {
+        Path file = dir.resolve("document-" + pages + ".pdf");
+        try (PDDocument document = new PDDocument()) {
+            for (int i = 0; i < pages; i++) {
+                PDPage page = new PDPage();
+                document.addPage(page);
+                try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                    content.beginText();
+                    content.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA), 12);
+                    content.newLineAtOffset(72, 700);
+                    content.showText("Page " + i + " of the examination regulations");
+                    content.endText();
+                }
+            }
+            document.save(file.toFile());
+        }
+        return file;
+    }
+}
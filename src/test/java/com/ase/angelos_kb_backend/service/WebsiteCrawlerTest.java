@@ -0,0 +1,112 @@
+package com.ase.angelos_kb_backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.ase.angelos_kb_backend.util.FetchedPage;
+import com.sun.net.httpserver.HttpServer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class WebsiteCrawlerTest {
+
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger maxActive = new AtomicInteger();
+    private HttpServer server;
+    private WebsiteCrawler crawler;
+
+    @BeforeEach
+    void startServer() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(20);
+                if (exchange.getRequestURI().getPath().startsWith("/missing")) {
+                    exchange.sendResponseHeaders(404, -1);
+                    return;
+                }
+                exchange.getResponseHeaders().set("ETag", "\"v1\"");
+                if ("\"v1\"".equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                    exchange.sendResponseHeaders(304, -1);
+                    return;
+                }
+                byte[] body = ("<html><body><p>Page " + exchange.getRequestURI().getPath() + "</p></body></html>")
+                        .getBytes(StandardCharsets.UTF_8);
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                active.decrementAndGet();
+                exchange.close();
+            }
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        crawler = new WebsiteCrawler(new ParseCache(new ParsingService(ParsingServiceTest.parserRegistry(), 1),
+                new SimpleMeterRegistry(), 1, 1, ""), 16, 2, 2);
+    }
+
+    @AfterEach
+    void stopServer() {
+        crawler.shutdown();
+        server.stop(0);
+    }
+
+    @Test
+    void parsesAllPagesWithoutExceedingPerHostLimit() {
+        List<String> links = IntStream.range(0, 20).mapToObj(this::link).toList();
+        List<String> contents = new ArrayList<>();
+
+        int skipped = crawler.crawl(links, link -> link, page -> contents.add(page.result().getContent()), (link, e) -> { });
+
+        assertEquals(0, skipped);
+        assertEquals(20, contents.size());
+        assertTrue(contents.stream().anyMatch(content -> content.contains("Page /page-7")));
+        assertTrue(maxActive.get() <= 2, "at most two concurrent requests per host, saw " + maxActive.get());
+    }
+
+    @Test
+    void skipsPagesThatCannotBeFetched() {
+        List<String> links = List.of(link(1), "http://127.0.0.1:" + server.getAddress().getPort() + "/missing", "not a link");
+        List<String> fetched = new ArrayList<>();
+        List<String> failed = new ArrayList<>();
+
+        int skipped = crawler.crawl(links, link -> link, page -> fetched.add(page.item()), (link, e) -> failed.add(link));
+
+        assertEquals(2, skipped);
+        assertEquals(List.of(link(1)), fetched);
+        assertEquals(2, failed.size());
+    }
+
+    @Test
+    void returnsNoBodyForUnchangedPage() {
+        FetchedPage first = crawler.fetch(link(1), null, null);
+        FetchedPage second = crawler.fetch(link(1), first.etag(), first.lastModified());
+
+        assertEquals("\"v1\"", first.etag());
+        assertFalse(first.isNotModified());
+        assertTrue(second.isNotModified());
+    }
+
+    private String link(int i) {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/page-" + i;
+    }
+}
@@ -0,0 +1,98 @@
+package com.ase.angelos_kb_backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.ase.angelos_kb_backend.util.CITParser;
+import com.ase.angelos_kb_backend.util.GenericWebsiteParser;
+import com.ase.angelos_kb_backend.util.ParseResult;
+import com.ase.angelos_kb_backend.util.ParserProfile;
+import com.ase.angelos_kb_backend.util.ProfileWebsiteParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class WebsiteParserRegistryTest {
+
+    private static final String PAGE = """
+            <html><body>
+            <header><nav><ul><li>Home</li><li>Studies</li></ul></nav></header>
+            <main>
+              <h1>Admission</h1>
+              <div class="breadcrumb">Home / Admission</div>
+              <p>Apply until May 31.</p>
+              <article><p>Documents are uploaded online.</p></article>
+            </main>
+            <footer><p>Imprint</p></footer>
+            </body></html>
+            """;
+
+    private final GenericWebsiteParser genericParser = new GenericWebsiteParser();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private WebsiteParserRegistry registry;
+
+    @BeforeEach
+    void createRegistry() {
+        registry = new WebsiteParserRegistry(List.of(new CITParser(), genericParser), genericParser, new ObjectMapper(),
+                new DefaultResourceLoader(), meterRegistry);
+    }
+
+    @Test
+    void shippedProfilesKeepGenericExtraction() {
+        ReflectionTestUtils.setField(registry, "profilesLocation", "classpath:parser-profiles.json");
+        registry.loadProfiles();
+
+        assertEquals("cit", registry.resolve("https://www.cit.tum.de/cit/studium/").getName());
+        assertEquals("generic", registry.resolve("https://www.tum.de/studium/bewerbung").getName());
+    }
+
+    @Test
+    void choosesMostSpecificHostPattern() {
+        registry.register(new ProfileWebsiteParser(new ParserProfile("tum", null, List.of("tum.de"),
+                List.of("main"), List.of()), "1", genericParser));
+
+        assertEquals("cit", registry.resolve("https://www.cit.tum.de/cit/studium/").getName());
+        assertEquals("tum", registry.resolve("https://www.tum.de/studium/bewerbung").getName());
+        assertEquals("tum", registry.resolve("https://TUM.de/").getName());
+        assertEquals("generic", registry.resolve("https://example.org/?ref=cit.tum.de").getName());
+        assertEquals("generic", registry.resolve("not a link").getName());
+    }
+
+    @Test
+    void profileKeepsContentRootsAndDropsNoise() {
+        registry.register(new ProfileWebsiteParser(new ParserProfile("faculty", null, List.of("*.example.org"),
+                List.of("main", "article"), List.of("nav", "footer", ".breadcrumb")), "1", genericParser));
+
+        ParseResult result = registry.parse("https://www.example.org/admission", PAGE);
+
+        assertEquals("other", result.getParserType());
+        assertEquals("Admission\nApply until May 31.\nDocuments are uploaded online.\n", result.getContent());
+        assertFalse(result.getContent().contains("Home"));
+        assertEquals(1, meterRegistry.get("website.parser.duration").tag("parser", "faculty").timer().count());
+    }
+
+    @Test
+    void profileFallsBackToBodyWithoutContentRoots() {
+        registry.register(new ProfileWebsiteParser(new ParserProfile("faculty", null, List.of("example.org"),
+                List.of("#content"), List.of("header", "footer")), "1", genericParser));
+
+        String content = registry.parse("https://example.org/", PAGE).getContent();
+
+        assertTrue(content.contains("Apply until May 31."));
+        assertFalse(content.contains("Imprint"));
+    }
+
+    @Test
+    void rejectsDuplicateNames() {
+        assertThrows(IllegalArgumentException.class, () -> registry.register(new GenericWebsiteParser()));
+    }
+}
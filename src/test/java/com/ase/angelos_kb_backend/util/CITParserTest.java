@@ -0,0 +1,35 @@
+package com.ase.angelos_kb_backend.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.jsoup.Jsoup;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * Compares the output for saved pages with the output of the parser before the single pass rewrite.
+ */
+class CITParserTest {
+
+    private final CITParser parser = new CITParser();
+
+    @ParameterizedTest
+    @ValueSource(strings = {"study-plan", "program-info", "no-content"})
+    void matchesGoldenOutput(String page) throws IOException {
+        String html = fixture(page + ".html");
+
+        String text = parser.parseDocument(Jsoup.parse(html, "https://www.cit.tum.de/cit/studium/"));
+
+        assertEquals(fixture(page + ".txt"), text);
+    }
+
+    static String fixture(String name) throws IOException {
+        try (InputStream in = CITParserTest.class.getResourceAsStream("/cit-pages/" + name)) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
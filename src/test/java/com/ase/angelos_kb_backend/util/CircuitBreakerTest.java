@@ -0,0 +1,77 @@
+package com.ase.angelos_kb_backend.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+class CircuitBreakerTest {
+
+    @Test
+    void opensAfterConsecutiveFailures() {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(3, Duration.ofMinutes(1));
+
+        fail(circuitBreaker, 2);
+        circuitBreaker.onSuccess(circuitBreaker.tryAcquirePermission());
+        fail(circuitBreaker, 2);
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+
+        fail(circuitBreaker, 1);
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertNull(circuitBreaker.tryAcquirePermission());
+    }
+
+    @Test
+    void letsOneProbeThroughWhenHalfOpen() throws InterruptedException {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(1, Duration.ofMillis(20));
+        fail(circuitBreaker, 1);
+        Thread.sleep(40);
+
+        CircuitBreaker.Permission probe = circuitBreaker.tryAcquirePermission();
+        assertNotNull(probe);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+        assertNull(circuitBreaker.tryAcquirePermission());
+
+        circuitBreaker.onSuccess(probe);
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        assertNotNull(circuitBreaker.tryAcquirePermission());
+    }
+
+    @Test
+    void reopensWhenProbeFails() throws InterruptedException {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(1, Duration.ofMillis(20));
+        fail(circuitBreaker, 1);
+        Thread.sleep(40);
+
+        circuitBreaker.onFailure(circuitBreaker.tryAcquirePermission());
+
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertNull(circuitBreaker.tryAcquirePermission());
+    }
+
+    @Test
+    void ignoresLateResultsOfCallsStartedBeforeTheCircuitOpened() throws InterruptedException {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(1, Duration.ofMillis(20));
+        CircuitBreaker.Permission late = circuitBreaker.tryAcquirePermission();
+        fail(circuitBreaker, 1);
+        Thread.sleep(40);
+
+        CircuitBreaker.Permission probe = circuitBreaker.tryAcquirePermission();
+        circuitBreaker.onSuccess(late);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+        circuitBreaker.onIgnored(late);
+        assertNull(circuitBreaker.tryAcquirePermission());
+
+        circuitBreaker.onFailure(probe);
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+    }
+
+    private void fail(CircuitBreaker circuitBreaker, int times) {
+        for (int i = 0; i < times; i++) {
+            circuitBreaker.onFailure(circuitBreaker.tryAcquirePermission());
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.ase.angelos_kb_backend.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class ContentChunkerTest {
+
+    private static final String SEPARATOR = "\n\n" + ContentChunker.SECTION_SEPARATOR + "\n\n";
+
+    private final ContentChunker chunker = new ContentChunker();
+
+    @Test
+    void splitsAtSectionSeparators() {
+        List<TextChunk> chunks = chunker.chunk("Title\n\nIntro" + SEPARATOR + "Module A" + SEPARATOR);
+
+        assertEquals(2, chunks.size());
+        assertEquals("Title\n\nIntro", chunks.get(0).text());
+        assertEquals("Module A", chunks.get(1).text());
+        assertEquals(1, chunks.get(1).position());
+    }
+
+    @Test
+    void splitsLongSectionsAtParagraphs() {
+        String paragraph = "x".repeat(1500);
+        List<TextChunk> chunks = chunker.chunk(paragraph + "\n\nHeading\n" + paragraph);
+
+        assertEquals(2, chunks.size());
+        assertTrue(chunks.get(1).text().startsWith("Heading"));
+    }
+
+    @Test
+    void deltaOnlyContainsChangedChunks() {
+        List<TextChunk> before = chunker.chunk("A" + SEPARATOR + "B" + SEPARATOR + "C");
+        List<TextChunk> after = chunker.chunk("A" + SEPARATOR + "B changed" + SEPARATOR + "C");
+
+        ChunkDelta delta = ChunkDelta.between(before.stream().map(TextChunk::hash).toList(), after);
+
+        assertEquals(List.of("B changed"), delta.added().stream().map(TextChunk::text).toList());
+        assertEquals(List.of(before.get(1).hash()), delta.removed());
+        assertEquals(2, delta.unchanged().size());
+    }
+
+    @Test
+    void duplicateChunksAreMatchedOnce() {
+        List<TextChunk> before = chunker.chunk("A" + SEPARATOR + "A");
+        List<TextChunk> after = chunker.chunk("A");
+
+        ChunkDelta delta = ChunkDelta.between(before.stream().map(TextChunk::hash).toList(), after);
+
+        assertTrue(delta.added().isEmpty());
+        assertEquals(1, delta.removed().size());
+        assertEquals(1, delta.unchanged().size());
+    }
+}
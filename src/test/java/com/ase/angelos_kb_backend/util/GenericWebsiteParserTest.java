@@ -0,0 +1,50 @@
+package com.ase.angelos_kb_backend.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * Compares the output for saved pages with the output of the parser before the streaming rewrite.
+ */
+class GenericWebsiteParserTest {
+
+    private final GenericWebsiteParser parser = new GenericWebsiteParser();
+
+    @ParameterizedTest
+    @ValueSource(strings = {"application-master", "dates-and-deadlines", "no-marker", "edge-cases"})
+    void matchesGoldenOutput(String page) throws IOException {
+        assertEquals(fixture(page + ".txt"), parser.parseHtml(fixture(page + ".html")));
+    }
+
+    @Test
+    void matchesPreviousOutputForEdgeCases() {
+        assertEquals("\n", parser.parseHtml(""));
+        assertEquals("\n", parser.parseHtml("TYPO3SEARCH_end"));
+        assertEquals("a\n", parser.parseHtml("<p>a</p>TYPO3SEARCH_end"));
+        assertEquals("y\nz\n", parser.parseHtml("<p>x TYPO3SEARCH_begin y</p><p>z</p>"));
+        assertEquals("one\ntwo\n", parser.parseHtml("<p>one</p><p>two</p>TYPO3SEARCH_end\n\n"));
+        assertEquals("plain\n", parser.parseHtml("plain"));
+        assertEquals("kept\n", parser.parseHtml("<p>window.flow = 1</p><p>kept</p>"));
+    }
+
+    @Test
+    void reusesBuffersAcrossPages() throws IOException {
+        String large = fixture("application-master.html");
+        parser.parseHtml(large);
+
+        assertEquals("plain\n", parser.parseHtml("plain"));
+    }
+
+    private static String fixture(String name) throws IOException {
+        try (InputStream in = GenericWebsiteParserTest.class.getResourceAsStream("/tum-pages/" + name)) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
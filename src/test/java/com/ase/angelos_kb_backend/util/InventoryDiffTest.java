@@ -0,0 +1,84 @@
+package com.ase.angelos_kb_backend.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+class InventoryDiffTest {
+
+    private final List<String> missing = new ArrayList<>();
+    private final List<String> changed = new ArrayList<>();
+    private final List<String> orphaned = new ArrayList<>();
+
+    private final InventoryDiff.Listener listener = new InventoryDiff.Listener() {
+        @Override
+        public void missing(InventoryItem local) {
+            missing.add(local.id());
+        }
+
+        @Override
+        public void changed(InventoryItem local) {
+            changed.add(local.id());
+        }
+
+        @Override
+        public void orphaned(InventoryItem remote) {
+            orphaned.add(remote.id());
+        }
+    };
+
+    @Test
+    void reportsMissingChangedAndOrphanedItems() {
+        List<InventoryItem> local = List.of(item("a", "1"), item("b", "2"), item("c", "3"), item("e", null));
+        List<InventoryItem> rag = List.of(item("b", "2"), item("c", "x"), item("d", "4"), item("e", "5"));
+
+        int matched = InventoryDiff.compare(stub(local), stub(rag), 2, listener);
+
+        assertEquals(3, matched);
+        assertEquals(List.of("a"), missing);
+        assertEquals(List.of("c"), changed);
+        assertEquals(List.of("d"), orphaned);
+    }
+
+    @Test
+    void walksManyPagesWithoutLosingItems() {
+        List<InventoryItem> all = IntStream.range(0, 1000)
+                .mapToObj(i -> item(UUID.nameUUIDFromBytes(("item" + i).getBytes()).toString(), "h"))
+                .sorted((a, b) -> a.id().compareTo(b.id()))
+                .collect(Collectors.toList());
+        List<InventoryItem> local = all.subList(0, 900);
+        List<InventoryItem> rag = all.subList(100, 1000);
+        AtomicInteger pages = new AtomicInteger();
+
+        int matched = InventoryDiff.compare(stub(local), (afterId, limit) -> {
+            pages.incrementAndGet();
+            return stub(rag).load(afterId, limit);
+        }, 64, listener);
+
+        assertEquals(800, matched);
+        assertEquals(100, missing.size());
+        assertEquals(100, orphaned.size());
+        assertEquals(0, changed.size());
+        // 900 items in pages of 64 need 15 pages, the last one is not full
+        assertEquals(15, pages.get());
+    }
+
+    private static InventoryItem item(String id, String hash) {
+        return new InventoryItem(id, hash);
+    }
+
+    // Stands in for an inventory that is read page by page, like the RAG or the database
+    private static InventoryDiff.PageLoader stub(List<InventoryItem> items) {
+        return (afterId, limit) -> items.stream()
+                .filter(item -> afterId == null || item.id().compareTo(afterId) > 0)
+                .limit(limit)
+                .toList();
+    }
+}
@@ -0,0 +1,58 @@
+package com.ase.angelos_kb_backend.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import com.ase.angelos_kb_backend.dto.PageDTO;
+
+class ListingQueryTest {
+
+    @Test
+    void cursorsSurviveEncoding() {
+        UUID id = UUID.randomUUID();
+        LocalDateTime time = LocalDateTime.of(2024, 5, 1, 12, 30, 15, 123456000);
+
+        PageCursor byTitle = PageCursor.decode(PageCursor.after("Fees\nand deadlines", id).encode());
+        PageCursor byTime = PageCursor.decode(PageCursor.after(time, id).encode());
+
+        assertEquals("Fees\nand deadlines", byTitle.key());
+        assertEquals(id, byTitle.uuid());
+        assertEquals(time, byTime.time());
+        assertEquals(PageCursor.FIRST, PageCursor.decode(null));
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.decode("not a cursor"));
+        assertThrows(IllegalArgumentException.class, () -> byTitle.time());
+    }
+
+    @Test
+    void escapesSearchText() {
+        assertEquals("%", ListingQuery.of(null, 50, " ", null, null).pattern());
+        assertEquals("%100!% online!_only%", ListingQuery.of(null, 50, "100% Online_only", null, null).pattern());
+        assertEquals(ListingSort.UPDATED, ListingQuery.of(null, 50, null, null, "updated").sort());
+        assertThrows(IllegalArgumentException.class, () -> ListingQuery.of(null, 0, null, null, null));
+        assertThrows(IllegalArgumentException.class, () -> ListingQuery.of(null, 50, null, null, "size"));
+    }
+
+    @Test
+    void onlyFullPagesHaveNextCursor() {
+        List<Integer> rows = List.of(1, 2, 3);
+
+        PageDTO<String> full = PageDTO.of(rows, 2, row -> PageCursor.after("key", row), this::toStrings);
+        PageDTO<String> last = PageDTO.of(rows, 3, row -> PageCursor.after("key", row), this::toStrings);
+
+        assertEquals(List.of("1", "2"), full.getItems());
+        assertEquals("2", PageCursor.decode(full.getNextCursor()).id());
+        assertEquals(List.of("1", "2", "3"), last.getItems());
+        assertNull(last.getNextCursor());
+    }
+
+    private List<String> toStrings(List<Integer> rows) {
+        return rows.stream().map(String::valueOf).toList();
+    }
+}
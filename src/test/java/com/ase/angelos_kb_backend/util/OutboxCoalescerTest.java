@@ -0,0 +1,96 @@
+package com.ase.angelos_kb_backend.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.ase.angelos_kb_backend.model.OutboxEvent;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class OutboxCoalescerTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<OutboxEvent> events = new ArrayList<>();
+
+    @Test
+    void mergesUpdatesAndRefreshesIntoPendingAdd() {
+        record(OutboxOperation.ADD, "{\"id\":\"w1\",\"title\":\"Old\",\"content\":\"first\"}", 0);
+        record(OutboxOperation.UPDATE, "{\"title\":\"New\"}", 0);
+        record(OutboxOperation.REFRESH, "{\"content\":\"second\",\"delta\":{}}", 0);
+
+        Map<OutboxOperation, JsonNode> requests = OutboxCoalescer.coalesce(events, objectMapper);
+
+        assertEquals(List.of(OutboxOperation.ADD), List.copyOf(requests.keySet()));
+        JsonNode add = requests.get(OutboxOperation.ADD);
+        assertEquals("w1", add.get("id").asText());
+        assertEquals("New", add.get("title").asText());
+        assertEquals("second", add.get("content").asText());
+    }
+
+    @Test
+    void keepsLatestUpdateAndDropsDeltaOfReplacedRefresh() {
+        record(OutboxOperation.UPDATE, "{\"title\":\"A\"}", 0);
+        record(OutboxOperation.REFRESH, "{\"content\":\"one\",\"delta\":{}}", 0);
+        record(OutboxOperation.UPDATE, "{\"title\":\"B\"}", 0);
+        record(OutboxOperation.REFRESH, "{\"content\":\"two\",\"delta\":{}}", 0);
+
+        Map<OutboxOperation, JsonNode> requests = OutboxCoalescer.coalesce(events, objectMapper);
+
+        assertEquals(List.of(OutboxOperation.UPDATE, OutboxOperation.REFRESH), List.copyOf(requests.keySet()));
+        assertEquals("B", requests.get(OutboxOperation.UPDATE).get("title").asText());
+        assertEquals("two", requests.get(OutboxOperation.REFRESH).get("content").asText());
+        assertFalse(requests.get(OutboxOperation.REFRESH).has("delta"));
+    }
+
+    @Test
+    void keepsDeltaOfSingleRefresh() {
+        record(OutboxOperation.REFRESH, "{\"content\":\"one\",\"delta\":{}}", 0);
+
+        assertTrue(OutboxCoalescer.coalesce(events, objectMapper).get(OutboxOperation.REFRESH).has("delta"));
+    }
+
+    @Test
+    void dropsItemThatIsDeletedBeforeItsAddWasSent() {
+        record(OutboxOperation.ADD, "{\"id\":\"w1\"}", 0);
+        record(OutboxOperation.UPDATE, "{\"title\":\"New\"}", 0);
+        record(OutboxOperation.DELETE, null, 0);
+
+        assertTrue(OutboxCoalescer.coalesce(events, objectMapper).isEmpty());
+    }
+
+    @Test
+    void deletesItemWhoseAddMayHaveReachedAngelos() {
+        record(OutboxOperation.ADD, "{\"id\":\"w1\"}", 2);
+        record(OutboxOperation.DELETE, null, 0);
+
+        assertEquals(List.of(OutboxOperation.DELETE), List.copyOf(OutboxCoalescer.coalesce(events, objectMapper).keySet()));
+    }
+
+    @Test
+    void deleteReplacesEarlierChanges() {
+        record(OutboxOperation.UPDATE, "{\"title\":\"New\"}", 0);
+        record(OutboxOperation.REFRESH, "{\"content\":\"one\"}", 0);
+        record(OutboxOperation.DELETE, null, 0);
+
+        assertEquals(List.of(OutboxOperation.DELETE), List.copyOf(OutboxCoalescer.coalesce(events, objectMapper).keySet()));
+    }
+
+    private void record(OutboxOperation operation, String payload, int attempts) {
+        OutboxEvent event = new OutboxEvent();
+        event.setId((long) events.size() + 1);
+        event.setAggregateType(OutboxAggregate.WEBSITE);
+        event.setAggregateId("w1");
+        event.setOperation(operation);
+        event.setPayload(payload);
+        event.setAttempts(attempts);
+        event.setStatus(OutboxStatus.PENDING);
+        events.add(event);
+    }
+}
@@ -0,0 +1,61 @@
+package com.ase.angelos_kb_backend.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+class SimHashIndexTest {
+
+    private static final String REGULATION = "Applicants must submit a certified copy of their bachelor's degree "
+            + "certificate together with the transcript of records and a language certificate proving sufficient "
+            + "command of English at level B2 or higher, no later than the end of the application period.";
+
+    private static final String OTHER = "The master's program in informatics offers eleven areas of specialization, "
+            + "from algorithms and theory to software engineering, and students choose at least three of them "
+            + "during the first two semesters of their studies at the university.";
+
+    @Test
+    void nearTextsGetNearFingerprints() {
+        long regulation = SimHash.fingerprint(REGULATION).getAsLong();
+        long edited = SimHash.fingerprint(REGULATION.replace("B2", "C1")).getAsLong();
+        long other = SimHash.fingerprint(OTHER).getAsLong();
+
+        assertTrue(SimHash.distance(regulation, edited) <= 6, "Distance " + SimHash.distance(regulation, edited));
+        assertTrue(SimHash.distance(regulation, other) > 6, "Distance " + SimHash.distance(regulation, other));
+        assertEquals(regulation, SimHash.fingerprint(REGULATION.toUpperCase()).getAsLong());
+    }
+
+    @Test
+    void shortTextsGetNoFingerprint() {
+        assertEquals(OptionalLong.empty(), SimHash.fingerprint("Contact the student advising"));
+    }
+
+    @Test
+    void findsSectionsOfOtherSources() {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        SimHashIndex index = new SimHashIndex(6);
+        index.put(first, List.of(section(first, 0, REGULATION), section(first, 1, OTHER)));
+
+        long fingerprint = SimHash.fingerprint(REGULATION.replace("B2", "C1")).getAsLong();
+        assertEquals(List.of(section(first, 0, REGULATION)), index.near(second, fingerprint));
+        assertTrue(index.near(first, fingerprint).isEmpty());
+
+        index.put(second, List.of(section(second, 0, REGULATION)));
+        assertEquals(List.of(new SimHashIndex.Overlap(second, 1, first, 1)),
+                index.overlaps().stream().filter(overlap -> overlap.sourceId().equals(second)).toList());
+
+        index.remove(first);
+        assertTrue(index.near(second, fingerprint).isEmpty());
+        assertEquals(1, index.size());
+    }
+
+    private static SimHashIndex.Section section(UUID sourceId, int position, String text) {
+        return new SimHashIndex.Section(sourceId, position, SimHash.fingerprint(text).getAsLong());
+    }
+}
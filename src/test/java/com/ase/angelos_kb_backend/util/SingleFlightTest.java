@@ -0,0 +1,74 @@
+package com.ase.angelos_kb_backend.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+class SingleFlightTest {
+
+    private static final Duration MAX_WAIT = Duration.ofSeconds(5);
+
+    private final SingleFlight<String, String> singleFlight = new SingleFlight<>();
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @Test
+    void sharesOneCallBetweenConcurrentCallers() {
+        CompletableFuture<String> upstream = new CompletableFuture<>();
+
+        CompletableFuture<String> leader = singleFlight.execute("q", () -> count(upstream), MAX_WAIT);
+        CompletableFuture<String> follower = singleFlight.execute("q", () -> count(upstream), MAX_WAIT);
+        upstream.complete("answer");
+
+        assertEquals("answer", leader.join());
+        assertEquals("answer", follower.join());
+        assertEquals(1, calls.get());
+        assertEquals(0, singleFlight.inFlight());
+    }
+
+    @Test
+    void startsNewCallOnceFlightCompleted() {
+        singleFlight.execute("q", () -> count(CompletableFuture.completedFuture("first")), MAX_WAIT).join();
+        String second = singleFlight.execute("q", () -> count(CompletableFuture.completedFuture("second")), MAX_WAIT).join();
+
+        assertEquals("second", second);
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void followersRetryWhenLeaderFails() {
+        CompletableFuture<String> failing = new CompletableFuture<>();
+
+        CompletableFuture<String> leader = singleFlight.execute("q", () -> count(failing), MAX_WAIT);
+        CompletableFuture<String> follower = singleFlight.execute("q",
+                () -> count(CompletableFuture.completedFuture("answer")), MAX_WAIT);
+        failing.completeExceptionally(new RuntimeException("Angelos responded with status 500"));
+
+        assertThrows(CompletionException.class, leader::join);
+        assertEquals("answer", follower.join());
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void followersStopWaitingAfterMaxWait() {
+        CompletableFuture<String> hanging = new CompletableFuture<>();
+
+        singleFlight.execute("q", () -> count(hanging), MAX_WAIT);
+        CompletableFuture<String> follower = singleFlight.execute("q", () -> count(hanging), Duration.ofMillis(50));
+
+        CompletionException e = assertThrows(CompletionException.class, follower::join);
+        assertInstanceOf(TimeoutException.class, e.getCause());
+    }
+
+    private CompletableFuture<String> count(CompletableFuture<String> result) {
+        calls.incrementAndGet();
+        return result;
+    }
+}
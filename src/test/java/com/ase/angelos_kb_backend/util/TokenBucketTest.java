@@ -0,0 +1,70 @@
+package com.ase.angelos_kb_backend.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class TokenBucketTest {
+
+    @Test
+    void allowsBurstUpToCapacity() {
+        // One token per minute, so nothing is refilled while the test runs
+        TokenBucket bucket = new TokenBucket(5, 1);
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, bucket.tryConsume());
+        }
+        long wait = bucket.tryConsume();
+
+        assertTrue(wait > TimeUnit.SECONDS.toNanos(50));
+    }
+
+    @Test
+    void peekDoesNotTakeAndRefundGivesBack() {
+        TokenBucket bucket = new TokenBucket(1, 1);
+
+        assertEquals(0, bucket.peek());
+        assertEquals(0, bucket.peek());
+        assertEquals(0, bucket.tryConsume());
+        assertTrue(bucket.peek() > 0);
+
+        bucket.refund();
+
+        assertEquals(0, bucket.peek());
+        assertEquals(0, bucket.tryConsume());
+    }
+
+    @Test
+    void neverHandsOutMoreThanCapacityUnderContention() throws Exception {
+        TokenBucket bucket = new TokenBucket(100, 1);
+        List<Future<Integer>> results = new ArrayList<>();
+
+        try (ExecutorService threads = Executors.newFixedThreadPool(8)) {
+            for (int t = 0; t < 8; t++) {
+                results.add(threads.submit(() -> {
+                    int granted = 0;
+                    for (int i = 0; i < 1000; i++) {
+                        if (bucket.tryConsume() == 0) {
+                            granted++;
+                        }
+                    }
+                    return granted;
+                }));
+            }
+        }
+
+        int granted = 0;
+        for (Future<Integer> result : results) {
+            granted += result.get();
+        }
+        assertEquals(100, granted);
+    }
+}